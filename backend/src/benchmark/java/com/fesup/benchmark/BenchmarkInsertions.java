@@ -0,0 +1,234 @@
+package com.fesup.benchmark;
+
+import com.fesup.config.MigrationSequences;
+import com.fesup.entity.Activite;
+import com.fesup.entity.Affectation;
+import com.fesup.entity.Creneau;
+import com.fesup.entity.Eleve;
+import com.fesup.entity.Lycee;
+import com.fesup.entity.Salle;
+import com.fesup.entity.Session;
+import com.fesup.entity.Ticket;
+import com.fesup.entity.Voeu;
+import com.fesup.enums.DemiJournee;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Débit d'insertion avant / après le passage aux séquences, sur des lignes d'affectation :
+ * - IDENTITY : requêtes de l'ancien mapping reproduites en JDBC, un INSERT ... RETURNING id
+ *   par ligne, aucun batching possible ;
+ * - SEQUENCE : mêmes requêtes que le nouveau mapping, en JDBC : un nextval par bloc de 50 ID
+ *   (optimiseur pooled), INSERT en batch de 50 réécrits en INSERT multi-lignes par le driver ;
+ * - HIBERNATE : entités Affectation persistées par Hibernate avec les réglages de
+ *   l'application (batch_size 50, order_inserts, reWriteBatchedInserts), flush par batch.
+ *
+ * Nécessite une base PostgreSQL : tables de travail créées puis supprimées, entités
+ * Hibernate dans le schéma bench_insertions (create-drop). Le rapport CSV est écrit
+ * dans target/benchmark.
+ *
+ * Lancement depuis backend/ :
+ *   mvn -Pbenchmark compile exec:java -Dexec.mainClass=com.fesup.benchmark.BenchmarkInsertions \
+ *       -Dexec.args="jdbc:postgresql://localhost:5433/fesup_db postgres postgres 8000 32000 50000"
+ */
+@Slf4j
+public class BenchmarkInsertions {
+    
+    private static final int TAILLE_BATCH = 50;
+    private static final int REPETITIONS = 3;
+    private static final String SCHEMA = "bench_insertions";
+    
+    // Affectation et les entités de ses associations
+    private static final List<Class<?>> ENTITES = List.of(
+        Lycee.class, Eleve.class, Voeu.class, Ticket.class, Activite.class,
+        Salle.class, Creneau.class, Session.class, Affectation.class);
+    
+    public static void main(String[] args) throws SQLException, IOException {
+        String url = args.length > 0 ? args[0] : "jdbc:postgresql://localhost:5433/fesup_db";
+        Properties proprietes = new Properties();
+        proprietes.setProperty("user", args.length > 1 ? args[1] : "postgres");
+        proprietes.setProperty("password", args.length > 2 ? args[2] : "postgres");
+        proprietes.setProperty("reWriteBatchedInserts", "true");
+        int[] volumes = {8_000, 32_000, 50_000};
+        if (args.length > 3) {
+            volumes = new int[args.length - 3];
+            for (int i = 3; i < args.length; i++) {
+                volumes[i - 3] = Integer.parseInt(args[i]);
+            }
+        }
+        
+        Path rapport = Path.of("target", "benchmark",
+            "insertions-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv");
+        Files.createDirectories(rapport.getParent());
+        
+        try (Connection connexion = DriverManager.getConnection(url, proprietes);
+             SessionFactory sessionFactory = construireSessionFactory(connexion, url, proprietes);
+             PrintWriter csv = new PrintWriter(Files.newBufferedWriter(rapport, StandardCharsets.UTF_8))) {
+            // Élèves référencés par les affectations Hibernate, 4 affectations par élève
+            List<Long> eleveIds = creerEleves(sessionFactory, (Arrays.stream(volumes).max().orElse(0) + 3) / 4);
+            csv.println("lignes;strategie;duree_ms;lignes_par_s");
+            for (int lignes : volumes) {
+                for (int repetition = 0; repetition < REPETITIONS; repetition++) {
+                    csv.println(lignes + ";IDENTITY;" + mesurer(connexion, lignes, false));
+                    csv.println(lignes + ";SEQUENCE;" + mesurer(connexion, lignes, true));
+                    csv.println(lignes + ";HIBERNATE;" + mesurerHibernate(sessionFactory, eleveIds, lignes));
+                    csv.flush();
+                }
+            }
+        }
+        log.info("📊 Rapport écrit dans {}", rapport.toAbsolutePath());
+    }
+    
+    private static String mesurer(Connection connexion, int lignes, boolean sequence) throws SQLException {
+        try (Statement statement = connexion.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_affectations");
+            statement.execute("DROP SEQUENCE IF EXISTS bench_affectations_seq");
+            statement.execute(sequence
+                ? "CREATE TABLE bench_affectations (id BIGINT PRIMARY KEY, eleve_id BIGINT NOT NULL, session_id BIGINT)"
+                : "CREATE TABLE bench_affectations (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                  "eleve_id BIGINT NOT NULL, session_id BIGINT)");
+            statement.execute("CREATE SEQUENCE bench_affectations_seq INCREMENT BY " + MigrationSequences.TAILLE_BLOC);
+        }
+        
+        connexion.setAutoCommit(false);
+        long debut = System.nanoTime();
+        if (sequence) {
+            insererParBatch(connexion, lignes);
+        } else {
+            insererLigneALigne(connexion, lignes);
+        }
+        connexion.commit();
+        long dureeMs = (System.nanoTime() - debut) / 1_000_000;
+        connexion.setAutoCommit(true);
+        
+        try (Statement statement = connexion.createStatement()) {
+            statement.execute("DROP TABLE bench_affectations");
+            statement.execute("DROP SEQUENCE bench_affectations_seq");
+        }
+        long parSeconde = lignes * 1000L / Math.max(1, dureeMs);
+        log.info("✅ {} lignes en {} : {} ms ({} lignes/s)", lignes, sequence ? "SEQUENCE" : "IDENTITY", dureeMs, parSeconde);
+        return dureeMs + ";" + parSeconde;
+    }
+    
+    /**
+     * Chemin de l'application : ID pris par blocs sur affectations_seq, INSERT regroupés
+     * par batch au flush. Les lignes sont supprimées hors mesure.
+     */
+    private static String mesurerHibernate(SessionFactory sessionFactory, List<Long> eleveIds, int lignes) {
+        long debut = System.nanoTime();
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < lignes; i++) {
+                session.persist(new Affectation(session.getReference(Eleve.class, eleveIds.get(i / 4)), null));
+                if ((i + 1) % TAILLE_BATCH == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+        });
+        long dureeMs = (System.nanoTime() - debut) / 1_000_000;
+        sessionFactory.inTransaction(session -> session.createMutationQuery("DELETE FROM Affectation").executeUpdate());
+        
+        long parSeconde = lignes * 1000L / Math.max(1, dureeMs);
+        log.info("✅ {} lignes en HIBERNATE : {} ms ({} lignes/s)", lignes, dureeMs, parSeconde);
+        return dureeMs + ";" + parSeconde;
+    }
+    
+    private static SessionFactory construireSessionFactory(Connection connexion, String url, Properties proprietes) throws SQLException {
+        try (Statement statement = connexion.createStatement()) {
+            statement.execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA);
+        }
+        Configuration configuration = new Configuration();
+        ENTITES.forEach(configuration::addAnnotatedClass);
+        configuration.setProperty(AvailableSettings.URL, url);
+        configuration.setProperty(AvailableSettings.USER, proprietes.getProperty("user"));
+        configuration.setProperty(AvailableSettings.PASS, proprietes.getProperty("password"));
+        configuration.setProperty("hibernate.connection.reWriteBatchedInserts", "true");
+        configuration.setProperty(AvailableSettings.DEFAULT_SCHEMA, SCHEMA);
+        configuration.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop");
+        configuration.setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(TAILLE_BATCH));
+        configuration.setProperty(AvailableSettings.ORDER_INSERTS, "true");
+        return configuration.buildSessionFactory();
+    }
+    
+    private static List<Long> creerEleves(SessionFactory sessionFactory, int nombre) {
+        List<Long> ids = new ArrayList<>(nombre);
+        sessionFactory.inTransaction(session -> {
+            Lycee lycee = new Lycee();
+            lycee.setNom("Lycée du benchmark");
+            session.persist(lycee);
+            for (int i = 0; i < nombre; i++) {
+                Eleve eleve = new Eleve();
+                eleve.setIdNational("BENCH" + i);
+                eleve.setNom("Nom" + i);
+                eleve.setPrenom("Prénom" + i);
+                eleve.setLycee(lycee);
+                eleve.setDemiJournee(DemiJournee.values()[i % DemiJournee.values().length]);
+                session.persist(eleve);
+                ids.add(eleve.getId());
+                if ((i + 1) % TAILLE_BATCH == 0) {
+                    session.flush();
+                }
+            }
+        });
+        return ids;
+    }
+    
+    private static void insererLigneALigne(Connection connexion, int lignes) throws SQLException {
+        try (PreparedStatement insert = connexion.prepareStatement(
+                 "INSERT INTO bench_affectations (eleve_id, session_id) VALUES (?, ?) RETURNING id")) {
+            for (int i = 0; i < lignes; i++) {
+                insert.setLong(1, i / 4);
+                insert.setLong(2, i % 200);
+                try (ResultSet id = insert.executeQuery()) {
+                    id.next();
+                }
+            }
+        }
+    }
+    
+    private static void insererParBatch(Connection connexion, int lignes) throws SQLException {
+        try (PreparedStatement nextval = connexion.prepareStatement("SELECT nextval('bench_affectations_seq')");
+             PreparedStatement insert = connexion.prepareStatement(
+                 "INSERT INTO bench_affectations (id, eleve_id, session_id) VALUES (?, ?, ?)")) {
+            long id = 0;
+            long haut = 0;
+            for (int i = 0; i < lignes; i++) {
+                if (id >= haut) {
+                    try (ResultSet resultat = nextval.executeQuery()) {
+                        resultat.next();
+                        haut = resultat.getLong(1);
+                    }
+                    id = Math.max(0, haut - MigrationSequences.TAILLE_BLOC);
+                }
+                insert.setLong(1, ++id);
+                insert.setLong(2, i / 4);
+                insert.setLong(3, i % 200);
+                insert.addBatch();
+                if ((i + 1) % TAILLE_BATCH == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+}
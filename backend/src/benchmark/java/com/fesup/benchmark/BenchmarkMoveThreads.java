@@ -0,0 +1,140 @@
+package com.fesup.benchmark;
+
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.core.api.solver.Solver;
+import ai.timefold.solver.core.api.solver.SolverFactory;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.impl.solver.DefaultSolver;
+import com.fesup.config.SolverThreadFactory;
+import com.fesup.solver.AffectationConstraintProvider;
+import com.fesup.solver.AffectationPlanifiee;
+import com.fesup.solver.AffectationSolution;
+import com.fesup.solver.PolitiqueArret;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark du nombre de threads d'évaluation des mouvements (moveThreadCount).
+ *
+ * Chaque jeu de données est résolu avec 1, 2, 4 puis 8 threads ; le meilleur score est
+ * relevé à 30 s, 1 min et 5 min (vide si aucun n'était encore atteint), avec le pic de heap
+ * et la vitesse de calcul du score.
+ * Le rapport CSV est écrit dans target/benchmark.
+ *
+ * Lancement depuis backend/ :
+ *   mvn -Pbenchmark compile exec:java -Dexec.mainClass=com.fesup.benchmark.BenchmarkMoveThreads \
+ *       -Dexec.args="../test-data ../real_data"
+ *
+ * Au-delà d'un thread, Timefold exige son édition Enterprise : sans elle, la ligne du rapport
+ * l'indique au lieu d'interrompre le benchmark.
+ */
+@Slf4j
+public class BenchmarkMoveThreads {
+    
+    private static final int[] NB_THREADS = {1, 2, 4, 8};
+    private static final Duration[] RELEVES = {Duration.ofSeconds(30), Duration.ofMinutes(1), Duration.ofMinutes(5)};
+    private static final long GRAINE = 42;
+    
+    public static void main(String[] args) throws IOException {
+        List<Path> dossiers = new ArrayList<>();
+        for (String arg : args.length > 0 ? args : new String[] {"../test-data", "../real_data"}) {
+            dossiers.add(Path.of(arg));
+        }
+        
+        Path rapport = Path.of("target", "benchmark",
+            "move-threads-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv");
+        Files.createDirectories(rapport.getParent());
+        
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(rapport, StandardCharsets.UTF_8))) {
+            csv.println("jeu;eleves;affectations;threads;score_30s;score_1min;score_5min;pic_heap_mo;calculs_score_par_s;remarque");
+            for (Path dossier : dossiers) {
+                JeuDeDonnees jeu = JeuDeDonnees.depuisCsv(dossier, GRAINE);
+                log.info("📦 {} : {} élèves, {} sessions, {} vœux",
+                         jeu.getNom(), jeu.getEleves().size(), jeu.getSessions().size(), jeu.getVoeux().size());
+                for (int nbThreads : NB_THREADS) {
+                    csv.println(mesurer(jeu, nbThreads));
+                    csv.flush();
+                }
+            }
+        }
+        log.info("📊 Rapport écrit dans {}", rapport.toAbsolutePath());
+    }
+    
+    private static String mesurer(JeuDeDonnees jeu, int nbThreads) {
+        // Un problème neuf à chaque mesure : le solveur modifie les affectations
+        AffectationSolution probleme = jeu.construireProbleme(true);
+        String moveThreadCount = nbThreads == 1 ? SolverConfig.MOVE_THREAD_COUNT_NONE : String.valueOf(nbThreads);
+        String debutLigne = jeu.getNom() + ";" + jeu.getEleves().size() + ";" + probleme.getAffectations().size() + ";" + nbThreads + ";";
+        
+        Solver<AffectationSolution> solver;
+        try {
+            solver = SolverFactory.<AffectationSolution>create(configuration(moveThreadCount)).buildSolver();
+        } catch (IllegalStateException e) {
+            log.warn("⚠️  {} threads indisponibles : {}", nbThreads, e.getMessage().strip());
+            return debutLigne + ";;;;;Timefold Enterprise requis";
+        }
+        
+        // Meilleur score connu à chaque relevé (le solveur ne publie que les améliorations)
+        HardSoftScore[] scores = new HardSoftScore[RELEVES.length];
+        long debut = System.nanoTime();
+        solver.addEventListener(event -> {
+            Duration ecoule = Duration.ofNanos(System.nanoTime() - debut);
+            for (int i = 0; i < RELEVES.length; i++) {
+                if (ecoule.compareTo(RELEVES[i]) <= 0) {
+                    scores[i] = (HardSoftScore) event.getNewBestScore();
+                }
+            }
+        });
+        
+        reinitialiserPicsHeap();
+        AffectationSolution solution = solver.solve(probleme);
+        long picHeap = picHeap();
+        // L'API publique de Timefold 1.5 n'expose pas la vitesse de calcul du score
+        long calculsParSeconde = ((DefaultSolver<AffectationSolution>) solver).getSolverScope().getScoreCalculationSpeed();
+        
+        log.info("✅ {} - {} thread(s) : {} (pic heap {} Mo, {} calculs/s)",
+                 jeu.getNom(), nbThreads, solution.getScore(), picHeap / (1024 * 1024), calculsParSeconde);
+        // Le dernier relevé est la limite de temps : son score est le score final. Un relevé
+        // antérieur sans meilleur score publié (construction encore en cours) reste vide.
+        scores[RELEVES.length - 1] = solution.getScore();
+        StringBuilder ligne = new StringBuilder(debutLigne);
+        for (HardSoftScore score : scores) {
+            ligne.append(score != null ? score : "").append(';');
+        }
+        return ligne.append(picHeap / (1024 * 1024)).append(';').append(calculsParSeconde).append(';').toString();
+    }
+    
+    private static SolverConfig configuration(String moveThreadCount) {
+        SolverConfig base = new SolverConfig()
+            .withSolutionClass(AffectationSolution.class)
+            .withEntityClasses(AffectationPlanifiee.class)
+            .withConstraintProviderClass(AffectationConstraintProvider.class)
+            .withThreadFactoryClass(SolverThreadFactory.class);
+        return new PolitiqueArret(RELEVES[RELEVES.length - 1], null, null, null, moveThreadCount).appliquer(base);
+    }
+    
+    private static void reinitialiserPicsHeap() {
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+    
+    private static long picHeap() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .mapToLong(pool -> pool.getPeakUsage().getUsed())
+            .sum();
+    }
+}
@@ -0,0 +1,106 @@
+package com.fesup.benchmark;
+
+import ai.timefold.solver.benchmark.api.PlannerBenchmark;
+import ai.timefold.solver.benchmark.api.PlannerBenchmarkFactory;
+import ai.timefold.solver.benchmark.config.PlannerBenchmarkConfig;
+import ai.timefold.solver.benchmark.config.ProblemBenchmarksConfig;
+import ai.timefold.solver.benchmark.config.SolverBenchmarkConfig;
+import ai.timefold.solver.benchmark.config.statistic.ProblemStatisticType;
+import ai.timefold.solver.core.config.constructionheuristic.ConstructionHeuristicPhaseConfig;
+import ai.timefold.solver.core.config.localsearch.LocalSearchPhaseConfig;
+import ai.timefold.solver.core.config.localsearch.LocalSearchType;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import com.fesup.config.SolverThreadFactory;
+import com.fesup.solver.AffectationConstraintProvider;
+import com.fesup.solver.AffectationPlanifiee;
+import com.fesup.solver.AffectationSolution;
+import com.fesup.solver.PolitiqueArret;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark Timefold du solveur sur des jeux synthétiques (1 000 à 50 000 élèves par défaut).
+ *
+ * Chaque configuration de solveur est comparée sur chaque jeu : meilleur score au cours
+ * du temps, vitesse de calcul du score et mémoire utilisée. Le rapport HTML (index.html)
+ * et les CSV de chaque statistique sont écrits dans target/benchmark.
+ *
+ * Lancement depuis backend/ (durée par résolution en ISO-8601, 5 minutes par défaut) :
+ *   mvn -Pbenchmark compile exec:java -Dexec.mainClass=com.fesup.benchmark.BenchmarkSolveur \
+ *       -Dexec.args="1000 5000 10000 50000" -Dfesup.benchmark.duree=PT2M
+ */
+@Slf4j
+public class BenchmarkSolveur {
+    
+    private static final int[] TAILLES_PAR_DEFAUT = {1000, 5000, 10000, 50000};
+    private static final long GRAINE = 42;
+    private static final long ECHAUFFEMENT_SECONDES = 30;
+    
+    public static void main(String[] args) {
+        Duration duree = Duration.parse(System.getProperty("fesup.benchmark.duree", "PT5M"));
+        List<AffectationSolution> problemes = new ArrayList<>();
+        for (int taille : tailles(args)) {
+            JeuDeDonnees jeu = GenerateurJeuDeDonnees.generer(taille, GRAINE);
+            log.info("📦 {} : {} sessions, {} vœux", jeu.getNom(), jeu.getSessions().size(), jeu.getVoeux().size());
+            problemes.add(jeu.construireProbleme(true));
+        }
+        
+        PlannerBenchmarkConfig benchmarkConfig = new PlannerBenchmarkConfig();
+        benchmarkConfig.setName("FESUP - affectation des élèves");
+        benchmarkConfig.setBenchmarkDirectory(new File("target/benchmark"));
+        benchmarkConfig.setWarmUpSecondsSpentLimit(ECHAUFFEMENT_SECONDES);
+        
+        ProblemBenchmarksConfig problemBenchmarksConfig = new ProblemBenchmarksConfig();
+        problemBenchmarksConfig.setProblemStatisticTypeList(List.of(
+            ProblemStatisticType.BEST_SCORE,
+            ProblemStatisticType.SCORE_CALCULATION_SPEED,
+            ProblemStatisticType.MEMORY_USE));
+        SolverBenchmarkConfig herite = new SolverBenchmarkConfig();
+        herite.setProblemBenchmarksConfig(problemBenchmarksConfig);
+        benchmarkConfig.setInheritedSolverBenchmarkConfig(herite);
+        
+        SolverConfig base = new PolitiqueArret(duree, null, null, null, SolverConfig.MOVE_THREAD_COUNT_NONE)
+            .appliquer(new SolverConfig()
+                .withSolutionClass(AffectationSolution.class)
+                .withEntityClasses(AffectationPlanifiee.class)
+                .withConstraintProviderClass(AffectationConstraintProvider.class)
+                .withThreadFactoryClass(SolverThreadFactory.class));
+        benchmarkConfig.setSolverBenchmarkConfigList(List.of(
+            solveur("Configuration de production", base),
+            solveur("Tabu search", avecRechercheLocale(base, LocalSearchType.TABU_SEARCH)),
+            solveur("Great deluge", avecRechercheLocale(base, LocalSearchType.GREAT_DELUGE))));
+        
+        PlannerBenchmark benchmark = PlannerBenchmarkFactory.create(benchmarkConfig)
+            .buildPlannerBenchmark(problemes.toArray(new AffectationSolution[0]));
+        File rapport = benchmark.benchmark();
+        log.info("📊 Rapport écrit dans {}", rapport.getAbsolutePath());
+    }
+    
+    private static int[] tailles(String[] args) {
+        if (args.length == 0) {
+            return TAILLES_PAR_DEFAUT;
+        }
+        int[] tailles = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            tailles[i] = Integer.parseInt(args[i]);
+        }
+        return tailles;
+    }
+    
+    private static SolverBenchmarkConfig solveur(String nom, SolverConfig solverConfig) {
+        SolverBenchmarkConfig solverBenchmarkConfig = new SolverBenchmarkConfig();
+        solverBenchmarkConfig.setName(nom);
+        solverBenchmarkConfig.setSolverConfig(solverConfig);
+        return solverBenchmarkConfig;
+    }
+    
+    private static SolverConfig avecRechercheLocale(SolverConfig base, LocalSearchType type) {
+        return new SolverConfig(base).withPhases(
+            new ConstructionHeuristicPhaseConfig(),
+            new LocalSearchPhaseConfig().withLocalSearchType(type));
+    }
+}
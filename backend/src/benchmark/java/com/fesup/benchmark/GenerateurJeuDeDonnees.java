@@ -0,0 +1,94 @@
+package com.fesup.benchmark;
+
+import com.fesup.entity.Lycee;
+import com.fesup.enums.DemiJournee;
+import com.fesup.enums.TypeActivite;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Jeux de données synthétiques de la forme de test-data/*.csv, de 1 000 à 50 000 élèves :
+ * lycées d'environ 300 élèves, 4 demi-journées de 4 créneaux, moitié de conférences,
+ * un quart de tables rondes et un quart de flash métiers, vœux concentrés sur
+ * les activités les plus populaires.
+ *
+ * Salles et activités sont dimensionnées sur le nombre d'élèves par demi-journée
+ * (la capacité max d'une activité porte sur l'ensemble de ses sessions), puis les
+ * sessions sont complétées pour offrir 25 % de places en plus des besoins.
+ */
+public final class GenerateurJeuDeDonnees {
+    
+    private static final int ELEVES_PAR_LYCEE = 300;
+    
+    private static final double MARGE_PLACES = 1.25;
+    
+    // Capacité totale moyenne d'une activité (conférence 120-160, table ronde 80, flash métier 60)
+    private static final int CAPACITE_MOYENNE_ACTIVITE = 105;
+    
+    // Capacités des salles de test-data/salles.csv
+    private static final int[] CAPACITES_SALLES = {150, 120, 40, 40, 30, 50, 45, 35, 30, 25, 80, 60, 25, 20, 35};
+    
+    private static final LocalTime[] DEBUTS_MATIN = {LocalTime.of(8, 30), LocalTime.of(9, 45), LocalTime.of(11, 0), LocalTime.of(12, 15)};
+    private static final LocalTime[] DEBUTS_APRES_MIDI = {LocalTime.of(14, 0), LocalTime.of(15, 15), LocalTime.of(16, 30), LocalTime.of(17, 45)};
+    
+    private GenerateurJeuDeDonnees() {
+    }
+    
+    public static JeuDeDonnees generer(int nbEleves, long graine) {
+        Random random = new Random(graine);
+        JeuDeDonnees jeu = new JeuDeDonnees("synthetique-" + nbEleves);
+        DemiJournee[] demiJournees = DemiJournee.values();
+        int elevesParDemiJournee = (nbEleves + demiJournees.length - 1) / demiJournees.length;
+        
+        // 1. Créneaux d'une heure, 4 par demi-journée
+        for (DemiJournee demiJournee : demiJournees) {
+            LocalTime[] debuts = "MATIN".equals(demiJournee.getPeriode()) ? DEBUTS_MATIN : DEBUTS_APRES_MIDI;
+            for (int i = 0; i < debuts.length; i++) {
+                jeu.ajouterCreneau("Créneau " + (i + 1) + " - " + demiJournee.getLabel(), debuts[i], debuts[i].plusHours(1), demiJournee);
+            }
+        }
+        
+        // 2. Salles : de quoi accueillir tous les élèves d'une demi-journée sur chaque créneau
+        double placesMoyennesSalle = Arrays.stream(CAPACITES_SALLES).average().orElse(1);
+        int nbSalles = (int) Math.ceil(elevesParDemiJournee * MARGE_PLACES / placesMoyennesSalle) + 2;
+        for (int i = 0; i < nbSalles; i++) {
+            jeu.ajouterSalle("Salle " + (i + 1), CAPACITES_SALLES[i % CAPACITES_SALLES.length]);
+        }
+        
+        // 3. Activités : assez de places pour les 4 sessions de chaque élève
+        // et assez d'activités pour que la limite de 5 sessions par activité ne laisse aucune salle vide
+        int nbActivites = Math.max(nbSalles, (int) Math.ceil(elevesParDemiJournee * 4 * MARGE_PLACES / CAPACITE_MOYENNE_ACTIVITE));
+        for (DemiJournee demiJournee : demiJournees) {
+            for (int i = 0; i < nbActivites; i++) {
+                switch (i % 4) {
+                    case 0, 1 -> jeu.ajouterActivite("Conférence " + (i + 1) + " - " + demiJournee.name(),
+                                                      TypeActivite.CONFERENCE, demiJournee, random.nextBoolean() ? 120 : 160);
+                    case 2 -> jeu.ajouterActivite("Table ronde " + (i + 1) + " - " + demiJournee.name(),
+                                                  TypeActivite.TABLE_RONDE, demiJournee, 80);
+                    default -> jeu.ajouterActivite("Flash métier " + (i + 1) + " - " + demiJournee.name(),
+                                                   TypeActivite.FLASH_METIER, demiJournee, 60);
+                }
+            }
+        }
+        
+        // 4. Élèves répartis sur les lycées et les demi-journées
+        List<Lycee> lycees = new ArrayList<>();
+        for (int i = 0; i <= nbEleves / ELEVES_PAR_LYCEE; i++) {
+            lycees.add(jeu.creerLycee("Lycée " + (i + 1), "Saint-Étienne", "42000"));
+        }
+        for (int i = 0; i < nbEleves; i++) {
+            jeu.ajouterEleve("NOM" + i, "Prénom" + i, String.format("%09dXX", i),
+                             lycees.get(i / ELEVES_PAR_LYCEE), demiJournees[random.nextInt(demiJournees.length)]);
+        }
+        
+        // 5. Vœux, sessions sur la demande puis complétées jusqu'à la capacité nécessaire
+        jeu.genererVoeux(random);
+        jeu.genererSessions();
+        jeu.completerCapacite(MARGE_PLACES);
+        return jeu;
+    }
+}
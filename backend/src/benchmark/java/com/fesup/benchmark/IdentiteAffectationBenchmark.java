@@ -0,0 +1,144 @@
+package com.fesup.benchmark;
+
+import com.fesup.entity.Affectation;
+import com.fesup.solver.AffectationPlanifiee;
+import com.fesup.solver.AffectationSolution;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-régression de l'identité des affectations : indexation de toutes les affectations
+ * d'un plan dans une HashMap, avec l'ancienne égalité (par élève) et avec la nouvelle
+ * (l'entité elle-même ou son ID pour Affectation, identifiant de planification pour le solveur).
+ *
+ * Avec l'ancienne égalité les 4 affectations d'un élève tombent sur la même clé : la map
+ * perd 3 entrées sur 4. La préparation échoue si la nouvelle identité en perd une seule,
+ * ou si une affectation ajoutée à un HashSet avant d'avoir son ID n'y est plus retrouvée.
+ * La map indexée par entité doit rester du même ordre que celle indexée par ID : un hashCode
+ * mal réparti la ferait dégénérer en parcours de liste.
+ * La vitesse du calcul de score est mesurée par ScoreDirectorBenchmark.
+ *
+ * Lancement depuis backend/ :
+ *   mvn -Pbenchmark compile exec:exec -Dexec.executable=java \
+ *       -Dexec.args="-classpath %classpath org.openjdk.jmh.Main IdentiteAffectationBenchmark"
+ */
+@Slf4j
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdentiteAffectationBenchmark {
+    
+    @Param({"1000", "10000", "50000"})
+    public int nbEleves;
+    
+    private List<AffectationPlanifiee> affectationsPlanifiees;
+    private List<Affectation> affectations;
+    
+    @Setup(Level.Trial)
+    public void preparer() {
+        AffectationSolution solution = GenerateurJeuDeDonnees.generer(nbEleves, 42).construireProbleme(true);
+        affectationsPlanifiees = solution.getAffectations();
+        affectations = solution.versAffectations();
+        // Ajoutées à un HashSet avant save(), puis l'ID est attribué par la persistance
+        List<Affectation> echantillon = affectations.subList(0, Math.min(1000, affectations.size()));
+        Set<Affectation> avantPersistance = new HashSet<>(echantillon);
+        // Comme après un chargement depuis la base : chaque ligne a son ID
+        for (int i = 0; i < affectations.size(); i++) {
+            affectations.get(i).setId((long) i + 1);
+        }
+        if (avantPersistance.size() != echantillon.size() || !avantPersistance.containsAll(echantillon)) {
+            throw new IllegalStateException("Une affectation n'est plus retrouvée après l'attribution de son ID");
+        }
+        
+        int parEleve = indexerParEleve().size();
+        int parEntite = indexerParEntite().size();
+        int parId = indexerParId().size();
+        int parPlanningId = indexerParPlanningId().size();
+        log.info("{} affectations : {} clés par élève (ancienne égalité), {} par entité, {} par ID, {} par identifiant de planification",
+                 affectations.size(), parEleve, parEntite, parId, parPlanningId);
+        if (parEntite != affectations.size() || parId != affectations.size()
+                || parPlanningId != affectationsPlanifiees.size()) {
+            throw new IllegalStateException("Des affectations distinctes partagent la même clé");
+        }
+    }
+    
+    @Benchmark
+    public Map<CleEleve, Affectation> indexerParEleve() {
+        Map<CleEleve, Affectation> index = new HashMap<>();
+        for (Affectation affectation : affectations) {
+            index.put(new CleEleve(affectation), affectation);
+        }
+        return index;
+    }
+    
+    @Benchmark
+    public Map<Affectation, Affectation> indexerParEntite() {
+        Map<Affectation, Affectation> index = new HashMap<>();
+        for (Affectation affectation : affectations) {
+            index.put(affectation, affectation);
+        }
+        return index;
+    }
+    
+    @Benchmark
+    public Map<Long, Affectation> indexerParId() {
+        Map<Long, Affectation> index = new HashMap<>();
+        for (Affectation affectation : affectations) {
+            index.put(affectation.getId(), affectation);
+        }
+        return index;
+    }
+    
+    @Benchmark
+    public Map<Long, AffectationPlanifiee> indexerParPlanningId() {
+        Map<Long, AffectationPlanifiee> index = new HashMap<>();
+        for (AffectationPlanifiee affectation : affectationsPlanifiees) {
+            index.put(affectation.getId(), affectation);
+        }
+        return index;
+    }
+    
+    /**
+     * Ancienne égalité de Affectation : seul l'élève compte
+     */
+    public static final class CleEleve {
+        
+        private final Affectation affectation;
+        
+        CleEleve(Affectation affectation) {
+            this.affectation = affectation;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CleEleve && Objects.equals(affectation.getEleve(), ((CleEleve) o).affectation.getEleve());
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(affectation.getEleve());
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.fesup.benchmark;
+
+import com.fesup.entity.Activite;
+import com.fesup.entity.Creneau;
+import com.fesup.entity.Eleve;
+import com.fesup.entity.Lycee;
+import com.fesup.entity.Salle;
+import com.fesup.entity.Session;
+import com.fesup.entity.Voeu;
+import com.fesup.enums.DemiJournee;
+import com.fesup.enums.TypeActivite;
+import com.fesup.enums.TypeVoeu;
+import com.fesup.solver.AffectationSolution;
+import com.fesup.solver.ConstructeurProbleme;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvException;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Jeu de données en mémoire pour les benchmarks du solveur, sans base de données.
+ *
+ * Les fichiers CSV d'import (test-data, real_data) ne contiennent ni vœux ni sessions :
+ * les vœux sont tirés avec une popularité inégale des activités (graine fixe pour
+ * rejouer le même jeu), puis les sessions sont dimensionnées sur la demande comme
+ * le fait la génération automatique des sessions.
+ */
+@Getter
+public class JeuDeDonnees {
+    
+    private static final int MAX_SESSIONS_PAR_ACTIVITE = 5;
+    
+    // Plus l'exposant est grand, plus les vœux se concentrent sur quelques activités
+    private static final double EXPOSANT_POPULARITE = 0.8;
+    
+    private final String nom;
+    private final List<Creneau> creneaux = new ArrayList<>();
+    private final List<Salle> salles = new ArrayList<>();
+    private final List<Activite> activites = new ArrayList<>();
+    private final List<Eleve> eleves = new ArrayList<>();
+    private final List<Voeu> voeux = new ArrayList<>();
+    private final List<Session> sessions = new ArrayList<>();
+    private long prochainId = 1;
+    
+    public JeuDeDonnees(String nom) {
+        this.nom = nom;
+    }
+    
+    /**
+     * Charge un dossier d'import (creneaux, salles, activites, eleves) puis génère vœux et sessions
+     */
+    public static JeuDeDonnees depuisCsv(Path dossier, long graine) throws IOException {
+        JeuDeDonnees jeu = new JeuDeDonnees(dossier.getFileName().toString());
+        
+        for (String[] ligne : lire(trouver(dossier, "creneaux"), 4)) {
+            jeu.ajouterCreneau(ligne[0], LocalTime.parse(ligne[1]), LocalTime.parse(ligne[2]), DemiJournee.valueOf(ligne[3]));
+        }
+        for (String[] ligne : lire(trouver(dossier, "salles"), 2)) {
+            jeu.ajouterSalle(ligne[0], Integer.parseInt(ligne[1]));
+        }
+        for (String[] ligne : lire(trouver(dossier, "activites"), 5)) {
+            jeu.ajouterActivite(ligne[0], TypeActivite.valueOf(ligne[2]), DemiJournee.valueOf(ligne[3]), Integer.parseInt(ligne[4]));
+        }
+        Map<String, Lycee> lycees = new HashMap<>();
+        for (String[] ligne : lire(trouver(dossier, "eleves"), 7)) {
+            Lycee lycee = lycees.computeIfAbsent(ligne[3], nomLycee -> jeu.creerLycee(nomLycee, ligne[4], ligne[5]));
+            jeu.ajouterEleve(ligne[0], ligne[1], ligne[2], lycee, DemiJournee.valueOf(ligne[6]));
+        }
+        
+        Random random = new Random(graine);
+        jeu.genererVoeux(random);
+        jeu.genererSessions();
+        return jeu;
+    }
+    
+    /**
+     * Problème Timefold construit comme par l'application (démarrage à chaud compris)
+     */
+    public AffectationSolution construireProbleme(boolean demarrageAChaud) {
+        return new ConstructeurProbleme(demarrageAChaud).construire(eleves, sessions, voeux);
+    }
+    
+    public Creneau ajouterCreneau(String libelle, LocalTime debut, LocalTime fin, DemiJournee demiJournee) {
+        Creneau creneau = new Creneau(prochainId++, libelle, debut, fin, demiJournee);
+        creneaux.add(creneau);
+        return creneau;
+    }
+    
+    public Salle ajouterSalle(String nom, int capacite) {
+        Salle salle = new Salle(prochainId++, nom, capacite, null, null);
+        salles.add(salle);
+        return salle;
+    }
+    
+    public Activite ajouterActivite(String titre, TypeActivite type, DemiJournee demiJournee, int capaciteMax) {
+        Activite activite = new Activite();
+        activite.setId(prochainId++);
+        activite.setTitre(titre);
+        activite.setType(type);
+        activite.setDemiJournee(demiJournee);
+        activite.setCapaciteMax(capaciteMax);
+        activites.add(activite);
+        return activite;
+    }
+    
+    public Lycee creerLycee(String nom, String ville, String codePostal) {
+        return new Lycee(prochainId++, nom, ville, codePostal, new ArrayList<>());
+    }
+    
+    public Eleve ajouterEleve(String nom, String prenom, String idNational, Lycee lycee, DemiJournee demiJournee) {
+        Eleve eleve = new Eleve();
+        eleve.setId(prochainId++);
+        eleve.setNom(nom);
+        eleve.setPrenom(prenom);
+        eleve.setIdNational(idNational);
+        eleve.setLycee(lycee);
+        eleve.setDemiJournee(demiJournee);
+        eleves.add(eleve);
+        return eleve;
+    }
+    
+    /**
+     * Vœux 1 et 2 parmi les conférences de la demi-journée de l'élève, vœux 3 à 5 parmi toutes
+     * ses activités, tirés selon une popularité décroissante (loi de Zipf)
+     */
+    public void genererVoeux(Random random) {
+        Map<DemiJournee, List<Activite>> conferences = new EnumMap<>(DemiJournee.class);
+        Map<DemiJournee, List<Activite>> toutes = new EnumMap<>(DemiJournee.class);
+        for (Activite activite : activites) {
+            toutes.computeIfAbsent(activite.getDemiJournee(), dj -> new ArrayList<>()).add(activite);
+            if (activite.getType() == TypeActivite.CONFERENCE) {
+                conferences.computeIfAbsent(activite.getDemiJournee(), dj -> new ArrayList<>()).add(activite);
+            }
+        }
+        // Ordre de popularité propre à la graine
+        conferences.values().forEach(liste -> Collections.shuffle(liste, random));
+        toutes.values().forEach(liste -> Collections.shuffle(liste, random));
+        
+        for (Eleve eleve : eleves) {
+            List<Activite> conferencesEleve = conferences.getOrDefault(eleve.getDemiJournee(), List.of());
+            List<Activite> activitesEleve = toutes.getOrDefault(eleve.getDemiJournee(), List.of());
+            Set<Activite> choisies = new HashSet<>();
+            int priorite = 1;
+            while (priorite <= 5) {
+                List<Activite> candidates = priorite <= 2 ? conferencesEleve : activitesEleve;
+                if (choisies.containsAll(candidates)) {
+                    break;
+                }
+                Activite activite = tirer(candidates, random);
+                if (choisies.add(activite)) {
+                    Voeu voeu = new Voeu();
+                    voeu.setId(prochainId++);
+                    voeu.setEleve(eleve);
+                    voeu.setActivite(activite);
+                    voeu.setPriorite(priorite);
+                    voeu.setTypeVoeu(priorite <= 2 ? TypeVoeu.VOEU_1_2 : TypeVoeu.VOEU_3_4_5);
+                    voeux.add(voeu);
+                    priorite++;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Sessions dimensionnées sur les vœux prioritaires (plus une si les vœux 3 à 5 débordent),
+     * 5 au plus par activité, réparties sur les couples créneau/salle libres de la demi-journée
+     */
+    public void genererSessions() {
+        Map<Activite, List<Voeu>> voeuxParActivite = voeux.stream().collect(Collectors.groupingBy(Voeu::getActivite));
+        Map<DemiJournee, List<Creneau>> creneauxParDemiJournee = creneaux.stream()
+            .collect(Collectors.groupingBy(Creneau::getDemiJournee, () -> new EnumMap<>(DemiJournee.class), Collectors.toList()));
+        List<Salle> sallesParCapacite = new ArrayList<>(salles);
+        sallesParCapacite.sort(Comparator.comparing(Salle::getCapacite));
+        
+        Set<String> occupes = new HashSet<>();
+        List<Activite> parDemande = new ArrayList<>(voeuxParActivite.keySet());
+        parDemande.sort(Comparator.comparing((Activite a) -> voeuxParActivite.get(a).size()).reversed());
+        for (Activite activite : parDemande) {
+            List<Voeu> demande = voeuxParActivite.get(activite);
+            long prioritaires = demande.stream().filter(v -> v.getPriorite() <= 2).count();
+            int nbSessions = (int) Math.ceil((double) prioritaires / activite.getCapaciteMax());
+            if (demande.size() - prioritaires > activite.getCapaciteMax()) {
+                nbSessions++;
+            }
+            nbSessions = Math.max(1, Math.min(nbSessions, MAX_SESSIONS_PAR_ACTIVITE));
+            
+            List<Creneau> creneauxActivite = creneauxParDemiJournee.getOrDefault(activite.getDemiJournee(), List.of());
+            int creees = 0;
+            for (int tour = 0; creees < nbSessions && tour < creneauxActivite.size(); tour++) {
+                for (Creneau creneau : creneauxActivite) {
+                    if (creees >= nbSessions) {
+                        break;
+                    }
+                    // Plus petite salle libre assez grande, sinon la plus grande salle libre
+                    Salle salle = null;
+                    for (Salle candidate : sallesParCapacite) {
+                        if (!occupes.contains(creneau.getId() + "-" + candidate.getId())) {
+                            salle = candidate;
+                            if (candidate.getCapacite() >= activite.getCapaciteMax()) {
+                                break;
+                            }
+                        }
+                    }
+                    if (salle != null && occupes.add(creneau.getId() + "-" + salle.getId())) {
+                        Session session = new Session(prochainId++, activite, salle, creneau, null);
+                        session.calculerCapacite();
+                        sessions.add(session);
+                        creees++;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Ajoute des sessions aux activités les moins ouvertes jusqu'à ce que chaque créneau offre
+     * au moins marge × élèves de sa demi-journée places, tant qu'il reste des salles libres
+     */
+    public void completerCapacite(double marge) {
+        Map<DemiJournee, Long> elevesParDemiJournee = eleves.stream()
+            .collect(Collectors.groupingBy(Eleve::getDemiJournee, Collectors.counting()));
+        Map<Activite, Integer> sessionsParActivite = new HashMap<>();
+        Map<Creneau, Integer> placesParCreneau = new HashMap<>();
+        Set<String> occupes = new HashSet<>();
+        Set<String> ouvertes = new HashSet<>();
+        for (Session session : sessions) {
+            sessionsParActivite.merge(session.getActivite(), 1, Integer::sum);
+            ouvertes.add(session.getCreneau().getId() + "-" + session.getActivite().getId());
+            placesParCreneau.merge(session.getCreneau(), session.getCapaciteDisponible(), Integer::sum);
+            occupes.add(session.getCreneau().getId() + "-" + session.getSalle().getId());
+        }
+        
+        for (Creneau creneau : creneaux) {
+            long besoin = (long) Math.ceil(elevesParDemiJournee.getOrDefault(creneau.getDemiJournee(), 0L) * marge);
+            List<Activite> candidates = activites.stream()
+                .filter(a -> a.getDemiJournee() == creneau.getDemiJournee())
+                .collect(Collectors.toList());
+            for (Salle salle : salles) {
+                if (placesParCreneau.getOrDefault(creneau, 0) >= besoin) {
+                    break;
+                }
+                if (occupes.contains(creneau.getId() + "-" + salle.getId())) {
+                    continue;
+                }
+                Activite activite = candidates.stream()
+                    .filter(a -> sessionsParActivite.getOrDefault(a, 0) < MAX_SESSIONS_PAR_ACTIVITE)
+                    .filter(a -> !ouvertes.contains(creneau.getId() + "-" + a.getId()))
+                    .min(Comparator.comparing((Activite a) -> sessionsParActivite.getOrDefault(a, 0)))
+                    .orElse(null);
+                if (activite == null) {
+                    break;
+                }
+                Session session = new Session(prochainId++, activite, salle, creneau, null);
+                session.calculerCapacite();
+                sessions.add(session);
+                occupes.add(creneau.getId() + "-" + salle.getId());
+                ouvertes.add(creneau.getId() + "-" + activite.getId());
+                sessionsParActivite.merge(activite, 1, Integer::sum);
+                placesParCreneau.merge(creneau, session.getCapaciteDisponible(), Integer::sum);
+            }
+        }
+    }
+    
+    private static Activite tirer(List<Activite> candidates, Random random) {
+        double total = 0;
+        for (int rang = 0; rang < candidates.size(); rang++) {
+            total += poids(rang);
+        }
+        double tirage = random.nextDouble() * total;
+        for (int rang = 0; rang < candidates.size(); rang++) {
+            tirage -= poids(rang);
+            if (tirage <= 0) {
+                return candidates.get(rang);
+            }
+        }
+        return candidates.get(candidates.size() - 1);
+    }
+    
+    private static double poids(int rang) {
+        return 1.0 / Math.pow(rang + 1, EXPOSANT_POPULARITE);
+    }
+    
+    /**
+     * Premier fichier du dossier dont le nom commence par le préfixe (ex : eleves.csv, eleves_converted.csv)
+     */
+    private static Path trouver(Path dossier, String prefixe) throws IOException {
+        try (var fichiers = Files.list(dossier)) {
+            return fichiers
+                .filter(f -> f.getFileName().toString().startsWith(prefixe) && f.getFileName().toString().endsWith(".csv"))
+                // eleves.csv, puis eleves_converted.csv, puis eleves_template.csv
+                .min(Comparator.comparing((Path f) -> f.getFileName().toString().contains("template"))
+                    .thenComparing(f -> f.getFileName().toString().length()))
+                .orElseThrow(() -> new IOException("Aucun fichier " + prefixe + "*.csv dans " + dossier));
+        }
+    }
+    
+    /**
+     * Lignes de données du fichier, les lignes incomplètes étant ignorées comme à l'import
+     */
+    private static List<String[]> lire(Path fichier, int nbColonnes) throws IOException {
+        try (Reader reader = Files.newBufferedReader(fichier, StandardCharsets.UTF_8);
+             CSVReader csvReader = new CSVReaderBuilder(reader).withSkipLines(1).build()) {
+            return csvReader.readAll().stream()
+                .filter(ligne -> ligne.length >= nbColonnes)
+                .collect(Collectors.toList());
+        } catch (CsvException e) {
+            throw new IOException("CSV invalide : " + fichier, e);
+        }
+    }
+}
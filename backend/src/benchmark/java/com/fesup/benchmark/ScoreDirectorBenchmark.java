@@ -0,0 +1,91 @@
+package com.fesup.benchmark;
+
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.core.api.solver.SolverFactory;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.impl.score.director.InnerScoreDirector;
+import ai.timefold.solver.core.impl.solver.DefaultSolverFactory;
+import com.fesup.solver.AffectationConstraintProvider;
+import com.fesup.solver.AffectationPlanifiee;
+import com.fesup.solver.AffectationSolution;
+import com.fesup.solver.SessionPlanifiee;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Micro-benchmark JMH du calcul de score (AffectationConstraintProvider) :
+ * changement de session d'une affectation suivi du calcul incrémental du score,
+ * comme lors de l'évaluation d'un mouvement par la recherche locale.
+ *
+ * Lancement depuis backend/ (rapport CSV dans target/benchmark) :
+ *   mvn -Pbenchmark compile exec:exec -Dexec.executable=java \
+ *       -Dexec.args="-classpath %classpath org.openjdk.jmh.Main ScoreDirectorBenchmark -rf csv -rff target/benchmark/jmh.csv"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ScoreDirectorBenchmark {
+    
+    private static final String VARIABLE = "session";
+    
+    @Param({"1000", "10000", "50000"})
+    public int nbEleves;
+    
+    private InnerScoreDirector<AffectationSolution, HardSoftScore> scoreDirector;
+    private List<AffectationPlanifiee> mobiles;
+    private Random random;
+    
+    @Setup(Level.Trial)
+    public void preparer() {
+        AffectationSolution solution = GenerateurJeuDeDonnees.generer(nbEleves, 42).construireProbleme(true);
+        SolverConfig solverConfig = new SolverConfig()
+            .withSolutionClass(AffectationSolution.class)
+            .withEntityClasses(AffectationPlanifiee.class)
+            .withConstraintProviderClass(AffectationConstraintProvider.class);
+        // Le score director n'est accessible que par l'implémentation de Timefold
+        DefaultSolverFactory<AffectationSolution> solverFactory =
+            (DefaultSolverFactory<AffectationSolution>) SolverFactory.<AffectationSolution>create(solverConfig);
+        scoreDirector = solverFactory.<HardSoftScore>getScoreDirectorFactory().buildScoreDirector();
+        scoreDirector.setWorkingSolution(solution);
+        scoreDirector.calculateScore();
+        
+        mobiles = solution.getAffectations().stream()
+            .filter(a -> a.getSessionsPossibles().size() > 1)
+            .collect(Collectors.toList());
+        random = new Random(42);
+    }
+    
+    @Benchmark
+    public HardSoftScore changerSession() {
+        AffectationPlanifiee affectation = mobiles.get(random.nextInt(mobiles.size()));
+        List<SessionPlanifiee> sessions = affectation.getSessionsPossibles();
+        scoreDirector.beforeVariableChanged(affectation, VARIABLE);
+        affectation.setSession(sessions.get(random.nextInt(sessions.size())));
+        scoreDirector.afterVariableChanged(affectation, VARIABLE);
+        return scoreDirector.calculateScore();
+    }
+    
+    @TearDown(Level.Trial)
+    public void fermer() {
+        scoreDirector.close();
+    }
+}
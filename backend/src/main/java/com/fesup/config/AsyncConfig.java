@@ -1,11 +1,13 @@
 package com.fesup.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
@@ -21,4 +23,36 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+    
+    /**
+     * Imports CSV en tâche de fond, séparés des générations de PDF pour ne pas attendre derrière elles
+     */
+    @Bean(name = "importExecutor")
+    public Executor importExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(20);
+        executor.setThreadNamePrefix("import-");
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * Rendu et écriture des tickets PDF, un thread par cœur par défaut. File courte et
+     * CallerRunsPolicy : quand les workers sont saturés, le thread qui soumet rend le ticket
+     * lui-même, ce qui borne le nombre de PDF en mémoire.
+     */
+    @Bean(name = "pdfExecutor")
+    public ThreadPoolTaskExecutor pdfExecutor(@Value("${application.tickets.generation.threads:0}") int threads) {
+        int taille = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(taille);
+        executor.setMaxPoolSize(taille);
+        executor.setQueueCapacity(2 * taille);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("pdf-");
+        executor.initialize();
+        return executor;
+    }
 }
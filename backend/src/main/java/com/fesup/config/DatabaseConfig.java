@@ -63,6 +63,8 @@ public class DatabaseConfig {
             config.setConnectionTimeout(30000);
             config.setIdleTimeout(600000);
             config.setMaxLifetime(1800000);
+            // Batchs d'INSERT réécrits en INSERT multi-lignes (voir application-prod.properties)
+            config.addDataSourceProperty("reWriteBatchedInserts", "true");
             
             return new HikariDataSource(config);
             
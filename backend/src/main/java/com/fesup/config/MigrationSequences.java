@@ -0,0 +1,100 @@
+package com.fesup.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Passage des ID IDENTITY aux séquences (allocation par blocs de 50, optimiseur pooled
+ * d'Hibernate), sans toucher aux lignes existantes.
+ *
+ * Pour chaque table : la séquence est créée si besoin puis avancée au-delà du plus grand
+ * ID existant, et la colonne id perd son IDENTITY au profit d'un DEFAULT sur la séquence
+ * (les INSERT SQL sans ID, comme data.sql, restent valides). Idempotent : la séquence
+ * n'est jamais reculée.
+ *
+ * Exécuté à l'initialisation du bean, avant l'EntityManagerFactory (voir
+ * {@link AvantEntityManagerFactory}) : ni ddl-auto, ni le serveur web, ni DataInitializer
+ * ne peuvent prendre un ID avant que les séquences soient avancées. Les tables absentes
+ * (base neuve) sont créées par Hibernate avec leurs séquences, mais sans DEFAULT : il est
+ * posé une fois tous les singletons créés, avant DataInitializer.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MigrationSequences implements InitializingBean, SmartInitializingSingleton {
+    
+    public static final int TAILLE_BLOC = 50;
+    
+    private static final List<String> TABLES = List.of(
+        "lycees", "eleves", "activites", "salles", "creneaux", "sessions",
+        "voeux", "affectations", "tickets", "roles", "users");
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    // Tables absentes au démarrage, créées par ddl-auto
+    private final List<String> tablesNouvelles = new ArrayList<>();
+    
+    @Override
+    public void afterPropertiesSet() {
+        int migrees = 0;
+        for (String table : TABLES) {
+            if (existe(table)) {
+                migrer(table);
+                migrees++;
+            } else {
+                tablesNouvelles.add(table);
+            }
+        }
+        log.info("🔢 Séquences d'ID vérifiées pour {} tables", migrees);
+    }
+    
+    /**
+     * DEFAULT des tables créées par Hibernate pendant ce démarrage, pour les INSERT SQL
+     * sans ID (data.sql) dès la première exécution
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String table : tablesNouvelles) {
+            if (existe(table)) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id SET DEFAULT nextval('" + table + "_seq')");
+                log.debug("DEFAULT sur {}_seq posé pour la nouvelle table {}", table, table);
+            }
+        }
+        tablesNouvelles.clear();
+    }
+    
+    private boolean existe(String table) {
+        return jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table);
+    }
+    
+    private void migrer(String table) {
+        String sequence = table + "_seq";
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence + " INCREMENT BY " + TAILLE_BLOC);
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id DROP IDENTITY IF EXISTS");
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id SET DEFAULT nextval('" + sequence + "')");
+        // Prochain bloc Hibernate : ]valeur, valeur + 50], donc au-dessus de toutes les lignes existantes
+        Long valeur = jdbcTemplate.queryForObject(
+            "SELECT setval('" + sequence + "', GREATEST((SELECT COALESCE(MAX(id), 0) FROM " + table + "), " +
+            "(SELECT last_value FROM " + sequence + "), 1))", Long.class);
+        log.debug("Séquence {} positionnée à {}", sequence, valeur);
+    }
+    
+    /**
+     * Rend l'EntityManagerFactory dépendante de la migration
+     */
+    @Component
+    static class AvantEntityManagerFactory extends EntityManagerFactoryDependsOnPostProcessor {
+        
+        AvantEntityManagerFactory() {
+            super(MigrationSequences.class);
+        }
+    }
+}
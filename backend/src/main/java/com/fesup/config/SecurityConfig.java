@@ -1,6 +1,7 @@
 package com.fesup.config;
 
 import com.fesup.security.JwtRequestFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -57,6 +58,8 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
+                // Dispatch asynchrone des flux SSE (la requête initiale est déjà autorisée)
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Endpoints publics (EPIC-2 : Workflow Élève)
                 .requestMatchers("/api/voeux/**").permitAll()
                 .requestMatchers("/api/eleves/**").permitAll()
@@ -0,0 +1,25 @@
+package com.fesup.config;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads du solveur Timefold (résolutions et évaluation des mouvements) : nommés pour
+ * être repérables dans les dumps et profils, daemon pour ne pas bloquer l'arrêt de l'application.
+ *
+ * Timefold instancie la fabrique par réflexion : un constructeur sans argument est nécessaire.
+ */
+public class SolverThreadFactory implements ThreadFactory {
+    
+    private static final AtomicInteger NUMERO_FABRIQUE = new AtomicInteger();
+    
+    private final String prefixe = "fesup-solver-" + NUMERO_FABRIQUE.incrementAndGet() + "-";
+    private final AtomicInteger numeroThread = new AtomicInteger();
+    
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, prefixe + numeroThread.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
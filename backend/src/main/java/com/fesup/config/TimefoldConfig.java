@@ -1,29 +1,137 @@
 package com.fesup.config;
 
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.core.api.solver.SolutionManager;
+import ai.timefold.solver.core.api.solver.SolverFactory;
 import ai.timefold.solver.core.api.solver.SolverManager;
 import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.SolverManagerConfig;
+import ai.timefold.solver.core.config.solver.monitoring.MonitoringConfig;
+import ai.timefold.solver.core.config.solver.monitoring.SolverMetric;
 import com.fesup.solver.AffectationConstraintProvider;
+import com.fesup.solver.AffectationPlanifiee;
 import com.fesup.solver.AffectationSolution;
+import com.fesup.solver.PolitiqueArret;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ThreadFactory;
 
 @Configuration
+@Slf4j
 public class TimefoldConfig {
     
+    /**
+     * Politique d'arrêt par défaut, surchargeable à chaque lancement.
+     * Une limite vide est désactivée.
+     */
     @Bean
-    public SolverConfig solverConfig() {
-        return new SolverConfig()
+    public PolitiqueArret politiqueArret(
+            @Value("${timefold.solver.termination.spent-limit:5m}") Duration spentLimit,
+            @Value("${timefold.solver.termination.unimproved-spent-limit:}") Duration unimprovedSpentLimit,
+            @Value("${timefold.solver.termination.best-score-limit:}") String bestScoreLimit,
+            @Value("${application.solver.termination.step-count-limit:}") Integer stepCountLimit,
+            @Value("${timefold.solver.move-thread-count:NONE}") String moveThreadCount) {
+        return new PolitiqueArret(spentLimit, unimprovedSpentLimit,
+            bestScoreLimit == null || bestScoreLimit.isBlank() ? null : bestScoreLimit,
+            stepCountLimit, moveThreadCount);
+    }
+    
+    /**
+     * Réaffectations incrémentales : seuls quelques élèves sont à optimiser,
+     * la résolution s'arrête dès que le score ne s'améliore plus.
+     */
+    @Bean
+    public PolitiqueArret politiqueArretReaffectation(
+            @Value("${application.solver.reaffectation.unimproved-spent-limit:10s}") Duration unimprovedSpentLimit,
+            @Value("${application.solver.reaffectation.spent-limit:1m}") Duration spentLimit) {
+        return new PolitiqueArret(spentLimit, unimprovedSpentLimit, null, null, SolverConfig.MOVE_THREAD_COUNT_NONE);
+    }
+    
+    /**
+     * Le nombre de threads d'évaluation des mouvements ("move-thread-count" : NONE, AUTO ou un nombre)
+     * nécessite l'édition Enterprise de Timefold : une valeur autre que NONE est vérifiée au démarrage.
+     * Si elle est invalide ou non supportée, l'application démarre sur un seul thread (NONE).
+     */
+    @Bean
+    public SolverConfig solverConfig(
+            @Qualifier("politiqueArret") PolitiqueArret politiqueArret,
+            @Value("${application.solver.thread-factory-class:com.fesup.config.SolverThreadFactory}") Class<? extends ThreadFactory> threadFactoryClass) {
+        SolverConfig base = new SolverConfig()
             .withSolutionClass(AffectationSolution.class)
-            .withEntityClasses(com.fesup.entity.Affectation.class)
+            .withEntityClasses(AffectationPlanifiee.class)
             .withConstraintProviderClass(AffectationConstraintProvider.class)
-            .withTerminationSpentLimit(Duration.ofMinutes(5)); // 5 minutes max
+            .withThreadFactoryClass(threadFactoryClass)
+            // Le nombre de calculs de score alimente la vitesse affichée dans le flux de progression
+            .withMonitoringConfig(new MonitoringConfig()
+                .withSolverMetricList(List.of(SolverMetric.SOLVE_DURATION, SolverMetric.ERROR_COUNT, SolverMetric.SCORE_CALCULATION_COUNT)));
+        SolverConfig solverConfig = politiqueArret.appliquer(base);
+        if (!SolverConfig.MOVE_THREAD_COUNT_NONE.equals(solverConfig.getMoveThreadCount())) {
+            try {
+                SolverFactory.create(solverConfig).buildSolver();
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                // Repli construit sur une copie : le bean partagé garde la valeur configurée, et les
+                // lancements qui en héritent reprennent celle de cette configuration (voir AffectationService)
+                PolitiqueArret repli = politiqueArret.surcharger(
+                    new PolitiqueArret(null, null, null, null, SolverConfig.MOVE_THREAD_COUNT_NONE));
+                log.warn("⚠️  move-thread-count={} inutilisable ({}), résolution avec move-thread-count={}",
+                         politiqueArret.getMoveThreadCount(), e.getMessage().strip(), repli.getMoveThreadCount());
+                solverConfig = repli.appliquer(base);
+            }
+        }
+        return solverConfig;
+    }
+    
+    /**
+     * Registre Micrometer de l'application (aucun n'est déclaré sans actuator). Timefold publie
+     * ses métriques dans le registre global : celui-ci y est rattaché pour les recevoir.
+     */
+    @Bean
+    public MeterRegistry meterRegistry() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+        return meterRegistry;
+    }
+    
+    /**
+     * Le nombre de solveurs parallèles permet de résoudre les demi-journées
+     * simultanément (mode partitionné). "AUTO" = moitié des cœurs disponibles.
+     */
+    @Bean
+    public SolverManager<AffectationSolution, UUID> solverManager(
+            SolverConfig solverConfig,
+            @Value("${application.solver.parallel-solver-count:AUTO}") String parallelSolverCount) {
+        SolverManagerConfig solverManagerConfig = new SolverManagerConfig()
+            .withParallelSolverCount(parallelSolverCount)
+            .withThreadFactoryClass(solverConfig.getThreadFactoryClass());
+        return SolverManager.create(solverConfig, solverManagerConfig);
+    }
+    
+    /**
+     * Solveur des réaffectations incrémentales
+     */
+    @Bean
+    public SolverManager<AffectationSolution, UUID> reaffectationSolverManager(
+            SolverConfig solverConfig,
+            @Qualifier("politiqueArretReaffectation") PolitiqueArret politiqueArretReaffectation) {
+        return SolverManager.create(politiqueArretReaffectation.appliquer(solverConfig),
+            new SolverManagerConfig().withThreadFactoryClass(solverConfig.getThreadFactoryClass()));
     }
     
+    /**
+     * Calcul du score hors résolution (moteur par flot), avec les mêmes contraintes
+     */
     @Bean
-    public SolverManager<AffectationSolution, UUID> solverManager(SolverConfig solverConfig) {
-        return SolverManager.create(solverConfig);
+    public SolutionManager<AffectationSolution, HardSoftScore> solutionManager(SolverConfig solverConfig) {
+        return SolutionManager.create(SolverFactory.<AffectationSolution>create(solverConfig));
     }
 }
@@ -1,13 +1,19 @@
 package com.fesup.controller;
 
+import com.fesup.dto.ImportJobDTO;
 import com.fesup.dto.ImportReportDTO;
+import com.fesup.enums.TypeImport;
 import com.fesup.service.AdminImportService;
+import com.fesup.service.ImportJobService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/admin/import")
 @PreAuthorize("hasRole('ADMIN')")
@@ -16,6 +22,9 @@ public class AdminImportController {
     @Autowired
     private AdminImportService adminImportService;
     
+    @Autowired
+    private ImportJobService importJobService;
+    
     @PostMapping("/eleves")
     public ResponseEntity<ImportReportDTO> importEleves(@RequestParam("file") MultipartFile file) {
         ImportReportDTO report = adminImportService.importEleves(file);
@@ -33,4 +42,31 @@ public class AdminImportController {
         ImportReportDTO report = adminImportService.importSalles(file);
         return ResponseEntity.ok(report);
     }
+    
+    /**
+     * Lance un import en tâche de fond ; l'avancement se suit sur /jobs/{jobId}
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<ImportJobDTO> lancerImport(@RequestParam("type") TypeImport type,
+                                                     @RequestParam("file") MultipartFile file) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(importJobService.lancer(type, file));
+    }
+    
+    @GetMapping("/jobs")
+    public ResponseEntity<List<ImportJobDTO>> listerImports() {
+        return ResponseEntity.ok(importJobService.lister());
+    }
+    
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ImportJobDTO> getImport(@PathVariable String jobId) {
+        return ResponseEntity.ok(importJobService.get(jobId));
+    }
+    
+    /**
+     * Reprend un import en échec après la dernière ligne écrite
+     */
+    @PostMapping("/jobs/{jobId}/reprendre")
+    public ResponseEntity<ImportJobDTO> reprendreImport(@PathVariable String jobId) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(importJobService.reprendre(jobId));
+    }
 }
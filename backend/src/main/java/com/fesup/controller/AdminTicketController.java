@@ -1,10 +1,13 @@
 package com.fesup.controller;
 
+import com.fesup.dto.GenerationTicketsDTO;
+import com.fesup.dto.TicketARegenererDTO;
 import com.fesup.entity.Eleve;
 import com.fesup.entity.Ticket;
 import com.fesup.repository.EleveRepository;
 import com.fesup.repository.TicketRepository;
 import com.fesup.service.BatchPdfService;
+import com.fesup.service.GenerationTicketsService;
 import com.fesup.service.TicketStorageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,6 +18,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -27,28 +31,72 @@ public class AdminTicketController {
     private final EleveRepository eleveRepository;
     private final TicketRepository ticketRepository;
     private final TicketStorageService storageService;
+    private final GenerationTicketsService generationTicketsService;
     
     /**
-     * Déclenche la génération de tous les tickets (asynchrone)
+     * Déclenche la génération de tous les tickets (asynchrone, une seule à la fois)
+     *
+     * @param forcer régénère aussi les tickets dont le planning n'a pas changé
      */
     @PostMapping("/generer-tous")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> genererTousLesTickets() {
-        log.info("🎯 Admin a déclenché la génération batch des tickets");
+    public ResponseEntity<?> genererTousLesTickets(@RequestParam(defaultValue = "false") boolean forcer) {
+        log.info("🎯 Admin a déclenché la génération batch des tickets{}", forcer ? " (forcée)" : "");
         
-        // Lancer le batch en asynchrone
-        batchPdfService.genererTousLesTickets()
-            .thenAccept(result -> {
-                log.info("✅ Batch terminé : {} succès / {} erreurs", 
-                         result.getSucces(), result.getErreurs());
-            });
+        GenerationTicketsDTO generation = generationTicketsService.lancer(forcer);
         
         return ResponseEntity.accepted().body(Map.of(
             "message", "Génération des tickets lancée en arrière-plan",
-            "status", "EN_COURS"
+            "status", generation.getStatut(),
+            "generationId", generation.getId()
         ));
     }
     
+    /**
+     * Élèves dont le ticket est absent ou ne correspond plus au planning
+     */
+    @GetMapping("/a-regenerer")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<TicketARegenererDTO>> ticketsARegenerer() {
+        return ResponseEntity.ok(batchPdfService.ticketsARegenerer());
+    }
+    
+    /**
+     * Générations de tickets, de la plus récente à la plus ancienne
+     */
+    @GetMapping("/generations")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<GenerationTicketsDTO>> listerGenerations() {
+        return ResponseEntity.ok(generationTicketsService.lister());
+    }
+    
+    /**
+     * Avancement, débit et erreurs d'une génération de tickets
+     */
+    @GetMapping("/generations/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<GenerationTicketsDTO> getGeneration(@PathVariable Long id) {
+        return ResponseEntity.ok(generationTicketsService.get(id));
+    }
+    
+    /**
+     * Annule une génération en cours (les tickets déjà soumis sont terminés)
+     */
+    @PostMapping("/generations/{id}/annuler")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<GenerationTicketsDTO> annulerGeneration(@PathVariable Long id) {
+        return ResponseEntity.ok(generationTicketsService.annuler(id));
+    }
+    
+    /**
+     * Relance la génération pour les seuls élèves en erreur d'une génération
+     */
+    @PostMapping("/generations/{id}/reprendre-erreurs")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<GenerationTicketsDTO> reprendreErreurs(@PathVariable Long id) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(generationTicketsService.reprendreErreurs(id));
+    }
+    
     /**
      * Régénère le ticket d'un élève spécifique
      */
@@ -1,13 +1,26 @@
 package com.fesup.controller;
 
+import com.fesup.dto.AffectationJobDTO;
 import com.fesup.entity.Affectation;
+import com.fesup.enums.MoteurAffectation;
+import com.fesup.exception.BusinessException;
+import com.fesup.exception.ValidationException;
+import com.fesup.service.AffectationJob;
+import com.fesup.service.AffectationProgressionService;
 import com.fesup.service.AffectationService;
+import com.fesup.service.AnalyseSolutionService;
 import com.fesup.solver.AffectationSolution;
+import com.fesup.solver.PolitiqueArret;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,21 +33,108 @@ import java.util.UUID;
 public class AffectationController {
     
     private final AffectationService affectationService;
+    private final AffectationProgressionService progressionService;
+    private final AnalyseSolutionService analyseSolutionService;
     
     /**
      * Lance l'algorithme d'affectation
+     * 
+     * @param moteur TIMEFOLD (par défaut) ou FLOT (flot de coût minimal, sans limites d'arrêt)
+     * @param partitionne si true, résout chaque demi-journée comme un sous-problème indépendant en parallèle
+     * @param conjoint si true, replanifie aussi les sessions avant la recherche locale (remplace les sessions existantes si sauvegardé)
+     * @param sauvegarder si false, lance un scénario dont le résultat n'est pas écrit en base
+     * @param tempsMax durée maximale (ex : 30s, 5m ou PT5M)
+     * @param tempsSansAmelioration arrêt si le meilleur score ne s'améliore plus pendant cette durée
+     * @param scoreCible arrêt dès que ce score est atteint (ex : 0hard/*soft)
+     * @param nbEtapesMax nombre maximal d'étapes de la recherche locale
+     * @param moveThreadCount threads d'évaluation des mouvements (NONE, AUTO ou un nombre)
      */
     @PostMapping("/lancer")
-    public ResponseEntity<Map<String, Object>> lancerAffectation() {
+    public ResponseEntity<Map<String, Object>> lancerAffectation(
+            @RequestParam(defaultValue = "TIMEFOLD") MoteurAffectation moteur,
+            @RequestParam(defaultValue = "false") boolean partitionne,
+            @RequestParam(defaultValue = "false") boolean conjoint,
+            @RequestParam(defaultValue = "true") boolean sauvegarder,
+            @RequestParam(required = false) Duration tempsMax,
+            @RequestParam(required = false) Duration tempsSansAmelioration,
+            @RequestParam(required = false) String scoreCible,
+            @RequestParam(required = false) Integer nbEtapesMax,
+            @RequestParam(required = false) String moveThreadCount) {
         try {
-            UUID problemId = affectationService.lancerAffectation();
+            PolitiqueArret surcharge = new PolitiqueArret(tempsMax, tempsSansAmelioration, scoreCible, nbEtapesMax, moveThreadCount);
+            UUID problemId;
+            if (moteur == MoteurAffectation.FLOT) {
+                problemId = affectationService.lancerAffectationParFlot(sauvegarder);
+            } else if (conjoint) {
+                problemId = affectationService.lancerAffectationConjointe(sauvegarder, surcharge);
+            } else if (partitionne) {
+                problemId = affectationService.lancerAffectationPartitionnee(sauvegarder, surcharge);
+            } else {
+                problemId = affectationService.lancerAffectation(sauvegarder, surcharge);
+            }
             
             Map<String, Object> response = new HashMap<>();
             response.put("problemId", problemId.toString());
+            response.put("mode", affectationService.getJob(problemId).getMode());
+            response.put("politique", affectationService.getJob(problemId).getPolitique().decrire());
             response.put("status", "STARTED");
             response.put("message", "Algorithme lancé avec succès");
             
             return ResponseEntity.ok(response);
+        } catch (ValidationException e) {
+            // Politique d'arrêt invalide
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "ERROR");
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (BusinessException e) {
+            // Plafond de résolutions simultanées atteint
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "ERROR");
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "ERROR");
+            error.put("message", e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
+    /**
+     * Relance l'algorithme de manière incrémentale à partir des affectations existantes
+     * (élèves ajoutés, sessions déplacées la veille du forum). Mêmes limites d'arrêt que /lancer.
+     */
+    @PostMapping("/relancer")
+    public ResponseEntity<Map<String, Object>> relancerAffectation(
+            @RequestParam(defaultValue = "true") boolean sauvegarder,
+            @RequestParam(required = false) Duration tempsMax,
+            @RequestParam(required = false) Duration tempsSansAmelioration,
+            @RequestParam(required = false) String scoreCible,
+            @RequestParam(required = false) Integer nbEtapesMax,
+            @RequestParam(required = false) String moveThreadCount) {
+        try {
+            PolitiqueArret surcharge = new PolitiqueArret(tempsMax, tempsSansAmelioration, scoreCible, nbEtapesMax, moveThreadCount);
+            UUID problemId = affectationService.lancerReaffectation(sauvegarder, surcharge);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("problemId", problemId.toString());
+            response.put("mode", "INCREMENTAL");
+            response.put("politique", affectationService.getJob(problemId).getPolitique().decrire());
+            response.put("status", "STARTED");
+            response.put("message", "Réaffectation incrémentale lancée avec succès");
+            
+            return ResponseEntity.ok(response);
+        } catch (ValidationException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "ERROR");
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (BusinessException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "ERROR");
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
         } catch (Exception e) {
             Map<String, Object> error = new HashMap<>();
             error.put("status", "ERROR");
@@ -55,26 +155,65 @@ public class AffectationController {
     }
     
     /**
-     * Récupère les résultats de l'affectation
+     * Flux SSE de progression du solveur (meilleur score, temps écoulé,
+     * mouvements par seconde, vœux prioritaires non satisfaits).
+     * Lu par fetch côté client, avec l'en-tête Authorization comme les autres appels admin.
+     */
+    @GetMapping(path = "/progression", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suivreProgression(HttpServletResponse response) {
+        // Événements transmis sans attendre par le reverse proxy Nginx
+        response.setHeader("X-Accel-Buffering", "no");
+        return progressionService.abonner();
+    }
+    
+    /**
+     * Écrit en base la meilleure solution connue sans arrêter le solveur
+     */
+    @PostMapping("/point-de-sauvegarde")
+    public ResponseEntity<Map<String, Object>> sauvegarderPointDeControle(
+            @RequestParam(required = false) UUID problemId) {
+        try {
+            AffectationSolution solution = affectationService.sauvegarderPointDeControle(problemId);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "SAVED");
+            response.put("score", solution.getScore().toString());
+            response.put("message", "Meilleure solution courante sauvegardée");
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "ERROR");
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    /**
+     * Récupère les résultats d'une résolution (la plus récente par défaut)
      */
     @GetMapping("/resultats")
-    public ResponseEntity<?> getResultats() {
+    public ResponseEntity<?> getResultats(@RequestParam(required = false) UUID problemId) {
         try {
-            if (affectationService.isRunning()) {
+            AffectationJob job = affectationService.getJob(problemId);
+            if (job.isActif()) {
                 Map<String, Object> response = new HashMap<>();
                 response.put("status", "RUNNING");
                 response.put("message", "Algorithme en cours d'exécution");
                 return ResponseEntity.ok(response);
             }
             
-            AffectationSolution solution = affectationService.getResultats();
+            AffectationSolution solution = affectationService.getResultats(job.getId());
             
             Map<String, Object> response = new HashMap<>();
+            response.put("problemId", job.getId().toString());
             response.put("status", "COMPLETED");
             response.put("score", solution.getScore().toString());
             response.put("hardScore", solution.getScore().hardScore());
             response.put("softScore", solution.getScore().softScore());
-            response.put("affectations", solution.getAffectations());
+            response.put("politique", job.getPolitique().decrire());
+            response.put("raisonArret", job.getRaisonArret());
+            response.put("affectations", solution.versAffectations());
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -85,6 +224,65 @@ public class AffectationController {
         }
     }
     
+    /**
+     * Indicateurs de qualité d'une résolution terminée (la plus récente par défaut) :
+     * vœux satisfaits par priorité, remplissage, élèves incomplets, détail des contraintes.
+     * Calculés une seule fois par résolution.
+     */
+    @GetMapping("/analyse")
+    public ResponseEntity<?> getAnalyse(@RequestParam(required = false) UUID problemId) {
+        try {
+            if (affectationService.getJob(problemId).isActif()) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("status", "RUNNING");
+                response.put("message", "Algorithme en cours d'exécution");
+                return ResponseEntity.ok(response);
+            }
+            return ResponseEntity.ok(analyseSolutionService.analyser(problemId));
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "ERROR");
+            error.put("message", e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
+    /**
+     * Liste les résolutions lancées depuis le démarrage (statut, durée, score, raison d'arrêt)
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<List<AffectationJobDTO>> listerJobs() {
+        return ResponseEntity.ok(affectationService.listerJobs());
+    }
+    
+    @GetMapping("/jobs/{problemId}")
+    public ResponseEntity<AffectationJobDTO> getJob(@PathVariable UUID problemId) {
+        return ResponseEntity.ok(affectationService.getJobDTO(problemId));
+    }
+    
+    /**
+     * Arrête une résolution en conservant sa meilleure solution courante
+     */
+    @PostMapping("/jobs/{problemId}/annuler")
+    public ResponseEntity<?> annulerJob(@PathVariable UUID problemId) {
+        try {
+            return ResponseEntity.ok(affectationService.annulerJob(problemId));
+        } catch (IllegalStateException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "ERROR");
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    /**
+     * Compare plusieurs résolutions, ex : /jobs/comparer?ids=uuid1,uuid2
+     */
+    @GetMapping("/jobs/comparer")
+    public ResponseEntity<Map<String, Object>> comparerJobs(@RequestParam List<UUID> ids) {
+        return ResponseEntity.ok(affectationService.comparerJobs(ids));
+    }
+    
     /**
      * Récupère toutes les affectations sauvegardées
      */
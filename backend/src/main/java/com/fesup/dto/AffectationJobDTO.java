@@ -0,0 +1,26 @@
+package com.fesup.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AffectationJobDTO {
+    private String problemId;
+    private String mode;
+    private String statut;
+    private LocalDateTime debut;
+    private LocalDateTime fin;
+    private Long dureeMs;
+    private String score;
+    private Integer hardScore;
+    private Integer softScore;
+    private Long voeuxPrioritairesNonSatisfaits;
+    private String raisonArret;
+    private String politique;
+    private boolean sauvegarde;
+}
@@ -0,0 +1,29 @@
+package com.fesup.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyseSolutionDTO {
+    private String problemId;
+    private String score;
+    private int nbEleves;
+    private int nbSlots;
+    private int nbSlotsVides;
+    // Priorité du vœu → pourcentage des élèves ayant ce vœu qui suivent l'activité
+    private Map<Integer, Double> pourcentageVoeuxSatisfaits = new TreeMap<>();
+    private List<RemplissageDTO> remplissageSessions = new ArrayList<>();
+    private List<RemplissageDTO> remplissageSalles = new ArrayList<>();
+    private List<RemplissageDTO> remplissageCreneaux = new ArrayList<>();
+    private List<EleveIncompletDTO> elevesIncomplets = new ArrayList<>();
+    private List<ContrainteDTO> contraintes = new ArrayList<>();
+    private long dureeCalculMs;
+}
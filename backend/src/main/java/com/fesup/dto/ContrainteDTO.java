@@ -0,0 +1,14 @@
+package com.fesup.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContrainteDTO {
+    private String nom;
+    private String score;
+    private int nbCorrespondances;
+}
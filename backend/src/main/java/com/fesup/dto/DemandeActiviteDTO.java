@@ -0,0 +1,20 @@
+package com.fesup.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DemandeActiviteDTO {
+    private Long activiteId;
+    private String activiteTitre;
+    private String demiJournee;
+    private int demande;
+    private int demandePrioritaire;
+    private int sessions;
+    private int places;
+    private int demandeNonCouverte;
+    private String raison;
+}
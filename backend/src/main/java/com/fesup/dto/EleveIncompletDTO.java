@@ -0,0 +1,16 @@
+package com.fesup.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EleveIncompletDTO {
+    private Long eleveId;
+    private String nom;
+    private String prenom;
+    private String demiJournee;
+    private int slotsVides;
+}
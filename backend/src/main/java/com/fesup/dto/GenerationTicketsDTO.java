@@ -0,0 +1,28 @@
+package com.fesup.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenerationTicketsDTO {
+    private Long id;
+    private String statut;
+    private Long origineId;
+    private LocalDateTime debut;
+    private LocalDateTime fin;
+    private int totalEleves;
+    private int sansAffectation;
+    private int succes;
+    private int erreurs;
+    private int inchanges;
+    private double pourcentage;
+    private double ticketsParSeconde;
+    private String message;
+    private Map<Long, String> erreursDetails;
+}
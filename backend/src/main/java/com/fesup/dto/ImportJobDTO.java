@@ -0,0 +1,26 @@
+package com.fesup.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobDTO {
+    private String jobId;
+    private String type;
+    private String nomFichier;
+    private String statut;
+    private LocalDateTime debut;
+    private LocalDateTime fin;
+    private int lignesEstimees;
+    private int lignesTraitees;
+    private double pourcentage;
+    private double lignesParSeconde;
+    private int tentatives;
+    private String erreur;
+    private ImportReportDTO rapport;
+}
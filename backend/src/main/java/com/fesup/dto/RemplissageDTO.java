@@ -0,0 +1,16 @@
+package com.fesup.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RemplissageDTO {
+    private Long id;
+    private String libelle;
+    private int places;
+    private int occupees;
+    private double taux;
+}
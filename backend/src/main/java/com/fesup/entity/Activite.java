@@ -7,6 +7,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
+import java.util.Objects;
+
 @Entity
 @Table(name = "activites")
 @Data
@@ -15,7 +17,8 @@ import lombok.AllArgsConstructor;
 public class Activite {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "activites_seq")
+    @SequenceGenerator(name = "activites_seq", sequenceName = "activites_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -33,4 +36,18 @@ public class Activite {
     private DemiJournee demiJournee;
     
     private Integer capaciteMax;
+    
+    // Override equals/hashCode sur l'ID : clé de regroupement bon marché pour Timefold
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Activite)) return false;
+        Activite activite = (Activite) o;
+        return id != null && id.equals(activite.id);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
 }
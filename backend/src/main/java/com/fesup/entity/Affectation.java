@@ -1,7 +1,6 @@
 package com.fesup.entity;
 
-import ai.timefold.solver.core.api.domain.entity.PlanningEntity;
-import ai.timefold.solver.core.api.domain.variable.PlanningVariable;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -13,11 +12,11 @@ import java.util.Objects;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@PlanningEntity
 public class Affectation {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "affectations_seq")
+    @SequenceGenerator(name = "affectations_seq", sequenceName = "affectations_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.EAGER)
@@ -26,26 +25,35 @@ public class Affectation {
     
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "session_id")
-    @PlanningVariable
     private Session assignedSession;
     
-    // Constructeur pour Timefold (sans l'ID)
     public Affectation(Eleve eleve, Session assignedSession) {
         this.eleve = eleve;
         this.assignedSession = assignedSession;
     }
     
-    // Override equals/hashCode pour Timefold (utiliser l'élève comme identifiant unique)
+    @JsonIgnore
+    public Long getActiviteId() {
+        return assignedSession != null ? assignedSession.getActivite().getId() : null;
+    }
+    
+    // Override equals sur l'ID : un élève a une affectation par slot, elles ne sont pas égales entre elles.
+    // Une affectation pas encore persistée n'est égale qu'à elle-même.
+    // hashCode sur (élève, créneau de la session), la clé du slot comme l'identifiant de planification :
+    // connu avant save(), il ne change pas quand l'ID est attribué et répartit les affectations
+    // dans la HashMap. Déplacer l'affectation sur une session d'un autre créneau change son hashCode.
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Affectation)) return false;
         Affectation that = (Affectation) o;
-        return Objects.equals(eleve, that.eleve);
+        return id != null && id.equals(that.id);
     }
     
     @Override
     public int hashCode() {
-        return Objects.hash(eleve);
+        Long creneauId = assignedSession != null && assignedSession.getCreneau() != null
+            ? assignedSession.getCreneau().getId() : null;
+        return Objects.hash(eleve != null ? eleve.getId() : null, creneauId);
     }
 }
@@ -16,7 +16,8 @@ import java.time.LocalTime;
 public class Creneau {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "creneaux_seq")
+    @SequenceGenerator(name = "creneaux_seq", sequenceName = "creneaux_seq", allocationSize = 50)
     private Long id;
     
     private String libelle; // Ex: "Matin Slot 1"
@@ -19,7 +19,8 @@ import java.util.Objects;
 public class Eleve {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "eleves_seq")
+    @SequenceGenerator(name = "eleves_seq", sequenceName = "eleves_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, unique = true, length = 50)
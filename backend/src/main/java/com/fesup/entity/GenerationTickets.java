@@ -0,0 +1,59 @@
+package com.fesup.entity;
+
+import com.fesup.enums.StatutGenerationTickets;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Génération de tickets en lot : avancement et erreurs par élève, enregistrés après
+ * chaque lot pour rester consultables après la fin du traitement ou un redémarrage
+ */
+@Entity
+@Table(name = "generations_tickets")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenerationTickets {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "generations_tickets_seq")
+    @SequenceGenerator(name = "generations_tickets_seq", sequenceName = "generations_tickets_seq", allocationSize = 50)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatutGenerationTickets statut;
+    
+    private Long origineId;  // Génération dont les élèves en erreur sont relancés (null : tous les élèves)
+    
+    @Column(nullable = false)
+    private LocalDateTime debut;
+    
+    private LocalDateTime fin;
+    
+    private int totalEleves;
+    
+    private int sansAffectation;
+    
+    private int succes;
+    
+    private int erreurs;
+    
+    private int inchanges;  // Tickets à jour, non régénérés
+    
+    private double ticketsParSeconde;
+    
+    @Column(length = 1000)
+    private String message;  // Cause d'un échec
+    
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "generations_tickets_erreurs", joinColumns = @JoinColumn(name = "generation_id"))
+    @MapKeyColumn(name = "eleve_id")
+    @Column(name = "message", length = 1000)
+    private Map<Long, String> erreursDetails = new HashMap<>();
+}
@@ -17,7 +17,8 @@ import java.util.List;
 public class Lycee {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lycees_seq")
+    @SequenceGenerator(name = "lycees_seq", sequenceName = "lycees_seq", allocationSize = 50)
     private Long id;
     
     @Column(unique = true, nullable = false)
@@ -13,7 +13,8 @@ import lombok.NoArgsConstructor;
 public class Salle {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "salles_seq")
+    @SequenceGenerator(name = "salles_seq", sequenceName = "salles_seq", allocationSize = 50)
     private Long id;
     
     @Column(unique = true, nullable = false)
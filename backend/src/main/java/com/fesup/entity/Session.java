@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Objects;
+
 @Entity
 @Table(name = "sessions")
 @Data
@@ -13,7 +15,8 @@ import lombok.NoArgsConstructor;
 public class Session {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sessions_seq")
+    @SequenceGenerator(name = "sessions_seq", sequenceName = "sessions_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.EAGER)
@@ -42,4 +45,18 @@ public class Session {
             this.capaciteDisponible = Math.min(salle.getCapacite(), activite.getCapaciteMax());
         }
     }
+    
+    // Override equals/hashCode sur l'ID : clé de regroupement bon marché pour Timefold
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Session)) return false;
+        Session session = (Session) o;
+        return id != null && id.equals(session.id);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
 }
@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
 public class Ticket {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tickets_seq")
+    @SequenceGenerator(name = "tickets_seq", sequenceName = "tickets_seq", allocationSize = 50)
     private Long id;
     
     @OneToOne
@@ -34,4 +35,7 @@ public class Ticket {
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private StatutTicket statut;
+    
+    @Column(length = 64)
+    private String empreinte; // SHA-256 du contenu affiché (voir PdfGenerationService.calculerEmpreinte)
 }
@@ -1,5 +1,6 @@
 package com.fesup.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fesup.enums.TypeVoeu;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -14,7 +15,8 @@ import lombok.AllArgsConstructor;
 public class Voeu {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "voeux_seq")
+    @SequenceGenerator(name = "voeux_seq", sequenceName = "voeux_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -31,4 +33,9 @@ public class Voeu {
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private TypeVoeu typeVoeu;
+    
+    @JsonIgnore
+    public Long getActiviteId() {
+        return activite.getId();
+    }
 }
@@ -0,0 +1,6 @@
+package com.fesup.enums;
+
+public enum MoteurAffectation {
+    TIMEFOLD,      // Recherche locale Timefold (arrêt selon la politique d'arrêt)
+    FLOT           // Flot de coût minimal par créneau, sans Timefold (quelques secondes)
+}
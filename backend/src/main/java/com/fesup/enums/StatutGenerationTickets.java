@@ -0,0 +1,8 @@
+package com.fesup.enums;
+
+public enum StatutGenerationTickets {
+    EN_COURS,
+    TERMINE,
+    ANNULE,
+    ECHEC
+}
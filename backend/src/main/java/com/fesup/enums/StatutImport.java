@@ -0,0 +1,8 @@
+package com.fesup.enums;
+
+public enum StatutImport {
+    EN_ATTENTE,
+    EN_COURS,
+    TERMINE,
+    ECHEC          // Lots déjà écrits conservés, reprise possible au dernier point de contrôle
+}
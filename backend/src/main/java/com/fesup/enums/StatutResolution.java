@@ -0,0 +1,9 @@
+package com.fesup.enums;
+
+public enum StatutResolution {
+    EN_ATTENTE,
+    EN_COURS,
+    TERMINE,
+    ANNULE,
+    ECHEC
+}
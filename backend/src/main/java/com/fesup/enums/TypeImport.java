@@ -0,0 +1,7 @@
+package com.fesup.enums;
+
+public enum TypeImport {
+    ELEVES,        // nom,prenom,idNational,lycee,ville,codePostal,demiJournee
+    ACTIVITES,     // titre,description,type,demiJournee,capaciteMax
+    SALLES         // nom,capacite,batiment,equipements
+}
@@ -0,0 +1,113 @@
+package com.fesup.repository;
+
+import com.fesup.entity.Affectation;
+import com.fesup.enums.DemiJournee;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Écriture en masse des affectations produites par le solveur, en JDBC.
+ *
+ * saveAll() envoie encore un INSERT par ligne, même regroupés en batch JDBC, et deleteAll()
+ * charge chaque entité avant de la supprimer. Ici les lignes sont envoyées par INSERT multi-lignes dans une table temporaire,
+ * puis substituées aux anciennes par un DELETE et un INSERT ... SELECT ensemblistes,
+ * dans une seule transaction : les lectures concurrentes voient l'ancien plan
+ * jusqu'au commit.
+ *
+ * Les ID sont pris par blocs sur affectations_seq (voir ReservationIds).
+ */
+@Repository
+@RequiredArgsConstructor
+public class AffectationJdbcRepository {
+    
+    // 3 paramètres par ligne insérée, bien en dessous de la limite de 32 767 paramètres de PostgreSQL
+    private static final int LIGNES_PAR_INSERT = 1000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ReservationIds reservationIds;
+    
+    /**
+     * Remplace toutes les affectations
+     *
+     * @return {lignes supprimées, lignes insérées}
+     */
+    @Transactional
+    public int[] remplacerTout(List<Affectation> affectations) {
+        charger(affectations);
+        int supprimees = jdbcTemplate.update("DELETE FROM affectations");
+        int inserees = jdbcTemplate.update("INSERT INTO affectations (id, eleve_id, session_id) " +
+                                           "SELECT id, eleve_id, session_id FROM affectations_chargement");
+        return new int[] {supprimees, inserees};
+    }
+    
+    /**
+     * Remplace les affectations des élèves d'une demi-journée (résolution partitionnée)
+     *
+     * @return {lignes supprimées, lignes insérées}
+     */
+    @Transactional
+    public int[] remplacerDemiJournee(DemiJournee demiJournee, List<Affectation> affectations) {
+        charger(affectations);
+        int supprimees = jdbcTemplate.update("DELETE FROM affectations WHERE eleve_id IN " +
+                                             "(SELECT id FROM eleves WHERE demi_journee = ?)", demiJournee.name());
+        int inserees = jdbcTemplate.update("INSERT INTO affectations (id, eleve_id, session_id) " +
+                                           "SELECT id, eleve_id, session_id FROM affectations_chargement");
+        return new int[] {supprimees, inserees};
+    }
+    
+    /**
+     * Écrit les lignes modifiées par une réaffectation : UPDATE en batch pour les lignes
+     * existantes, INSERT multi-lignes pour les nouvelles, DELETE ensembliste pour les autres
+     */
+    @Transactional
+    public void appliquerModifications(List<Affectation> modifiees, List<Long> supprimees) {
+        for (int debut = 0; debut < supprimees.size(); debut += LIGNES_PAR_INSERT) {
+            List<Long> lot = supprimees.subList(debut, Math.min(debut + LIGNES_PAR_INSERT, supprimees.size()));
+            jdbcTemplate.update("DELETE FROM affectations WHERE id IN (" + "?, ".repeat(lot.size() - 1) + "?)", lot.toArray());
+        }
+        
+        List<Object[]> misesAJour = new ArrayList<>();
+        List<Affectation> nouvelles = new ArrayList<>();
+        for (Affectation affectation : modifiees) {
+            if (affectation.getId() != null) {
+                misesAJour.add(new Object[] {idSession(affectation), affectation.getId()});
+            } else {
+                nouvelles.add(affectation);
+            }
+        }
+        jdbcTemplate.batchUpdate("UPDATE affectations SET session_id = ? WHERE id = ?", misesAJour);
+        inserer("affectations", nouvelles);
+    }
+    
+    private void charger(List<Affectation> affectations) {
+        jdbcTemplate.execute("CREATE TEMPORARY TABLE IF NOT EXISTS affectations_chargement " +
+                             "(id BIGINT NOT NULL, eleve_id BIGINT NOT NULL, session_id BIGINT) ON COMMIT DELETE ROWS");
+        inserer("affectations_chargement", affectations);
+    }
+    
+    private void inserer(String table, List<Affectation> affectations) {
+        long[] ids = reservationIds.reserver("affectations_seq", affectations.size());
+        for (int debut = 0; debut < affectations.size(); debut += LIGNES_PAR_INSERT) {
+            List<Affectation> lot = affectations.subList(debut, Math.min(debut + LIGNES_PAR_INSERT, affectations.size()));
+            StringBuilder sql = new StringBuilder(48 + lot.size() * 11)
+                .append("INSERT INTO ").append(table).append(" (id, eleve_id, session_id) VALUES ");
+            Object[] parametres = new Object[lot.size() * 3];
+            for (int i = 0; i < lot.size(); i++) {
+                sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+                parametres[3 * i] = ids[debut + i];
+                parametres[3 * i + 1] = lot.get(i).getEleve().getId();
+                parametres[3 * i + 2] = idSession(lot.get(i));
+            }
+            jdbcTemplate.update(sql.toString(), parametres);
+        }
+    }
+    
+    private static Long idSession(Affectation affectation) {
+        return affectation.getAssignedSession() != null ? affectation.getAssignedSession().getId() : null;
+    }
+}
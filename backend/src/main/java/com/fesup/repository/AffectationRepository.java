@@ -4,8 +4,10 @@ import com.fesup.entity.Affectation;
 import com.fesup.entity.Eleve;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,9 +15,15 @@ public interface AffectationRepository extends JpaRepository<Affectation, Long>
     
     List<Affectation> findByEleveId(Long eleveId);
     
+    /**
+     * Affectations avec élève, lycée, ticket et session chargés en une requête.
+     * Le ticket est le côté inverse d'un @OneToOne, toujours chargé : sans le JOIN FETCH,
+     * Hibernate ferait un SELECT sur tickets par élève.
+     */
     @Query("SELECT DISTINCT a FROM Affectation a " +
            "LEFT JOIN FETCH a.eleve e " +
            "LEFT JOIN FETCH e.lycee " +
+           "LEFT JOIN FETCH e.ticket " +
            "LEFT JOIN FETCH a.assignedSession s " +
            "LEFT JOIN FETCH s.activite " +
            "LEFT JOIN FETCH s.salle " +
@@ -24,6 +32,21 @@ public interface AffectationRepository extends JpaRepository<Affectation, Long>
            "ORDER BY e.nom ASC, e.prenom ASC, c.heureDebut ASC")
     List<Affectation> findAllWithSession();
     
+    /**
+     * Affectations d'un ensemble d'élèves, chargées comme findAllWithSession
+     */
+    @Query("SELECT a FROM Affectation a " +
+           "LEFT JOIN FETCH a.eleve e " +
+           "LEFT JOIN FETCH e.lycee " +
+           "LEFT JOIN FETCH e.ticket " +
+           "LEFT JOIN FETCH a.assignedSession s " +
+           "LEFT JOIN FETCH s.activite " +
+           "LEFT JOIN FETCH s.salle " +
+           "LEFT JOIN FETCH s.creneau c " +
+           "WHERE a.assignedSession IS NOT NULL AND e.id IN :eleveIds " +
+           "ORDER BY e.nom ASC, e.prenom ASC, c.heureDebut ASC")
+    List<Affectation> findAllWithSessionByEleveIdIn(@Param("eleveIds") Collection<Long> eleveIds);
+    
     List<Affectation> findByEleveAndAssignedSessionIsNotNull(Eleve eleve);
     
     void deleteByEleveId(Long eleveId);
@@ -0,0 +1,53 @@
+package com.fesup.repository;
+
+import com.fesup.entity.Eleve;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Insertion en masse des élèves importés, en JDBC : un INSERT multi-lignes par lot,
+ * avec des ID pris par blocs sur eleves_seq (voir ReservationIds).
+ */
+@Repository
+@RequiredArgsConstructor
+public class EleveJdbcRepository {
+    
+    private static final int COLONNES = 7;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ReservationIds reservationIds;
+    
+    /**
+     * Insère un lot d'élèves dans sa propre transaction ; les ID sont reportés sur les entités
+     *
+     * @return nombre de lignes insérées
+     */
+    @Transactional
+    public int inserer(List<Eleve> eleves) {
+        if (eleves.isEmpty()) {
+            return 0;
+        }
+        long[] ids = reservationIds.reserver("eleves_seq", eleves.size());
+        StringBuilder sql = new StringBuilder(128 + eleves.size() * 24)
+            .append("INSERT INTO eleves (id, id_national, nom, prenom, lycee_id, demi_journee, voeux_soumis) VALUES ");
+        Object[] parametres = new Object[eleves.size() * COLONNES];
+        for (int i = 0; i < eleves.size(); i++) {
+            Eleve eleve = eleves.get(i);
+            eleve.setId(ids[i]);
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?, ?)");
+            int p = i * COLONNES;
+            parametres[p] = ids[i];
+            parametres[p + 1] = eleve.getIdNational();
+            parametres[p + 2] = eleve.getNom();
+            parametres[p + 3] = eleve.getPrenom();
+            parametres[p + 4] = eleve.getLycee().getId();
+            parametres[p + 5] = eleve.getDemiJournee().name();
+            parametres[p + 6] = eleve.isVoeuxSoumis();
+        }
+        return jdbcTemplate.update(sql.toString(), parametres);
+    }
+}
@@ -1,12 +1,14 @@
 package com.fesup.repository;
 
 import com.fesup.entity.Eleve;
+import com.fesup.enums.DemiJournee;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface EleveRepository extends JpaRepository<Eleve, Long> {
@@ -27,9 +29,20 @@ public interface EleveRepository extends JpaRepository<Eleve, Long> {
      */
     long countByVoeuxSoumisTrue();
     
+    /**
+     * Compte les élèves d'une demi-journée (dimensionnement des créneaux)
+     */
+    long countByDemiJournee(DemiJournee demiJournee);
+    
     /**
      * Charge tous les élèves avec leur lycée (EAGER LOADING pour Timefold)
      */
     @Query("SELECT DISTINCT e FROM Eleve e LEFT JOIN FETCH e.lycee")
     List<Eleve> findAllWithLycee();
+    
+    /**
+     * ID nationaux de tous les élèves (contrôle d'unicité de l'import en une requête)
+     */
+    @Query("SELECT e.idNational FROM Eleve e")
+    Set<String> findAllIdNationaux();
 }
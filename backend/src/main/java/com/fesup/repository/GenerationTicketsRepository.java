@@ -0,0 +1,18 @@
+package com.fesup.repository;
+
+import com.fesup.entity.GenerationTickets;
+import com.fesup.enums.StatutGenerationTickets;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface GenerationTicketsRepository extends JpaRepository<GenerationTickets, Long> {
+    
+    boolean existsByStatut(StatutGenerationTickets statut);
+    
+    List<GenerationTickets> findByStatut(StatutGenerationTickets statut);
+    
+    List<GenerationTickets> findAllByOrderByDebutDesc();
+}
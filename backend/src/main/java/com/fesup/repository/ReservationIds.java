@@ -0,0 +1,40 @@
+package com.fesup.repository;
+
+import com.fesup.config.MigrationSequences;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Réservation d'ID pour les insertions JDBC en masse, par blocs de 50 sur la séquence de
+ * la table, comme le fait l'optimiseur pooled d'Hibernate : un nextval réserve les 50
+ * valeurs qui le précèdent. Les deux peuvent donc écrire dans la même table sans collision.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReservationIds {
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Réserve n ID sur la séquence, un nextval par bloc de 50
+     */
+    public long[] reserver(String sequence, int n) {
+        long[] ids = new long[n];
+        int i = 0;
+        while (i < n) {
+            int nbBlocs = (n - i + MigrationSequences.TAILLE_BLOC - 1) / MigrationSequences.TAILLE_BLOC;
+            List<Long> hauts = jdbcTemplate.queryForList("SELECT nextval('" + sequence + "') FROM generate_series(1, ?)",
+                                                         Long.class, nbBlocs);
+            // Le premier bloc d'une séquence neuve commence à 1 et peut être incomplet
+            for (long haut : hauts) {
+                for (long id = Math.max(1, haut - MigrationSequences.TAILLE_BLOC + 1); id <= haut && i < n; id++) {
+                    ids[i++] = id;
+                }
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,63 @@
+package com.fesup.repository;
+
+import com.fesup.enums.StatutTicket;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Enregistrement en masse des tickets générés par lot, en JDBC : un INSERT multi-lignes
+ * ON CONFLICT (eleve_id) par lot, qui crée le ticket ou met à jour celui de l'élève.
+ * Les ID sont pris par blocs sur tickets_seq (voir ReservationIds) ; ceux des lignes
+ * mises à jour sont perdus, comme un nextval annulé.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TicketJdbcRepository {
+    
+    private static final int COLONNES = 7;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ReservationIds reservationIds;
+    
+    public record TicketGenere(Long eleveId, String cheminFichier, long tailleFichier, LocalDateTime dateGeneration,
+                               String empreinte) {
+    }
+    
+    /**
+     * Crée ou met à jour les tickets d'un lot dans sa propre transaction
+     *
+     * @return nombre de lignes écrites
+     */
+    @Transactional
+    public int enregistrer(List<TicketGenere> tickets) {
+        if (tickets.isEmpty()) {
+            return 0;
+        }
+        long[] ids = reservationIds.reserver("tickets_seq", tickets.size());
+        StringBuilder sql = new StringBuilder(360 + tickets.size() * 23)
+            .append("INSERT INTO tickets (id, eleve_id, chemin_fichier, taille_fichier, date_generation, statut, empreinte) VALUES ");
+        Object[] parametres = new Object[tickets.size() * COLONNES];
+        for (int i = 0; i < tickets.size(); i++) {
+            TicketGenere ticket = tickets.get(i);
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?, ?)");
+            int p = i * COLONNES;
+            parametres[p] = ids[i];
+            parametres[p + 1] = ticket.eleveId();
+            parametres[p + 2] = ticket.cheminFichier();
+            parametres[p + 3] = ticket.tailleFichier();
+            parametres[p + 4] = Timestamp.valueOf(ticket.dateGeneration());
+            parametres[p + 5] = StatutTicket.GENERE.name();
+            parametres[p + 6] = ticket.empreinte();
+        }
+        sql.append(" ON CONFLICT (eleve_id) DO UPDATE SET chemin_fichier = EXCLUDED.chemin_fichier, ")
+           .append("taille_fichier = EXCLUDED.taille_fichier, date_generation = EXCLUDED.date_generation, ")
+           .append("statut = EXCLUDED.statut, empreinte = EXCLUDED.empreinte");
+        return jdbcTemplate.update(sql.toString(), parametres);
+    }
+}
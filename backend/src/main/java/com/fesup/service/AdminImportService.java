@@ -8,28 +8,54 @@ import com.fesup.entity.Lycee;
 import com.fesup.entity.Salle;
 import com.fesup.enums.DemiJournee;
 import com.fesup.enums.TypeActivite;
+import com.fesup.enums.TypeImport;
 import com.fesup.exception.BusinessException;
 import com.fesup.repository.ActiviteRepository;
+import com.fesup.repository.EleveJdbcRepository;
 import com.fesup.repository.EleveRepository;
 import com.fesup.repository.LyceeRepository;
 import com.fesup.repository.SalleRepository;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
 
+/**
+ * Import CSV en flux : les lignes sont lues une à une, validées en mémoire puis écrites
+ * par lots, chaque lot dans sa propre transaction. Un échec en cours de fichier conserve
+ * les lots déjà écrits, et l'import peut reprendre au dernier point de contrôle.
+ */
 @Service
+@Slf4j
 public class AdminImportService {
     
+    private static final Pattern FORMAT_ID_NATIONAL = Pattern.compile("^[A-Z0-9]{5,50}$");
+    private static final Pattern FORMAT_CODE_POSTAL = Pattern.compile("\\d{5}");
+    
     @Autowired
     private EleveRepository eleveRepository;
     
+    @Autowired
+    private EleveJdbcRepository eleveJdbcRepository;
+    
     @Autowired
     private LyceeRepository lyceeRepository;
     
@@ -39,242 +65,341 @@ public class AdminImportService {
     @Autowired
     private SalleRepository salleRepository;
     
-    @Transactional
+    // Lignes écrites par lot (INSERT multi-lignes de 7 paramètres par élève)
+    @Value("${application.import.batch-size:500}")
+    private int tailleLot;
+    
     public ImportReportDTO importEleves(MultipartFile file) {
-        ImportReportDTO report = new ImportReportDTO();
+        return importer(TypeImport.ELEVES, file);
+    }
+    
+    public ImportReportDTO importActivites(MultipartFile file) {
+        return importer(TypeImport.ACTIVITES, file);
+    }
+    
+    public ImportReportDTO importSalles(MultipartFile file) {
+        return importer(TypeImport.SALLES, file);
+    }
+    
+    private ImportReportDTO importer(TypeImport type, MultipartFile file) {
+        try (InputStream inputStream = file.getInputStream()) {
+            return importer(type, inputStream, new ImportReportDTO(), report -> { });
+        } catch (IOException e) {
+            throw new BusinessException("Erreur lors de la lecture du fichier CSV: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * @param report rapport de départ : vide, ou celui du dernier point de contrôle d'une exécution
+     *               interrompue, dont les lignes déjà traitées sont alors sautées
+     * @param pointDeControle appelé après chaque lot écrit : toutes les lignes comptées dans le rapport sont traitées
+     */
+    public ImportReportDTO importer(TypeImport type, InputStream inputStream, ImportReportDTO report,
+                                   Consumer<ImportReportDTO> pointDeControle) {
+        long debut = System.currentTimeMillis();
+        int dejaTraitees = report.getTotalLines();
         
-        try (Reader reader = new InputStreamReader(file.getInputStream());
+        try (Reader reader = new InputStreamReader(inputStream);
              CSVReader csvReader = new CSVReaderBuilder(reader).withSkipLines(1).build()) {
-            
-            List<String[]> rows = csvReader.readAll();
-            report.setTotalLines(rows.size());
-            
-            for (int i = 0; i < rows.size(); i++) {
-                String[] row = rows.get(i);
-                try {
-                    // Format CSV: nom,prenom,idNational,lycee,ville,codePostal,demiJournee
-                    if (row.length < 7) {
-                        report.getErrors().add(new ImportErrorDTO(i + 2, 
-                            "Nombre de colonnes insuffisant (attendu: nom,prenom,idNational,lycee,ville,codePostal,demiJournee)", String.join(",", row)));
-                        report.setErrorCount(report.getErrorCount() + 1);
-                        continue;
-                    }
-                    
-                    String nom = row[0].trim().toUpperCase();
-                    String prenom = row[1].trim();
-                    String idNational = row[2].trim().toUpperCase();
-                    String lyceeNom = row[3].trim();
-                    String ville = row[4].trim();
-                    String codePostal = row[5].trim();
-                    String demiJourneeStr = row[6].trim().toUpperCase();
-                    
-                    // Valider idNational
-                    if (idNational.isEmpty() || !idNational.matches("^[A-Z0-9]{5,50}$")) {
-                        report.getErrors().add(new ImportErrorDTO(i + 2, 
-                            "ID National invalide (alphanumérique 5-50 caractères)", String.join(",", row)));
-                        report.setErrorCount(report.getErrorCount() + 1);
-                        continue;
-                    }
-                    
-                    // Vérifier unicité idNational
-                    if (eleveRepository.findByIdNational(idNational).isPresent()) {
-                        report.getErrors().add(new ImportErrorDTO(i + 2, 
-                            "ID National déjà existant: " + idNational, String.join(",", row)));
-                        report.setErrorCount(report.getErrorCount() + 1);
-                        continue;
-                    }
-                    
-                    // Valider code postal
-                    if (!codePostal.matches("\\d{5}")) {
-                        report.getErrors().add(new ImportErrorDTO(i + 2, 
-                            "Code postal invalide (doit être 5 chiffres)", String.join(",", row)));
-                        report.setErrorCount(report.getErrorCount() + 1);
-                        continue;
-                    }
-                    
-                    // Valider demiJournee
-                    DemiJournee demiJournee;
-                    try {
-                        demiJournee = DemiJournee.valueOf(demiJourneeStr);
-                    } catch (IllegalArgumentException e) {
-                        report.getErrors().add(new ImportErrorDTO(i + 2, 
-                            "DemiJournee invalide (MATIN ou APRES_MIDI)", String.join(",", row)));
-                        report.setErrorCount(report.getErrorCount() + 1);
-                        continue;
-                    }
-                    
-                    // Auto-créer ou mettre à jour le lycée
-                    Lycee lycee = lyceeRepository.findByNom(lyceeNom)
-                        .orElseGet(() -> {
-                            Lycee newLycee = new Lycee();
-                            newLycee.setNom(lyceeNom);
-                            newLycee.setVille(ville);
-                            newLycee.setCodePostal(codePostal);
-                            return lyceeRepository.save(newLycee);
-                        });
-                    
-                    // Mettre à jour ville et code postal si le lycée existe déjà mais sans ces infos
-                    if (lycee.getVille() == null || lycee.getVille().isEmpty()) {
-                        lycee.setVille(ville);
-                        lycee.setCodePostal(codePostal);
-                        lyceeRepository.save(lycee);
-                    }
-                    
-                    // Créer l'élève
-                    Eleve eleve = new Eleve();
-                    eleve.setNom(nom);
-                    eleve.setPrenom(prenom);
-                    eleve.setIdNational(idNational);
-                    eleve.setLycee(lycee);
-                    eleve.setDemiJournee(demiJournee);
-                    eleve.setVoeuxSoumis(false);
-                    
-                    eleveRepository.save(eleve);
-                    report.setSuccessCount(report.getSuccessCount() + 1);
-                    
-                } catch (Exception e) {
-                    report.getErrors().add(new ImportErrorDTO(i + 2, 
-                        e.getMessage(), String.join(",", row)));
-                    report.setErrorCount(report.getErrorCount() + 1);
-                }
+            // Enregistrements et non lignes physiques : un champ entre guillemets peut contenir un saut de ligne
+            int sautes = 0;
+            while (sautes < dejaTraitees && csvReader.readNext() != null) {
+                sautes++;
+            }
+            switch (type) {
+                case ELEVES -> importerEleves(csvReader, report, pointDeControle);
+                case ACTIVITES -> importerActivites(csvReader, report, pointDeControle);
+                case SALLES -> importerSalles(csvReader, report, pointDeControle);
             }
-            
         } catch (Exception e) {
             throw new BusinessException("Erreur lors de la lecture du fichier CSV: " + e.getMessage());
         }
         
+        log.info("📥 Import {} : {} lignes ({} reprises), {} écrites, {} erreurs en {} ms",
+                 type, report.getTotalLines(), dejaTraitees, report.getSuccessCount(), report.getErrorCount(),
+                 System.currentTimeMillis() - debut);
         return report;
     }
     
-    @Transactional
-    public ImportReportDTO importActivites(MultipartFile file) {
-        ImportReportDTO report = new ImportReportDTO();
+    /**
+     * ID nationaux et lycées existants chargés en une requête chacun, élèves insérés par lots JDBC
+     */
+    private void importerEleves(CSVReader csvReader, ImportReportDTO report, Consumer<ImportReportDTO> pointDeControle)
+            throws Exception {
+        Set<String> idNationaux = new HashSet<>(eleveRepository.findAllIdNationaux());
+        Map<String, Lycee> lycees = new HashMap<>();
+        for (Lycee lycee : lyceeRepository.findAll()) {
+            lycees.put(lycee.getNom(), lycee);
+        }
+        Lot<Eleve> lot = new Lot<>();
+        ToIntFunction<List<Eleve>> ecriture = eleveJdbcRepository::inserer;
+        Consumer<Eleve> siRejete = eleve -> idNationaux.remove(eleve.getIdNational());
         
-        try (Reader reader = new InputStreamReader(file.getInputStream());
-             CSVReader csvReader = new CSVReaderBuilder(reader).withSkipLines(1).build()) {
-            
-            List<String[]> rows = csvReader.readAll();
-            report.setTotalLines(rows.size());
-            
-            for (int i = 0; i < rows.size(); i++) {
-                String[] row = rows.get(i);
+        int numeroLigne = 1 + report.getTotalLines();
+        String[] row;
+        while ((row = csvReader.readNext()) != null) {
+            numeroLigne++;
+            report.setTotalLines(report.getTotalLines() + 1);
+            try {
+                // Format CSV: nom,prenom,idNational,lycee,ville,codePostal,demiJournee
+                if (row.length < 7) {
+                    ajouterErreur(report, numeroLigne,
+                        "Nombre de colonnes insuffisant (attendu: nom,prenom,idNational,lycee,ville,codePostal,demiJournee)", row);
+                    continue;
+                }
+                
+                String nom = row[0].trim().toUpperCase();
+                String prenom = row[1].trim();
+                String idNational = row[2].trim().toUpperCase();
+                String lyceeNom = row[3].trim();
+                String ville = row[4].trim();
+                String codePostal = row[5].trim();
+                String demiJourneeStr = row[6].trim().toUpperCase();
+                
+                // Valider idNational
+                if (!FORMAT_ID_NATIONAL.matcher(idNational).matches()) {
+                    ajouterErreur(report, numeroLigne, "ID National invalide (alphanumérique 5-50 caractères)", row);
+                    continue;
+                }
+                
+                // Vérifier unicité idNational (base et lignes précédentes du fichier)
+                if (idNationaux.contains(idNational)) {
+                    ajouterErreur(report, numeroLigne, "ID National déjà existant: " + idNational, row);
+                    continue;
+                }
+                
+                // Valider code postal
+                if (!FORMAT_CODE_POSTAL.matcher(codePostal).matches()) {
+                    ajouterErreur(report, numeroLigne, "Code postal invalide (doit être 5 chiffres)", row);
+                    continue;
+                }
+                
+                // Valider demiJournee
+                DemiJournee demiJournee;
                 try {
-                    // Format CSV: titre,description,type,demiJournee,capaciteMax
-                    if (row.length < 5) {
-                        report.getErrors().add(new ImportErrorDTO(i + 2, 
-                            "Nombre de colonnes insuffisant", String.join(",", row)));
-                        report.setErrorCount(report.getErrorCount() + 1);
-                        continue;
-                    }
-                    
-                    String titre = row[0].trim();
-                    String description = row[1].trim();
-                    String typeStr = row[2].trim().toUpperCase();
-                    String demiJourneeStr = row[3].trim().toUpperCase();
-                    Integer capaciteMax = Integer.parseInt(row[4].trim());
-                    
-                    // Valider type
-                    TypeActivite type;
-                    try {
-                        type = TypeActivite.valueOf(typeStr);
-                    } catch (IllegalArgumentException e) {
-                        report.getErrors().add(new ImportErrorDTO(i + 2, 
-                            "Type invalide (CONFERENCE, TABLE_RONDE, FLASH_METIER)", String.join(",", row)));
-                        report.setErrorCount(report.getErrorCount() + 1);
-                        continue;
-                    }
-                    
-                    // Valider demiJournee
-                    DemiJournee demiJournee;
-                    try {
-                        demiJournee = DemiJournee.valueOf(demiJourneeStr);
-                    } catch (IllegalArgumentException e) {
-                        report.getErrors().add(new ImportErrorDTO(i + 2, 
-                            "DemiJournee invalide (MATIN ou APRES_MIDI)", String.join(",", row)));
-                        report.setErrorCount(report.getErrorCount() + 1);
-                        continue;
-                    }
-                    
-                    // Créer l'activité
-                    Activite activite = new Activite();
-                    activite.setTitre(titre);
-                    activite.setDescription(description);
-                    activite.setType(type);
-                    activite.setDemiJournee(demiJournee);
-                    activite.setCapaciteMax(capaciteMax);
-                    
-                    activiteRepository.save(activite);
-                    report.setSuccessCount(report.getSuccessCount() + 1);
-                    
-                } catch (NumberFormatException e) {
-                    report.getErrors().add(new ImportErrorDTO(i + 2, 
-                        "Capacité invalide (doit être un nombre)", String.join(",", row)));
-                    report.setErrorCount(report.getErrorCount() + 1);
-                } catch (Exception e) {
-                    report.getErrors().add(new ImportErrorDTO(i + 2, 
-                        e.getMessage(), String.join(",", row)));
-                    report.setErrorCount(report.getErrorCount() + 1);
+                    demiJournee = DemiJournee.valueOf(demiJourneeStr);
+                } catch (IllegalArgumentException e) {
+                    ajouterErreur(report, numeroLigne, "DemiJournee invalide (MATIN ou APRES_MIDI)", row);
+                    continue;
+                }
+                
+                // Auto-créer ou mettre à jour le lycée (une requête par lycée nouveau ou incomplet)
+                Lycee lycee = lycees.computeIfAbsent(lyceeNom, n -> {
+                    Lycee newLycee = new Lycee();
+                    newLycee.setNom(lyceeNom);
+                    newLycee.setVille(ville);
+                    newLycee.setCodePostal(codePostal);
+                    return lyceeRepository.save(newLycee);
+                });
+                
+                // Mettre à jour ville et code postal si le lycée existe déjà mais sans ces infos
+                if (lycee.getVille() == null || lycee.getVille().isEmpty()) {
+                    lycee.setVille(ville);
+                    lycee.setCodePostal(codePostal);
+                    lycees.put(lyceeNom, lyceeRepository.save(lycee));
                 }
+                
+                // Créer l'élève
+                Eleve eleve = new Eleve();
+                eleve.setNom(nom);
+                eleve.setPrenom(prenom);
+                eleve.setIdNational(idNational);
+                eleve.setLycee(lycee);
+                eleve.setDemiJournee(demiJournee);
+                eleve.setVoeuxSoumis(false);
+                
+                idNationaux.add(idNational);
+                lot.ajouter(eleve, numeroLigne, row);
+                
+            } catch (Exception e) {
+                ajouterErreur(report, numeroLigne, e.getMessage(), row);
+            }
+            // Hors du try : un échec d'écriture interrompt l'import au lieu de compter comme une ligne en erreur
+            if (lot.taille() >= tailleLot) {
+                ecrireLot(report, lot, ecriture, siRejete, pointDeControle);
             }
-            
-        } catch (Exception e) {
-            throw new BusinessException("Erreur lors de la lecture du fichier CSV: " + e.getMessage());
         }
-        
-        return report;
+        ecrireLot(report, lot, ecriture, siRejete, pointDeControle);
     }
     
-    @Transactional
-    public ImportReportDTO importSalles(MultipartFile file) {
-        ImportReportDTO report = new ImportReportDTO();
+    private void importerActivites(CSVReader csvReader, ImportReportDTO report, Consumer<ImportReportDTO> pointDeControle)
+            throws Exception {
+        Lot<Activite> lot = new Lot<>();
+        ToIntFunction<List<Activite>> ecriture = activites -> {
+            // Un lot rejoué après un refus de la base abandonne les ID de la tentative annulée
+            activites.forEach(activite -> activite.setId(null));
+            return activiteRepository.saveAll(activites).size();
+        };
         
-        try (Reader reader = new InputStreamReader(file.getInputStream());
-             CSVReader csvReader = new CSVReaderBuilder(reader).withSkipLines(1).build()) {
-            
-            List<String[]> rows = csvReader.readAll();
-            report.setTotalLines(rows.size());
-            
-            for (int i = 0; i < rows.size(); i++) {
-                String[] row = rows.get(i);
+        int numeroLigne = 1 + report.getTotalLines();
+        String[] row;
+        while ((row = csvReader.readNext()) != null) {
+            numeroLigne++;
+            report.setTotalLines(report.getTotalLines() + 1);
+            try {
+                // Format CSV: titre,description,type,demiJournee,capaciteMax
+                if (row.length < 5) {
+                    ajouterErreur(report, numeroLigne, "Nombre de colonnes insuffisant", row);
+                    continue;
+                }
+                
+                String titre = row[0].trim();
+                String description = row[1].trim();
+                String typeStr = row[2].trim().toUpperCase();
+                String demiJourneeStr = row[3].trim().toUpperCase();
+                Integer capaciteMax = Integer.parseInt(row[4].trim());
+                
+                // Valider type
+                TypeActivite type;
+                try {
+                    type = TypeActivite.valueOf(typeStr);
+                } catch (IllegalArgumentException e) {
+                    ajouterErreur(report, numeroLigne, "Type invalide (CONFERENCE, TABLE_RONDE, FLASH_METIER)", row);
+                    continue;
+                }
+                
+                // Valider demiJournee
+                DemiJournee demiJournee;
                 try {
-                    // Format CSV: nom,capacite,batiment,equipements
-                    if (row.length < 4) {
-                        report.getErrors().add(new ImportErrorDTO(i + 2, 
-                            "Nombre de colonnes insuffisant", String.join(",", row)));
-                        report.setErrorCount(report.getErrorCount() + 1);
-                        continue;
-                    }
-                    
-                    String nom = row[0].trim();
-                    Integer capacite = Integer.parseInt(row[1].trim());
-                    String batiment = row[2].trim();
-                    String equipements = row[3].trim();
-                    
-                    // Créer la salle
-                    Salle salle = new Salle();
-                    salle.setNom(nom);
-                    salle.setCapacite(capacite);
-                    salle.setBatiment(batiment);
-                    salle.setEquipements(equipements);
-                    
-                    salleRepository.save(salle);
-                    report.setSuccessCount(report.getSuccessCount() + 1);
-                    
-                } catch (NumberFormatException e) {
-                    report.getErrors().add(new ImportErrorDTO(i + 2, 
-                        "Capacité invalide (doit être un nombre)", String.join(",", row)));
-                    report.setErrorCount(report.getErrorCount() + 1);
-                } catch (Exception e) {
-                    report.getErrors().add(new ImportErrorDTO(i + 2, 
-                        e.getMessage(), String.join(",", row)));
-                    report.setErrorCount(report.getErrorCount() + 1);
+                    demiJournee = DemiJournee.valueOf(demiJourneeStr);
+                } catch (IllegalArgumentException e) {
+                    ajouterErreur(report, numeroLigne, "DemiJournee invalide (MATIN ou APRES_MIDI)", row);
+                    continue;
                 }
+                
+                // Créer l'activité
+                Activite activite = new Activite();
+                activite.setTitre(titre);
+                activite.setDescription(description);
+                activite.setType(type);
+                activite.setDemiJournee(demiJournee);
+                activite.setCapaciteMax(capaciteMax);
+                
+                lot.ajouter(activite, numeroLigne, row);
+                
+            } catch (NumberFormatException e) {
+                ajouterErreur(report, numeroLigne, "Capacité invalide (doit être un nombre)", row);
+            } catch (Exception e) {
+                ajouterErreur(report, numeroLigne, e.getMessage(), row);
+            }
+            if (lot.taille() >= tailleLot) {
+                ecrireLot(report, lot, ecriture, activiteRejetee -> { }, pointDeControle);
             }
-            
-        } catch (Exception e) {
-            throw new BusinessException("Erreur lors de la lecture du fichier CSV: " + e.getMessage());
         }
+        ecrireLot(report, lot, ecriture, activiteRejetee -> { }, pointDeControle);
+    }
+    
+    private void importerSalles(CSVReader csvReader, ImportReportDTO report, Consumer<ImportReportDTO> pointDeControle)
+            throws Exception {
+        Lot<Salle> lot = new Lot<>();
+        ToIntFunction<List<Salle>> ecriture = salles -> {
+            salles.forEach(salle -> salle.setId(null));
+            return salleRepository.saveAll(salles).size();
+        };
         
-        return report;
+        int numeroLigne = 1 + report.getTotalLines();
+        String[] row;
+        while ((row = csvReader.readNext()) != null) {
+            numeroLigne++;
+            report.setTotalLines(report.getTotalLines() + 1);
+            try {
+                // Format CSV: nom,capacite,batiment,equipements
+                if (row.length < 4) {
+                    ajouterErreur(report, numeroLigne, "Nombre de colonnes insuffisant", row);
+                    continue;
+                }
+                
+                String nom = row[0].trim();
+                Integer capacite = Integer.parseInt(row[1].trim());
+                String batiment = row[2].trim();
+                String equipements = row[3].trim();
+                
+                // Créer la salle
+                Salle salle = new Salle();
+                salle.setNom(nom);
+                salle.setCapacite(capacite);
+                salle.setBatiment(batiment);
+                salle.setEquipements(equipements);
+                
+                lot.ajouter(salle, numeroLigne, row);
+                
+            } catch (NumberFormatException e) {
+                ajouterErreur(report, numeroLigne, "Capacité invalide (doit être un nombre)", row);
+            } catch (Exception e) {
+                ajouterErreur(report, numeroLigne, e.getMessage(), row);
+            }
+            if (lot.taille() >= tailleLot) {
+                ecrireLot(report, lot, ecriture, salleRejetee -> { }, pointDeControle);
+            }
+        }
+        ecrireLot(report, lot, ecriture, salleRejetee -> { }, pointDeControle);
+    }
+    
+    /**
+     * Écrit le lot en attente dans sa propre transaction, puis signale le point de contrôle.
+     * Un lot refusé par une contrainte de la base est réécrit par moitiés, et seules les lignes
+     * refusées seules sont signalées ; toute autre erreur d'accès aux données interrompt
+     * l'import (les lots précédents restent écrits).
+     */
+    private <T> void ecrireLot(ImportReportDTO report, Lot<T> lot, ToIntFunction<List<T>> ecriture, Consumer<T> siRejete,
+                               Consumer<ImportReportDTO> pointDeControle) {
+        if (!lot.entites.isEmpty()) {
+            report.setSuccessCount(report.getSuccessCount() + ecrire(report, lot, 0, lot.taille(), ecriture, siRejete));
+            lot.vider();
+        }
+        log.debug("📥 Import : {} lignes lues, {} écrites", report.getTotalLines(), report.getSuccessCount());
+        pointDeControle.accept(report);
+    }
+    
+    /**
+     * Écrit les lignes [debut, fin) du lot, en coupant en deux une tranche refusée par une
+     * contrainte : k lignes fautives coûtent environ k log(taille du lot) écritures
+     *
+     * @return nombre de lignes écrites
+     */
+    private <T> int ecrire(ImportReportDTO report, Lot<T> lot, int debut, int fin, ToIntFunction<List<T>> ecriture,
+                           Consumer<T> siRejete) {
+        try {
+            return ecriture.applyAsInt(lot.entites.subList(debut, fin));
+        } catch (DataIntegrityViolationException e) {
+            if (fin - debut == 1) {
+                siRejete.accept(lot.entites.get(debut));
+                ajouterErreur(report, lot.numeros.get(debut), e.getMostSpecificCause().getMessage(), lot.lignes.get(debut));
+                return 0;
+            }
+            int milieu = (debut + fin) >>> 1;
+            return ecrire(report, lot, debut, milieu, ecriture, siRejete) + ecrire(report, lot, milieu, fin, ecriture, siRejete);
+        }
+    }
+    
+    private static void ajouterErreur(ImportReportDTO report, int numeroLigne, String message, String[] row) {
+        report.getErrors().add(new ImportErrorDTO(numeroLigne, message, String.join(",", row)));
+        report.setErrorCount(report.getErrorCount() + 1);
+    }
+    
+    /**
+     * Lignes validées en attente d'écriture, avec leur numéro et leur contenu pour le rapport d'erreurs
+     */
+    private static class Lot<T> {
+        
+        private final List<T> entites = new ArrayList<>();
+        private final List<Integer> numeros = new ArrayList<>();
+        private final List<String[]> lignes = new ArrayList<>();
+        
+        private void ajouter(T entite, int numero, String[] ligne) {
+            entites.add(entite);
+            numeros.add(numero);
+            lignes.add(ligne);
+        }
+        
+        private int taille() {
+            return entites.size();
+        }
+        
+        private void vider() {
+            entites.clear();
+            numeros.clear();
+            lignes.clear();
+        }
     }
 }
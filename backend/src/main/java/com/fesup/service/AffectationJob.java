@@ -0,0 +1,203 @@
+package com.fesup.service;
+
+import ai.timefold.solver.core.api.solver.SolverJob;
+import ai.timefold.solver.core.api.solver.SolverStatus;
+import com.fesup.dto.AnalyseSolutionDTO;
+import com.fesup.enums.StatutResolution;
+import com.fesup.solver.AffectationSolution;
+import com.fesup.solver.PolitiqueArret;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Une résolution lancée par un administrateur (globale, partitionnée ou incrémentale).
+ *
+ * Tant que le job n'est pas terminé, son statut est lu sur les SolverJob Timefold
+ * (un seul en mode global, un par demi-journée en mode partitionné).
+ */
+@Getter
+public class AffectationJob {
+    
+    private final UUID id;
+    private final String mode;
+    private final boolean sauvegarder;
+    private final PolitiqueArret politique;
+    private final LocalDateTime debut = LocalDateTime.now();
+    // Chaque solveur est associé à l'action à exécuter s'il est annulé avant d'avoir démarré
+    private final Map<SolverJob<AffectationSolution, UUID>, Runnable> solverJobs = new ConcurrentHashMap<>();
+    // Ressources propres au job (SolverManager dédié) libérées à la fin
+    private final List<Runnable> liberations = new CopyOnWriteArrayList<>();
+    
+    private volatile LocalDateTime fin;
+    private volatile StatutResolution statutFinal;
+    private volatile String raisonArret;
+    private volatile boolean annulationDemandee;
+    private volatile AffectationSolution meilleureSolution;
+    private volatile long derniereAmelioration = System.currentTimeMillis();
+    // Calculée à la première demande, une fois le job terminé (voir AnalyseSolutionService)
+    private volatile AnalyseSolutionDTO analyse;
+    
+    public AffectationJob(UUID id, String mode, boolean sauvegarder, PolitiqueArret politique) {
+        this.id = id;
+        this.mode = mode;
+        this.sauvegarder = sauvegarder;
+        this.politique = politique;
+    }
+    
+    public void ajouterSolverJob(SolverJob<AffectationSolution, UUID> solverJob, Runnable siAnnuleAvantDemarrage) {
+        solverJobs.put(solverJob, siAnnuleAvantDemarrage);
+        if (annulationDemandee) {
+            arreter(solverJob, siAnnuleAvantDemarrage);
+        }
+    }
+    
+    /**
+     * Statut courant : figé une fois le job terminé, sinon déduit des solveurs Timefold
+     */
+    public StatutResolution getStatut() {
+        if (statutFinal != null) {
+            return statutFinal;
+        }
+        boolean planifie = false;
+        for (SolverJob<AffectationSolution, UUID> solverJob : solverJobs.keySet()) {
+            SolverStatus status = solverJob.getSolverStatus();
+            if (status == SolverStatus.SOLVING_ACTIVE) {
+                return StatutResolution.EN_COURS;
+            }
+            planifie |= status == SolverStatus.SOLVING_SCHEDULED;
+        }
+        return planifie || solverJobs.isEmpty() ? StatutResolution.EN_ATTENTE : StatutResolution.EN_COURS;
+    }
+    
+    public boolean isActif() {
+        return statutFinal == null;
+    }
+    
+    public void majMeilleureSolution(AffectationSolution solution) {
+        this.meilleureSolution = solution;
+        signalerAmelioration();
+    }
+    
+    public void signalerAmelioration() {
+        this.derniereAmelioration = System.currentTimeMillis();
+    }
+    
+    public void conserverAnalyse(AnalyseSolutionDTO analyse) {
+        this.analyse = analyse;
+    }
+    
+    public void aLiberer(Runnable liberation) {
+        liberations.add(liberation);
+    }
+    
+    /**
+     * Demande l'arrêt anticipé : chaque solveur renvoie sa meilleure solution courante
+     */
+    public void annuler() {
+        annulationDemandee = true;
+        solverJobs.forEach(this::arreter);
+    }
+    
+    /**
+     * Un solveur encore en file d'attente est retiré sans appeler ses callbacks Timefold.
+     * S'il démarre entre la lecture du statut et terminateEarly(), ses callbacks de fin sont
+     * appelés aussi : l'action doit venir de FinSolveur pour ne s'exécuter qu'une fois.
+     */
+    private void arreter(SolverJob<AffectationSolution, UUID> solverJob, Runnable siAnnuleAvantDemarrage) {
+        boolean planifie = solverJob.getSolverStatus() == SolverStatus.SOLVING_SCHEDULED;
+        solverJob.terminateEarly();
+        if (planifie) {
+            siAnnuleAvantDemarrage.run();
+        }
+    }
+    
+    public void terminer(AffectationSolution solution) {
+        terminer(solution, null);
+    }
+    
+    /**
+     * @param raison raison d'arrêt connue (moteur sans Timefold), sinon déduite de la politique d'arrêt
+     */
+    public void terminer(AffectationSolution solution, String raison) {
+        if (solution != null) {
+            this.meilleureSolution = solution;
+        }
+        if (annulationDemandee) {
+            this.raisonArret = "Arrêt demandé par un administrateur";
+        } else if (raison != null) {
+            this.raisonArret = raison;
+        } else {
+            this.raisonArret = politique.raisonArret(meilleureSolution != null ? meilleureSolution.getScore() : null,
+                                                     dureeResolution(),
+                                                     Duration.ofMillis(System.currentTimeMillis() - derniereAmelioration));
+        }
+        this.fin = LocalDateTime.now();
+        this.statutFinal = annulationDemandee ? StatutResolution.ANNULE : StatutResolution.TERMINE;
+        liberer();
+    }
+    
+    public void echouer(Throwable throwable) {
+        this.raisonArret = "Erreur : " + throwable.getMessage();
+        this.fin = LocalDateTime.now();
+        this.statutFinal = StatutResolution.ECHEC;
+        liberer();
+    }
+    
+    /**
+     * Durée de résolution du plus long des solveurs (hors attente dans la file)
+     */
+    private Duration dureeResolution() {
+        return solverJobs.keySet().stream()
+            .map(SolverJob::getSolvingDuration)
+            .max(Duration::compareTo)
+            .orElse(Duration.ZERO);
+    }
+    
+    private void liberer() {
+        liberations.forEach(Runnable::run);
+        liberations.clear();
+    }
+    
+    /**
+     * Fin d'un solveur, exécutée au plus une fois : callback de solution finale ou d'échec
+     * de Timefold, ou action de l'annulation avant démarrage
+     */
+    public static final class FinSolveur {
+        
+        private final AtomicBoolean atteinte = new AtomicBoolean();
+        
+        public Consumer<AffectationSolution> siSolution(Consumer<AffectationSolution> action) {
+            return solution -> {
+                if (atteinte.compareAndSet(false, true)) {
+                    action.accept(solution);
+                }
+            };
+        }
+        
+        public BiConsumer<UUID, Throwable> siEchec(BiConsumer<UUID, Throwable> action) {
+            return (id, throwable) -> {
+                if (atteinte.compareAndSet(false, true)) {
+                    action.accept(id, throwable);
+                }
+            };
+        }
+        
+        public Runnable siAnnuleAvantDemarrage(Runnable action) {
+            return () -> {
+                if (atteinte.compareAndSet(false, true)) {
+                    action.run();
+                }
+            };
+        }
+    }
+}
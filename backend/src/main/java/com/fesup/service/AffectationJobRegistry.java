@@ -0,0 +1,99 @@
+package com.fesup.service;
+
+import com.fesup.exception.BusinessException;
+import com.fesup.exception.ResourceNotFoundException;
+import com.fesup.solver.PolitiqueArret;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registre des résolutions lancées depuis le démarrage de l'application.
+ *
+ * Le nombre de résolutions simultanées est plafonné pour que plusieurs scénarios
+ * puissent tourner sur la même machine sans se disputer les cœurs. Seules les dernières
+ * résolutions terminées sont conservées : chacune garde sa meilleure solution et la
+ * correspondance vers toutes les entités JPA chargées.
+ */
+@Service
+@Slf4j
+public class AffectationJobRegistry {
+    
+    private final Map<UUID, AffectationJob> jobs = new ConcurrentHashMap<>();
+    private final int maxJobsSimultanes;
+    private final int jobsTerminesConserves;
+    
+    public AffectationJobRegistry(@Value("${application.solver.max-concurrent-jobs:2}") int maxJobsSimultanes,
+                                  @Value("${application.solver.finished-jobs-retained:5}") int jobsTerminesConserves) {
+        this.maxJobsSimultanes = maxJobsSimultanes;
+        this.jobsTerminesConserves = jobsTerminesConserves;
+    }
+    
+    /**
+     * Enregistre un nouveau job, ou refuse le lancement si le plafond est atteint
+     */
+    public synchronized AffectationJob creer(String mode, boolean sauvegarder, PolitiqueArret politique) {
+        long actifs = jobs.values().stream().filter(AffectationJob::isActif).count();
+        if (actifs >= maxJobsSimultanes) {
+            throw new BusinessException("Nombre maximal de résolutions simultanées atteint (" + maxJobsSimultanes
+                + "). Attendez la fin d'une résolution ou annulez-en une.");
+        }
+        
+        oublierAnciensJobs();
+        AffectationJob job = new AffectationJob(UUID.randomUUID(), mode, sauvegarder, politique);
+        jobs.put(job.getId(), job);
+        log.info("📋 Job {} enregistré ({}, {}) - {}/{} résolutions actives",
+                 job.getId(), mode, politique.decrire(), actifs + 1, maxJobsSimultanes);
+        return job;
+    }
+    
+    /**
+     * Retire les jobs terminés au-delà des jobsTerminesConserves plus récents
+     */
+    private void oublierAnciensJobs() {
+        List<AffectationJob> termines = jobs.values().stream()
+            .filter(job -> !job.isActif())
+            .sorted(Comparator.comparing(AffectationJob::getFin).reversed())
+            .toList();
+        for (AffectationJob job : termines.subList(Math.min(jobsTerminesConserves, termines.size()), termines.size())) {
+            jobs.remove(job.getId());
+            log.debug("🧹 Job {} terminé le {} retiré du registre", job.getId(), job.getFin());
+        }
+    }
+    
+    public AffectationJob get(UUID id) {
+        AffectationJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResourceNotFoundException("Résolution introuvable : " + id);
+        }
+        return job;
+    }
+    
+    /**
+     * Jobs du plus récent au plus ancien
+     */
+    public List<AffectationJob> lister() {
+        return jobs.values().stream()
+            .sorted(Comparator.comparing(AffectationJob::getDebut).reversed())
+            .toList();
+    }
+    
+    public Optional<AffectationJob> dernier() {
+        return jobs.values().stream().max(Comparator.comparing(AffectationJob::getDebut));
+    }
+    
+    public boolean aUnJobActif() {
+        return jobs.values().stream().anyMatch(AffectationJob::isActif);
+    }
+    
+    public int getMaxJobsSimultanes() {
+        return maxJobsSimultanes;
+    }
+}
@@ -0,0 +1,163 @@
+package com.fesup.service;
+
+import com.fesup.solver.AffectationSolution;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Diffusion en temps réel (Server-Sent Events) de la progression du solveur :
+ * meilleur score, temps écoulé, mouvements évalués par seconde et vœux prioritaires non satisfaits.
+ *
+ * Les vitesses sont lues sur la métrique Micrometer "score calculation count" de Timefold,
+ * étiquetée par l'ID du problème (voir TimefoldConfig.meterRegistry). Aucune écriture en base n'est faite ici.
+ */
+@Service
+@Slf4j
+public class AffectationProgressionService {
+    
+    private static final String METRIQUE_CALCULS = "timefold.solver.score.calculation.count";
+    
+    // Au plus deux événements intermédiaires par seconde et par problème
+    private static final long INTERVALLE_MIN_MS = 500;
+    
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final Map<UUID, Long> debuts = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> dernieresPublications = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> dernieresVitesses = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private volatile Map<String, Object> dernierEvenement;
+    
+    public AffectationProgressionService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+    
+    /**
+     * Abonne un client au flux de progression (le dernier état connu lui est renvoyé immédiatement)
+     */
+    public SseEmitter abonner() {
+        SseEmitter emitter = new SseEmitter(0L);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+        
+        Map<String, Object> evenement = dernierEvenement;
+        if (evenement != null) {
+            envoyer(emitter, (String) evenement.get("type"), evenement);
+        }
+        return emitter;
+    }
+    
+    /**
+     * Enregistre le début de la résolution d'un problème
+     */
+    public void demarrer(UUID problemId, String mode) {
+        debuts.put(problemId, System.currentTimeMillis());
+        
+        Map<String, Object> evenement = new HashMap<>();
+        evenement.put("type", "demarrage");
+        evenement.put("problemId", problemId.toString());
+        evenement.put("mode", mode);
+        diffuser(evenement);
+    }
+    
+    /**
+     * Publie une nouvelle meilleure solution
+     */
+    public void publier(UUID problemId, String libelle, AffectationSolution solution) {
+        long maintenant = System.currentTimeMillis();
+        Long derniere = dernieresPublications.get(problemId);
+        if (derniere != null && maintenant - derniere < INTERVALLE_MIN_MS) {
+            return;
+        }
+        dernieresPublications.put(problemId, maintenant);
+        diffuser(construireEvenement("progression", problemId, libelle, solution));
+    }
+    
+    /**
+     * Publie la solution finale et oublie le problème
+     */
+    public void terminer(UUID problemId, String libelle, AffectationSolution solution) {
+        diffuser(construireEvenement("termine", problemId, libelle, solution));
+        debuts.remove(problemId);
+        dernieresPublications.remove(problemId);
+        dernieresVitesses.remove(problemId);
+    }
+    
+    /**
+     * Signale l'échec de la résolution
+     */
+    public void echouer(UUID problemId, String libelle, Throwable throwable) {
+        Map<String, Object> evenement = new HashMap<>();
+        evenement.put("type", "erreur");
+        evenement.put("problemId", problemId.toString());
+        evenement.put("libelle", libelle);
+        evenement.put("message", throwable.getMessage());
+        diffuser(evenement);
+        debuts.remove(problemId);
+        dernieresPublications.remove(problemId);
+        dernieresVitesses.remove(problemId);
+    }
+    
+    private Map<String, Object> construireEvenement(String type, UUID problemId, String libelle, AffectationSolution solution) {
+        long tempsEcoule = System.currentTimeMillis() - debuts.getOrDefault(problemId, System.currentTimeMillis());
+        
+        Map<String, Object> evenement = new HashMap<>();
+        evenement.put("type", type);
+        evenement.put("problemId", problemId.toString());
+        evenement.put("libelle", libelle);
+        evenement.put("score", String.valueOf(solution.getScore()));
+        if (solution.getScore() != null) {
+            evenement.put("hardScore", solution.getScore().hardScore());
+            evenement.put("softScore", solution.getScore().softScore());
+        }
+        evenement.put("tempsEcouleMs", tempsEcoule);
+        evenement.put("mouvementsParSeconde", mouvementsParSeconde(problemId, tempsEcoule));
+        evenement.put("voeuxPrioritairesNonSatisfaits", solution.compterVoeuxPrioritairesNonSatisfaits());
+        return evenement;
+    }
+    
+    /**
+     * Chaque mouvement évalué correspond à un calcul de score. La métrique disparaît
+     * à la fin de la résolution : la dernière vitesse connue est alors reprise.
+     */
+    private long mouvementsParSeconde(UUID problemId, long tempsEcoule) {
+        Meter compteur = meterRegistry.find(METRIQUE_CALCULS)
+            .tag("problem.id", problemId.toString())
+            .meter();
+        if (compteur == null || tempsEcoule <= 0) {
+            return dernieresVitesses.getOrDefault(problemId, 0L);
+        }
+        double calculs = compteur.measure().iterator().next().getValue();
+        long vitesse = (long) (calculs * 1000 / tempsEcoule);
+        dernieresVitesses.put(problemId, vitesse);
+        return vitesse;
+    }
+    
+    private void diffuser(Map<String, Object> evenement) {
+        dernierEvenement = evenement;
+        for (SseEmitter emitter : emitters) {
+            envoyer(emitter, (String) evenement.get("type"), evenement);
+        }
+    }
+    
+    private void envoyer(SseEmitter emitter, String type, Map<String, Object> evenement) {
+        try {
+            emitter.send(SseEmitter.event().name(type).data(evenement));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Client SSE déconnecté : {}", e.getMessage());
+            emitters.remove(emitter);
+        }
+    }
+}
@@ -1,24 +1,63 @@
 package com.fesup.service;
 
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.core.api.solver.SolutionManager;
+import ai.timefold.solver.core.api.solver.SolverFactory;
+import ai.timefold.solver.core.api.solver.SolverJob;
 import ai.timefold.solver.core.api.solver.SolverManager;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.SolverManagerConfig;
+import com.fesup.dto.AffectationJobDTO;
+import com.fesup.entity.Activite;
 import com.fesup.entity.Affectation;
+import com.fesup.entity.Creneau;
 import com.fesup.entity.Eleve;
+import com.fesup.entity.Salle;
 import com.fesup.entity.Session;
 import com.fesup.entity.Voeu;
+import com.fesup.enums.DemiJournee;
+import com.fesup.exception.ValidationException;
+import com.fesup.repository.ActiviteRepository;
+import com.fesup.repository.AffectationJdbcRepository;
 import com.fesup.repository.AffectationRepository;
+import com.fesup.repository.CreneauRepository;
 import com.fesup.repository.EleveRepository;
+import com.fesup.repository.SalleRepository;
 import com.fesup.repository.SessionRepository;
 import com.fesup.repository.VoeuRepository;
 import com.fesup.repository.TicketRepository;
+import com.fesup.solver.AffectationParFlot;
+import com.fesup.solver.AffectationPlanifiee;
 import com.fesup.solver.AffectationSolution;
+import com.fesup.solver.ConstructeurProbleme;
+import com.fesup.solver.CorrespondanceEntites;
+import com.fesup.solver.PlanificationConjointe;
+import com.fesup.solver.PolitiqueArret;
+import com.fesup.solver.SessionPlanifiee;
+import com.fesup.solver.VoeuPlanifie;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -26,84 +65,570 @@ import java.util.UUID;
 public class AffectationService {
     
     private final SolverManager<AffectationSolution, UUID> solverManager;
+    @Qualifier("reaffectationSolverManager")
+    private final SolverManager<AffectationSolution, UUID> reaffectationSolverManager;
+    private final SolverConfig solverConfig;
+    private final SolutionManager<AffectationSolution, HardSoftScore> solutionManager;
+    @Qualifier("politiqueArret")
+    private final PolitiqueArret politiqueArret;
+    @Qualifier("politiqueArretReaffectation")
+    private final PolitiqueArret politiqueArretReaffectation;
     private final AffectationRepository affectationRepository;
+    private final AffectationJdbcRepository affectationJdbcRepository;
     private final EleveRepository eleveRepository;
     private final SessionRepository sessionRepository;
     private final VoeuRepository voeuRepository;
     private final TicketRepository ticketRepository;
+    private final SalleRepository salleRepository;
+    private final CreneauRepository creneauRepository;
+    private final ActiviteRepository activiteRepository;
+    private final SauvegardePlanConjointService sauvegardePlanConjointService;
     private final TicketStorageService ticketStorageService;
+    private final AffectationProgressionService progressionService;
+    private final AffectationJobRegistry jobRegistry;
     
-    private UUID currentProblemId;
-    private AffectationSolution lastSolution;
+    @Value("${application.solver.warm-start:true}")
+    private boolean demarrageAChaud;
+    
+    @Value("${application.solver.parallel-solver-count:AUTO}")
+    private String parallelSolverCount;
+    
+    @Value("${application.solver.conjoint.iterations:6}")
+    private int iterationsConjointes;
+    
+    // Dernière solution écrite par sauvegarderSolution (point de sauvegarde ou solution finale)
+    private AffectationSolution solutionSauvegardee;
     
     /**
      * Lance l'algorithme d'affectation Timefold
+     * 
+     * @param sauvegarder si false, le résultat reste en mémoire (scénario à comparer) sans toucher aux affectations en base
+     * @param surcharge limites d'arrêt propres à ce lancement (les valeurs nulles reprennent la configuration)
      */
     @Transactional(readOnly = true)
-    public UUID lancerAffectation() {
-        // Réinitialiser la solution précédente
-        this.lastSolution = null;
+    public UUID lancerAffectation(boolean sauvegarder, PolitiqueArret surcharge) {
+        PolitiqueArret politique = politiqueArret.surcharger(surcharge);
+        SolverConfig config = configurer(politique);
         
         // 1. Charger les données avec EAGER LOADING pour éviter LazyInitializationException
         List<Eleve> eleves = eleveRepository.findAllWithLycee();
         List<Session> sessions = sessionRepository.findAllWithDetails();
         List<Voeu> voeux = voeuRepository.findAllWithDetails();
+        verifierDonnees(eleves, sessions);
         
-        // ✅ VALIDATION : Vérifier qu'il y a des sessions disponibles
-        if (sessions == null || sessions.isEmpty()) {
-            throw new IllegalStateException("Impossible de lancer l'algorithme : aucune session n'a été créée. Veuillez d'abord créer des sessions.");
-        }
+        log.info("🚀 Lancement de l'algorithme - {} élèves, {} sessions, {} vœux", 
+                 eleves.size(), sessions.size(), voeux.size());
         
-        if (eleves == null || eleves.isEmpty()) {
-            throw new IllegalStateException("Impossible de lancer l'algorithme : aucun élève trouvé dans la base de données.");
-        }
+        // 2. Créer le problème (une affectation par créneau de la demi-journée de chaque élève)
+        AffectationSolution problem = construireProbleme(eleves, sessions, voeux);
         
-        log.info("🚀 Lancement de l'algorithme - {} élèves, {} sessions, {} vœux", 
+        // 3. Lancer le solver de manière asynchrone
+        // Les meilleures solutions intermédiaires sont seulement diffusées : seule la finale est écrite en base
+        AffectationJob job = jobRegistry.creer("GLOBAL", sauvegarder, politique);
+        UUID problemId = job.getId();
+        progressionService.demarrer(problemId, "GLOBAL");
+        AffectationJob.FinSolveur fin = new AffectationJob.FinSolveur();
+        SolverJob<AffectationSolution, UUID> solverJob = solverManagerPour(job, config, solverManager, politiqueArret).solveAndListen(
+            problemId,
+            id -> problem,
+            solution -> {
+                job.majMeilleureSolution(solution);
+                progressionService.publier(problemId, "GLOBAL", solution);
+            },
+            fin.siSolution(solution -> {
+                if (job.isSauvegarder()) {
+                    sauvegarderSolution(solution);
+                }
+                job.terminer(solution);
+                progressionService.terminer(problemId, "GLOBAL", solution);
+            }),
+            fin.siEchec((id, throwable) -> {
+                log.error("❌ Échec de la résolution", throwable);
+                job.echouer(throwable);
+                progressionService.echouer(problemId, "GLOBAL", throwable);
+            })
+        );
+        job.ajouterSolverJob(solverJob, fin.siAnnuleAvantDemarrage(() -> job.terminer(null)));
+        
+        return problemId;
+    }
+    
+    /**
+     * Lance le moteur d'affectation par flot de coût minimal (voir AffectationParFlot).
+     * 
+     * Aucune recherche locale : le plan est calculé en quelques secondes puis noté
+     * avec les contraintes de Timefold, pour être comparé aux autres résolutions.
+     */
+    @Transactional(readOnly = true)
+    public UUID lancerAffectationParFlot(boolean sauvegarder) {
+        List<Eleve> eleves = eleveRepository.findAllWithLycee();
+        List<Session> sessions = sessionRepository.findAllWithDetails();
+        List<Voeu> voeux = voeuRepository.findAllWithDetails();
+        verifierDonnees(eleves, sessions);
+        
+        log.info("🚀 Lancement du moteur par flot - {} élèves, {} sessions, {} vœux", 
                  eleves.size(), sessions.size(), voeux.size());
         
-        // 2. Créer 4 affectations par élève (une par créneau de sa demi-journée)
-        List<Affectation> affectations = new ArrayList<>();
-        for (Eleve eleve : eleves) {
-            // Créer 4 affectations pour que l'élève puisse avoir jusqu'à 4 sessions
-            for (int i = 0; i < 4; i++) {
-                affectations.add(new Affectation(eleve, null));
+        // Sans démarrage à chaud : le flot part de slots vides
+        AffectationSolution problem = new ConstructeurProbleme(false).construire(eleves, sessions, voeux);
+        
+        AffectationJob job = jobRegistry.creer("FLOT", sauvegarder, politiqueArret);
+        UUID problemId = job.getId();
+        progressionService.demarrer(problemId, "FLOT");
+        CompletableFuture.runAsync(() -> {
+            long debut = System.currentTimeMillis();
+            new AffectationParFlot().affecter(problem);
+            solutionManager.update(problem);
+            long duree = System.currentTimeMillis() - debut;
+            log.info("🏁 Flot de coût minimal calculé en {} ms - Score: {}", duree, problem.getScore());
+            
+            if (job.isSauvegarder()) {
+                sauvegarderSolution(problem);
             }
+            job.terminer(problem, "Flot de coût minimal calculé en " + duree + " ms");
+            progressionService.terminer(problemId, "FLOT", problem);
+        }).exceptionally(throwable -> {
+            log.error("❌ Échec du moteur par flot", throwable);
+            job.echouer(throwable);
+            progressionService.echouer(problemId, "FLOT", throwable);
+            return null;
+        });
+        
+        return problemId;
+    }
+    
+    /**
+     * Lance l'optimisation conjointe des sessions et des affectations (voir PlanificationConjointe).
+     * 
+     * La boucle externe replanifie les sessions à partir des vœux prioritaires perdus par
+     * le flot de coût minimal, puis Timefold améliore le meilleur plan avec le temps restant
+     * de la politique d'arrêt. Si le résultat est sauvegardé, les sessions existantes sont
+     * remplacées par celles du plan (affectations, tickets et PDFs compris).
+     */
+    @Transactional(readOnly = true)
+    public UUID lancerAffectationConjointe(boolean sauvegarder, PolitiqueArret surcharge) {
+        PolitiqueArret politique = politiqueArret.surcharger(surcharge);
+        configurer(politique);
+        
+        List<Eleve> eleves = eleveRepository.findAllWithLycee();
+        List<Voeu> voeux = voeuRepository.findAllWithDetails();
+        List<Salle> salles = salleRepository.findAll();
+        List<Creneau> creneaux = creneauRepository.findAll();
+        List<Activite> activites = activiteRepository.findAll();
+        if (eleves.isEmpty() || salles.isEmpty() || creneaux.isEmpty()) {
+            throw new IllegalStateException("Impossible de lancer l'optimisation conjointe : il faut des élèves, des salles et des créneaux.");
         }
         
-        // 3. Créer le problème
-        AffectationSolution problem = new AffectationSolution(voeux, sessions, affectations);
+        log.info("🚀 Lancement conjoint sessions + affectations - {} élèves, {} vœux, {} salles, {} créneaux, {} itérations max", 
+                 eleves.size(), voeux.size(), salles.size(), creneaux.size(), iterationsConjointes);
+        
+        AffectationJob job = jobRegistry.creer("CONJOINT", sauvegarder, politique);
+        UUID problemId = job.getId();
+        progressionService.demarrer(problemId, "CONJOINT");
+        CompletableFuture.runAsync(() -> {
+            long debut = System.currentTimeMillis();
+            PlanificationConjointe planification = new PlanificationConjointe(eleves, voeux, salles, creneaux, activites,
+                solutionManager::update);
+            AffectationSolution plan = planification.optimiser(iterationsConjointes, job::isAnnulationDemandee);
+            if (plan == null) {
+                // Annulé avant la première itération
+                job.terminer(null);
+                return;
+            }
+            job.majMeilleureSolution(plan);
+            progressionService.publier(problemId, "CONJOINT", plan);
+            
+            List<Session> sessions = plan.getCorrespondance().getSessions();
+            if (job.isSauvegarder()) {
+                ecrirePlanConjoint(sessions, plan);
+            }
+            
+            // Recherche locale sur le meilleur plan, dans le temps restant
+            Duration ecoule = Duration.ofMillis(System.currentTimeMillis() - debut);
+            PolitiqueArret restante = politique;
+            if (politique.getTempsMax() != null) {
+                Duration reste = politique.getTempsMax().minus(ecoule);
+                restante = politique.surcharger(new PolitiqueArret(
+                    reste.compareTo(Duration.ofSeconds(1)) > 0 ? reste : Duration.ofSeconds(1), null, null, null, null));
+            }
+            log.info("🏁 Boucle conjointe terminée en {} ms - {} sessions - Score: {}", ecoule.toMillis(), sessions.size(), plan.getScore());
+            
+            AffectationJob.FinSolveur fin = new AffectationJob.FinSolveur();
+            SolverJob<AffectationSolution, UUID> solverJob = solverManagerPour(job, restante, configurer(restante), solverManager, politiqueArret).solveAndListen(
+                problemId,
+                id -> plan,
+                solution -> {
+                    job.majMeilleureSolution(solution);
+                    progressionService.publier(problemId, "CONJOINT", solution);
+                },
+                fin.siSolution(solution -> {
+                    if (job.isSauvegarder()) {
+                        sauvegarderSolution(solution);
+                    }
+                    job.terminer(solution);
+                    progressionService.terminer(problemId, "CONJOINT", solution);
+                }),
+                fin.siEchec((id, throwable) -> {
+                    log.error("❌ Échec de la recherche locale du mode conjoint", throwable);
+                    job.echouer(throwable);
+                    progressionService.echouer(problemId, "CONJOINT", throwable);
+                })
+            );
+            job.ajouterSolverJob(solverJob, fin.siAnnuleAvantDemarrage(() -> job.terminer(plan)));
+        }).exceptionally(throwable -> {
+            log.error("❌ Échec de l'optimisation conjointe", throwable);
+            job.echouer(throwable);
+            progressionService.echouer(problemId, "CONJOINT", throwable);
+            return null;
+        });
         
-        // 4. Lancer le solver de manière asynchrone
-        currentProblemId = UUID.randomUUID();
-        solverManager.solveAndListen(
-            currentProblemId,
-            problemId -> problem,
-            this::sauvegarderSolution
+        return problemId;
+    }
+    
+    /**
+     * Lance l'algorithme en mode partitionné : un sous-problème indépendant par demi-journée.
+     * 
+     * Un élève ne peut suivre que des sessions de sa demi-journée, les sous-problèmes
+     * sont donc résolus en parallèle par le SolverManager (un solveur par cœur disponible).
+     * Chaque sous-solution est sauvegardée dès qu'elle est terminée, puis les scores
+     * sont fusionnés en un seul HardSoftScore lorsque toutes les demi-journées sont résolues.
+     */
+    @Transactional(readOnly = true)
+    public UUID lancerAffectationPartitionnee(boolean sauvegarder, PolitiqueArret surcharge) {
+        PolitiqueArret politique = politiqueArret.surcharger(surcharge);
+        SolverConfig config = configurer(politique);
+        
+        List<Eleve> eleves = eleveRepository.findAllWithLycee();
+        List<Session> sessions = sessionRepository.findAllWithDetails();
+        List<Voeu> voeux = voeuRepository.findAllWithDetails();
+        verifierDonnees(eleves, sessions);
+        
+        // 1. Un seul problème (index communs), découpé par demi-journée
+        Map<DemiJournee, AffectationSolution> sousProblemes = construireProbleme(eleves, sessions, voeux).partitionnerParDemiJournee();
+        
+        if (sousProblemes.isEmpty()) {
+            throw new IllegalStateException("Impossible de lancer l'algorithme : aucune demi-journée ne possède à la fois des élèves et des sessions.");
+        }
+        
+        log.info("🚀 Lancement partitionné - {} élèves, {} sessions, {} vœux répartis sur {} demi-journées", 
+                 eleves.size(), sessions.size(), voeux.size(), sousProblemes.size());
+        
+        // 2. Lancer un solveur par demi-journée
+        AffectationJob job = jobRegistry.creer("PARTITIONNE", sauvegarder, politique);
+        UUID problemId = job.getId();
+        progressionService.demarrer(problemId, "PARTITIONNE");
+        SolverManager<AffectationSolution, UUID> manager = solverManagerPour(job, config, solverManager, politiqueArret);
+        
+        long debut = System.currentTimeMillis();
+        Map<DemiJournee, AffectationSolution> sousSolutions = new ConcurrentHashMap<>();
+        AtomicInteger restants = new AtomicInteger(sousProblemes.size());
+        AtomicReference<Throwable> echec = new AtomicReference<>();
+        
+        for (Map.Entry<DemiJournee, AffectationSolution> entry : sousProblemes.entrySet()) {
+            DemiJournee demiJournee = entry.getKey();
+            AffectationSolution sousProbleme = entry.getValue();
+            UUID sousProblemId = UUID.randomUUID();
+            progressionService.demarrer(sousProblemId, demiJournee.name());
+            
+            AffectationJob.FinSolveur fin = new AffectationJob.FinSolveur();
+            SolverJob<AffectationSolution, UUID> solverJob = manager.solveAndListen(
+                sousProblemId,
+                id -> sousProbleme,
+                solution -> {
+                    job.signalerAmelioration();
+                    progressionService.publier(sousProblemId, demiJournee.name(), solution);
+                },
+                fin.siSolution(solution -> {
+                    log.info("✅ Demi-journée {} résolue en {} ms - Score: {}", 
+                             demiJournee, System.currentTimeMillis() - debut, solution.getScore());
+                    if (job.isSauvegarder()) {
+                        sauvegarderSolutionPartielle(demiJournee, solution);
+                    }
+                    sousSolutions.put(demiJournee, solution);
+                    progressionService.terminer(sousProblemId, demiJournee.name(), solution);
+                    terminerPartition(job, restants, sousSolutions, echec, debut);
+                }),
+                fin.siEchec((id, throwable) -> {
+                    log.error("❌ Échec de la résolution de la demi-journée {}", demiJournee, throwable);
+                    echec.compareAndSet(null, throwable);
+                    progressionService.echouer(sousProblemId, demiJournee.name(), throwable);
+                    terminerPartition(job, restants, sousSolutions, echec, debut);
+                })
+            );
+            job.ajouterSolverJob(solverJob, fin.siAnnuleAvantDemarrage(() -> terminerPartition(job, restants, sousSolutions, echec, debut)));
+        }
+        
+        return problemId;
+    }
+    
+    /**
+     * Réaffectation incrémentale à partir des affectations déjà persistées.
+     * 
+     * Les élèves dont le plan est toujours valide sont épinglés (@PlanningPin) : seuls les
+     * nouveaux élèves, ceux dont une session a changé de créneau et ceux d'une salle devenue
+     * trop petite sont optimisés. Seules les lignes modifiées sont ensuite écrites en base.
+     */
+    @Transactional(readOnly = true)
+    public UUID lancerReaffectation(boolean sauvegarder, PolitiqueArret surcharge) {
+        PolitiqueArret politique = politiqueArretReaffectation.surcharger(surcharge);
+        SolverConfig config = configurer(politique);
+        
+        List<Eleve> eleves = eleveRepository.findAllWithLycee();
+        List<Session> sessions = sessionRepository.findAllWithDetails();
+        List<Voeu> voeux = voeuRepository.findAllWithDetails();
+        List<Affectation> existantes = affectationRepository.findAllWithSession();
+        verifierDonnees(eleves, sessions);
+        
+        if (existantes.isEmpty()) {
+            throw new IllegalStateException("Impossible de relancer l'algorithme : aucune affectation existante. Veuillez d'abord lancer une affectation complète.");
+        }
+        
+        AffectationSolution problem = construireProbleme(eleves, sessions, voeux, existantes);
+        
+        // Lignes existantes qui ne correspondent plus à aucun slot (élève supprimé, changement de demi-journée...)
+        Set<Long> conservees = Arrays.stream(problem.getCorrespondance().getIdsPersistes())
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        List<Long> orphelines = existantes.stream()
+            .map(Affectation::getId)
+            .filter(id -> !conservees.contains(id))
+            .collect(Collectors.toList());
+        
+        long aOptimiser = problem.getAffectations().stream().filter(a -> !a.isEpingle()).count();
+        log.info("♻️  Réaffectation incrémentale - {} affectations à optimiser sur {}, {} lignes orphelines", 
+                 aOptimiser, problem.getAffectations().size(), orphelines.size());
+        
+        // Seule la solution finale est persistée : les lignes insérées n'ont pas d'ID dans les solutions intermédiaires
+        AffectationJob job = jobRegistry.creer("INCREMENTAL", sauvegarder, politique);
+        UUID problemId = job.getId();
+        progressionService.demarrer(problemId, "INCREMENTAL");
+        AffectationJob.FinSolveur fin = new AffectationJob.FinSolveur();
+        SolverJob<AffectationSolution, UUID> solverJob = solverManagerPour(job, config, reaffectationSolverManager, politiqueArretReaffectation).solveAndListen(
+            problemId,
+            id -> problem,
+            solution -> {
+                job.majMeilleureSolution(solution);
+                progressionService.publier(problemId, "INCREMENTAL", solution);
+            },
+            fin.siSolution(solution -> {
+                if (job.isSauvegarder()) {
+                    sauvegarderModifications(solution, orphelines);
+                }
+                job.terminer(solution);
+                progressionService.terminer(problemId, "INCREMENTAL", solution);
+            }),
+            fin.siEchec((id, throwable) -> {
+                log.error("❌ Échec de la réaffectation incrémentale", throwable);
+                job.echouer(throwable);
+                progressionService.echouer(problemId, "INCREMENTAL", throwable);
+            })
         );
+        job.ajouterSolverJob(solverJob, fin.siAnnuleAvantDemarrage(() -> job.terminer(null)));
         
-        return currentProblemId;
+        return problemId;
     }
     
     /**
-     * Récupère les résultats de l'affectation
+     * Configuration du solveur pour une politique d'arrêt, vérifiée avant le lancement.
+     * Un nombre de threads repris de la politique par défaut est celui retenu au démarrage
+     * (NONE si la valeur configurée est inutilisable, voir TimefoldConfig).
      */
-    public AffectationSolution getResultats() {
-        if (currentProblemId == null) {
-            throw new IllegalStateException("Aucune affectation en cours");
+    private SolverConfig configurer(PolitiqueArret politique) {
+        try {
+            SolverConfig config = politique.appliquer(solverConfig);
+            if (Objects.equals(politique.getMoveThreadCount(), politiqueArret.getMoveThreadCount())) {
+                config.setMoveThreadCount(solverConfig.getMoveThreadCount());
+            }
+            if (!SolverConfig.MOVE_THREAD_COUNT_NONE.equals(config.getMoveThreadCount())) {
+                // Échoue si le nombre de threads est invalide ou si l'édition de Timefold ne le permet pas
+                SolverFactory.create(config).buildSolver();
+            }
+            return config;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new ValidationException(e.getMessage());
+        }
+    }
+    
+    /**
+     * SolverManager partagé si la politique est celle par défaut, sinon un SolverManager
+     * dédié au job, fermé une fois la résolution terminée
+     */
+    private SolverManager<AffectationSolution, UUID> solverManagerPour(AffectationJob job, SolverConfig config,
+                                                                      SolverManager<AffectationSolution, UUID> partage,
+                                                                      PolitiqueArret parDefaut) {
+        return solverManagerPour(job, job.getPolitique(), config, partage, parDefaut);
+    }
+    
+    private SolverManager<AffectationSolution, UUID> solverManagerPour(AffectationJob job, PolitiqueArret politique, SolverConfig config,
+                                                                      SolverManager<AffectationSolution, UUID> partage,
+                                                                      PolitiqueArret parDefaut) {
+        if (politique.equals(parDefaut)) {
+            return partage;
+        }
+        SolverManager<AffectationSolution, UUID> dedie = SolverManager.create(config,
+            new SolverManagerConfig()
+                .withParallelSolverCount(parallelSolverCount)
+                .withThreadFactoryClass(config.getThreadFactoryClass()));
+        // Fermé hors du thread du solveur, qui appelle les callbacks de fin
+        job.aLiberer(() -> CompletableFuture.runAsync(dedie::close));
+        return dedie;
+    }
+    
+    /**
+     * Fusionne les sous-solutions lorsque la dernière demi-journée est terminée
+     */
+    private void terminerPartition(AffectationJob job, AtomicInteger restants, Map<DemiJournee, AffectationSolution> sousSolutions,
+                                   AtomicReference<Throwable> echec, long debut) {
+        if (restants.decrementAndGet() > 0) {
+            return;
         }
         
-        if (lastSolution != null) {
-            return lastSolution;
+        List<VoeuPlanifie> voeux = new ArrayList<>();
+        List<SessionPlanifiee> sessions = new ArrayList<>();
+        List<AffectationPlanifiee> affectations = new ArrayList<>();
+        HardSoftScore score = HardSoftScore.ZERO;
+        CorrespondanceEntites correspondance = null;
+        
+        for (AffectationSolution sousSolution : sousSolutions.values()) {
+            correspondance = sousSolution.getCorrespondance();
+            voeux.addAll(sousSolution.getVoeux());
+            sessions.addAll(sousSolution.getSessions());
+            affectations.addAll(sousSolution.getAffectations());
+            score = score.add(sousSolution.getScore());
         }
         
-        throw new IllegalStateException("Solution pas encore disponible");
+        log.info("🏁 Résolution partitionnée terminée en {} ms - {} demi-journées - Score fusionné: {}", 
+                 System.currentTimeMillis() - debut, sousSolutions.size(), score);
+        
+        AffectationSolution solution = new AffectationSolution(voeux, sessions, affectations, score, correspondance);
+        progressionService.terminer(job.getId(), "PARTITIONNE", solution);
+        
+        if (echec.get() != null) {
+            job.majMeilleureSolution(solution);
+            job.echouer(echec.get());
+        } else {
+            job.terminer(solution);
+        }
+    }
+    
+    /**
+     * Vérifie que les données minimales sont présentes avant de lancer le solveur
+     */
+    private void verifierDonnees(List<Eleve> eleves, List<Session> sessions) {
+        // ✅ VALIDATION : Vérifier qu'il y a des sessions disponibles
+        if (sessions == null || sessions.isEmpty()) {
+            throw new IllegalStateException("Impossible de lancer l'algorithme : aucune session n'a été créée. Veuillez d'abord créer des sessions.");
+        }
+        
+        if (eleves == null || eleves.isEmpty()) {
+            throw new IllegalStateException("Impossible de lancer l'algorithme : aucun élève trouvé dans la base de données.");
+        }
+    }
+    
+    /**
+     * Construit le problème Timefold (voir ConstructeurProbleme)
+     */
+    private AffectationSolution construireProbleme(List<Eleve> eleves, List<Session> sessions, List<Voeu> voeux) {
+        return construireProbleme(eleves, sessions, voeux, List.of());
     }
     
     /**
-     * Vérifie si le solver est encore en cours d'exécution
+     * Construit le problème en repartant des affectations existantes
+     */
+    private AffectationSolution construireProbleme(List<Eleve> eleves, List<Session> sessions, List<Voeu> voeux,
+                                                   List<Affectation> existantes) {
+        return new ConstructeurProbleme(demarrageAChaud).construire(eleves, sessions, voeux, existantes);
+    }
+    
+    /**
+     * Récupère une résolution (la plus récente si aucun ID n'est fourni)
+     */
+    public AffectationJob getJob(UUID problemId) {
+        if (problemId != null) {
+            return jobRegistry.get(problemId);
+        }
+        return jobRegistry.dernier()
+            .orElseThrow(() -> new IllegalStateException("Aucune affectation en cours"));
+    }
+    
+    /**
+     * Récupère les résultats d'une résolution terminée
+     */
+    public AffectationSolution getResultats(UUID problemId) {
+        AffectationSolution solution = getJob(problemId).getMeilleureSolution();
+        if (solution == null) {
+            throw new IllegalStateException("Solution pas encore disponible");
+        }
+        return solution;
+    }
+    
+    /**
+     * Vérifie si au moins une résolution est encore en cours
      */
     public boolean isRunning() {
-        return lastSolution == null && currentProblemId != null;
+        return jobRegistry.aUnJobActif();
+    }
+    
+    public List<AffectationJobDTO> listerJobs() {
+        return jobRegistry.lister().stream().map(this::toDTO).collect(Collectors.toList());
+    }
+    
+    public AffectationJobDTO getJobDTO(UUID problemId) {
+        return toDTO(jobRegistry.get(problemId));
+    }
+    
+    /**
+     * Arrête une résolution : sa meilleure solution courante devient sa solution finale
+     */
+    public AffectationJobDTO annulerJob(UUID problemId) {
+        AffectationJob job = jobRegistry.get(problemId);
+        if (!job.isActif()) {
+            throw new IllegalStateException("La résolution " + problemId + " est déjà terminée");
+        }
+        if ("FLOT".equals(job.getMode())) {
+            // Aucun solveur Timefold à arrêter : le calcul ne vérifie pas l'annulation
+            throw new IllegalStateException("Le moteur par flot ne peut pas être interrompu : il se termine en quelques secondes");
+        }
+        log.info("⏹️  Arrêt demandé pour la résolution {}", problemId);
+        job.annuler();
+        return toDTO(job);
+    }
+    
+    /**
+     * Compare plusieurs résolutions (scénarios) : la meilleure par score en premier
+     */
+    public Map<String, Object> comparerJobs(List<UUID> problemIds) {
+        List<AffectationJob> jobs = problemIds.stream().map(jobRegistry::get).collect(Collectors.toList());
+        Comparator<HardSoftScore> parScore = Comparator.nullsLast(Comparator.<HardSoftScore>reverseOrder());
+        jobs.sort(Comparator.comparing(job -> job.getMeilleureSolution() != null ? job.getMeilleureSolution().getScore() : null, parScore));
+        
+        Map<String, Object> comparaison = new HashMap<>();
+        comparaison.put("jobs", jobs.stream().map(this::toDTO).collect(Collectors.toList()));
+        comparaison.put("meilleur", jobs.isEmpty() || jobs.get(0).getMeilleureSolution() == null
+            ? null : jobs.get(0).getId().toString());
+        return comparaison;
+    }
+    
+    private AffectationJobDTO toDTO(AffectationJob job) {
+        AffectationJobDTO dto = new AffectationJobDTO();
+        dto.setProblemId(job.getId().toString());
+        dto.setMode(job.getMode());
+        dto.setStatut(job.getStatut().name());
+        dto.setDebut(job.getDebut());
+        dto.setFin(job.getFin());
+        dto.setDureeMs(Duration.between(job.getDebut(), job.getFin() != null ? job.getFin() : LocalDateTime.now()).toMillis());
+        dto.setRaisonArret(job.getRaisonArret());
+        dto.setPolitique(job.getPolitique().decrire());
+        dto.setSauvegarde(job.isSauvegarder());
+        
+        AffectationSolution solution = job.getMeilleureSolution();
+        if (solution != null && solution.getScore() != null) {
+            dto.setScore(solution.getScore().toString());
+            dto.setHardScore(solution.getScore().hardScore());
+            dto.setSoftScore(solution.getScore().softScore());
+            dto.setVoeuxPrioritairesNonSatisfaits(solution.compterVoeuxPrioritairesNonSatisfaits());
+        }
+        return dto;
     }
     
     /**
@@ -114,29 +639,90 @@ public class AffectationService {
     }
     
     /**
-     * Sauvegarde la solution en base de données
+     * Point de sauvegarde explicite : écrit en base la meilleure solution connue
+     * d'une résolution globale en cours, sans arrêter le solveur
+     */
+    public AffectationSolution sauvegarderPointDeControle(UUID problemId) {
+        AffectationJob job = getJob(problemId);
+        AffectationSolution solution = job.getMeilleureSolution();
+        if (!job.isActif() || !"GLOBAL".equals(job.getMode()) || !job.isSauvegarder() || solution == null) {
+            throw new IllegalStateException("Aucune résolution globale sauvegardée en cours : le point de sauvegarde n'est disponible qu'en mode global");
+        }
+        
+        log.info("📌 Point de sauvegarde - Score: {}", solution.getScore());
+        ecrireSolution(solution);
+        return solution;
+    }
+    
+    /**
+     * Sauvegarde la solution finale en base de données
      */
     @Transactional
     protected void sauvegarderSolution(AffectationSolution solution) {
         log.info("✅ Callback sauvegarderSolution appelé - Score: {}", solution.getScore());
         
-        // Mettre à jour la solution courante
-        this.lastSolution = solution;
+        ecrireSolution(solution);
+    }
+    
+    /**
+     * Remplace toutes les affectations par celles de la solution
+     */
+    private synchronized void ecrireSolution(AffectationSolution solution) {
+        // Déjà écrite par le dernier point de sauvegarde (aucune amélioration depuis)
+        if (solution == solutionSauvegardee) {
+            log.info("💾 Solution déjà sauvegardée au dernier point de sauvegarde");
+            return;
+        }
         
-        // Supprimer les anciennes affectations
-        long oldCount = affectationRepository.count();
-        affectationRepository.deleteAll();
-        log.info("🗑️  {} anciennes affectations supprimées", oldCount);
+        long debut = System.currentTimeMillis();
+        int[] lignes = affectationJdbcRepository.remplacerTout(solution.versAffectations());
+        log.info("💾 {} anciennes affectations remplacées par {} en {} ms",
+                 lignes[0], lignes[1], System.currentTimeMillis() - debut);
+        this.solutionSauvegardee = solution;
+    }
+    
+    /**
+     * Remplace les sessions et toutes les affectations par celles du plan conjoint
+     */
+    private synchronized void ecrirePlanConjoint(List<Session> sessions, AffectationSolution plan) {
+        sauvegardePlanConjointService.enregistrer(sessions, plan);
+        this.solutionSauvegardee = plan;
+    }
+    
+    /**
+     * Sauvegarde la sous-solution d'une demi-journée sans toucher aux autres
+     */
+    protected void sauvegarderSolutionPartielle(DemiJournee demiJournee, AffectationSolution solution) {
+        long debut = System.currentTimeMillis();
+        int[] lignes = affectationJdbcRepository.remplacerDemiJournee(demiJournee, solution.versAffectations());
+        log.info("💾 {} : {} anciennes affectations remplacées par {} en {} ms",
+                 demiJournee, lignes[0], lignes[1], System.currentTimeMillis() - debut);
+    }
+    
+    /**
+     * Sauvegarde uniquement les lignes modifiées par une réaffectation incrémentale
+     */
+    protected void sauvegarderModifications(AffectationSolution solution, List<Long> orphelines) {
+        log.info("✅ Réaffectation terminée - Score: {}", solution.getScore());
         
-        // Sauvegarder les nouvelles affectations
-        int saved = 0;
-        for (Affectation affectation : solution.getAffectations()) {
-            if (affectation.getAssignedSession() != null) {
-                affectationRepository.save(affectation);
-                saved++;
+        CorrespondanceEntites correspondance = solution.getCorrespondance();
+        List<Affectation> modifiees = new ArrayList<>();
+        List<Long> supprimees = new ArrayList<>(orphelines);
+        for (AffectationPlanifiee affectation : solution.getAffectations()) {
+            if (affectation.isEpingle() || affectation.getSessionIndex() == affectation.getSessionInitiale()) {
+                continue;
+            }
+            if (affectation.getSession() == null) {
+                supprimees.add(correspondance.getIdPersiste(affectation));
+            } else {
+                modifiees.add(correspondance.versEntite(affectation));
             }
         }
-        log.info("💾 {} nouvelles affectations sauvegardées", saved);
+        
+        long debut = System.currentTimeMillis();
+        affectationJdbcRepository.appliquerModifications(modifiees, supprimees);
+        log.info("💾 {} affectations écrites, {} supprimées sur {} en {} ms", 
+                 modifiees.size(), supprimees.size(), solution.getAffectations().size(), System.currentTimeMillis() - debut);
     }
     
     /**
@@ -177,8 +763,8 @@ public class AffectationService {
             // 3. Supprimer les tickets de la base
             ticketRepository.deleteAll();
             
-            // 4. Supprimer les affectations
-            affectationRepository.deleteAll();
+            // 4. Supprimer les affectations (DELETE ensembliste, sans charger les entités)
+            affectationRepository.deleteAllInBatch();
             
             log.info("🗑️  Suppression complète : {} affectations, {} tickets, {} PDFs", 
                      affectationCount, ticketCount, pdfCount);
@@ -0,0 +1,180 @@
+package com.fesup.service;
+
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.core.api.score.constraint.ConstraintMatchTotal;
+import ai.timefold.solver.core.api.solver.SolutionManager;
+import ai.timefold.solver.core.api.solver.SolutionUpdatePolicy;
+import com.fesup.dto.AnalyseSolutionDTO;
+import com.fesup.dto.ContrainteDTO;
+import com.fesup.dto.EleveIncompletDTO;
+import com.fesup.dto.RemplissageDTO;
+import com.fesup.entity.Eleve;
+import com.fesup.entity.Session;
+import com.fesup.solver.AffectationPlanifiee;
+import com.fesup.solver.AffectationSolution;
+import com.fesup.solver.CorrespondanceEntites;
+import com.fesup.solver.SessionPlanifiee;
+import com.fesup.solver.VoeuPlanifie;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Indicateurs de qualité d'une résolution terminée : vœux satisfaits par priorité,
+ * remplissage des sessions, salles et créneaux, élèves incomplets et détail des contraintes.
+ *
+ * Les indicateurs sont calculés en un passage sur les affectations et un sur les vœux,
+ * puis conservés sur le job : la solution d'un job terminé ne change plus, et l'analyse
+ * disparaît quand le registre oublie le job.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyseSolutionService {
+    
+    private final AffectationService affectationService;
+    private final SolutionManager<AffectationSolution, HardSoftScore> solutionManager;
+    
+    /**
+     * Analyse d'une résolution terminée (la plus récente si aucun ID n'est fourni)
+     */
+    public AnalyseSolutionDTO analyser(UUID problemId) {
+        AffectationJob job = affectationService.getJob(problemId);
+        if (job.isActif()) {
+            throw new IllegalStateException("Résolution en cours : l'analyse sera disponible à la fin");
+        }
+        AffectationSolution solution = affectationService.getResultats(job.getId());
+        // Conservée sur le job : oubliée avec lui par le registre
+        synchronized (job) {
+            if (job.getAnalyse() == null) {
+                job.conserverAnalyse(calculer(job.getId(), solution));
+            }
+            return job.getAnalyse();
+        }
+    }
+    
+    private AnalyseSolutionDTO calculer(UUID problemId, AffectationSolution solution) {
+        long debut = System.currentTimeMillis();
+        CorrespondanceEntites correspondance = solution.getCorrespondance();
+        List<Eleve> eleves = correspondance.getEleves();
+        List<Session> sessions = correspondance.getSessions();
+        
+        // 1. Passage sur les affectations : occupation des sessions, slots et slots vides, activités suivies
+        int[] occupation = new int[sessions.size()];
+        int[] slots = new int[eleves.size()];
+        int[] slotsVides = new int[eleves.size()];
+        int nbSlotsVides = 0;
+        Set<Long> activitesSuivies = new HashSet<>();
+        for (AffectationPlanifiee affectation : solution.getAffectations()) {
+            SessionPlanifiee session = affectation.getSession();
+            slots[affectation.getEleveIndex()]++;
+            if (session == null) {
+                slotsVides[affectation.getEleveIndex()]++;
+                nbSlotsVides++;
+            } else {
+                occupation[session.getIndex()]++;
+                activitesSuivies.add(cle(affectation.getEleveIndex(), session.getActivite().getIndex()));
+            }
+        }
+        
+        // 2. Passage sur les vœux : {vœux, satisfaits} par priorité
+        Map<Integer, int[]> voeuxParPriorite = new TreeMap<>();
+        for (VoeuPlanifie voeu : solution.getVoeux()) {
+            if (voeu.getEleveIndex() < 0) {
+                continue;
+            }
+            int[] compteurs = voeuxParPriorite.computeIfAbsent(voeu.getPriorite(), p -> new int[2]);
+            compteurs[0]++;
+            if (activitesSuivies.contains(cle(voeu.getEleveIndex(), voeu.getActiviteIndex()))) {
+                compteurs[1]++;
+            }
+        }
+        
+        AnalyseSolutionDTO analyse = new AnalyseSolutionDTO();
+        analyse.setProblemId(problemId.toString());
+        analyse.setScore(solution.getScore() != null ? solution.getScore().toString() : null);
+        analyse.setNbEleves(eleves.size());
+        analyse.setNbSlots(solution.getAffectations().size());
+        analyse.setNbSlotsVides(nbSlotsVides);
+        voeuxParPriorite.forEach((priorite, compteurs) ->
+            analyse.getPourcentageVoeuxSatisfaits().put(priorite, pourcentage(compteurs[1], compteurs[0])));
+        
+        // 3. Remplissage par session, puis cumulé par salle et par créneau
+        Map<Long, RemplissageDTO> parSalle = new LinkedHashMap<>();
+        Map<Long, RemplissageDTO> parCreneau = new LinkedHashMap<>();
+        for (SessionPlanifiee sessionPlanifiee : solution.getSessions()) {
+            Session session = sessions.get(sessionPlanifiee.getIndex());
+            int places = sessionPlanifiee.getCapaciteSalle();
+            int occupees = occupation[sessionPlanifiee.getIndex()];
+            analyse.getRemplissageSessions().add(new RemplissageDTO(session.getId(),
+                session.getActivite().getTitre() + " - " + session.getSalle().getNom() + " - " + session.getCreneau().getLibelle(),
+                places, occupees, pourcentage(occupees, places)));
+            cumuler(parSalle, session.getSalle().getId(), session.getSalle().getNom(), places, occupees);
+            cumuler(parCreneau, session.getCreneau().getId(), session.getCreneau().getLibelle(), places, occupees);
+        }
+        for (RemplissageDTO remplissage : parSalle.values()) {
+            remplissage.setTaux(pourcentage(remplissage.getOccupees(), remplissage.getPlaces()));
+            analyse.getRemplissageSalles().add(remplissage);
+        }
+        for (RemplissageDTO remplissage : parCreneau.values()) {
+            remplissage.setTaux(pourcentage(remplissage.getOccupees(), remplissage.getPlaces()));
+            analyse.getRemplissageCreneaux().add(remplissage);
+        }
+        
+        // 4. Élèves avec au moins un slot vide. Un élève sans aucun slot (pas de créneau dans sa
+        // demi-journée) est entièrement vide : autant de slots vides qu'un élève le mieux pourvu
+        int slotsParEleve = 0;
+        for (int nbSlots : slots) {
+            slotsParEleve = Math.max(slotsParEleve, nbSlots);
+        }
+        for (int i = 0; i < slotsVides.length; i++) {
+            int vides = slots[i] == 0 ? slotsParEleve : slotsVides[i];
+            if (vides > 0) {
+                Eleve eleve = eleves.get(i);
+                analyse.getElevesIncomplets().add(new EleveIncompletDTO(eleve.getId(), eleve.getNom(), eleve.getPrenom(),
+                    eleve.getDemiJournee() != null ? eleve.getDemiJournee().name() : null, vides));
+            }
+        }
+        
+        // 5. Détail des contraintes, sans modifier la solution du job.
+        // explain() plutôt que analyze() : ce dernier refuse les solutions avec des slots vides
+        List<ContrainteDTO> contraintes = new ArrayList<>();
+        for (ConstraintMatchTotal<HardSoftScore> total : solutionManager.explain(solution, SolutionUpdatePolicy.NO_UPDATE)
+                .getConstraintMatchTotalMap().values()) {
+            contraintes.add(new ContrainteDTO(total.getConstraintRef().constraintName(), total.getScore().toString(),
+                                              total.getConstraintMatchCount()));
+        }
+        contraintes.sort(Comparator.comparing(ContrainteDTO::getNom));
+        analyse.setContraintes(contraintes);
+        
+        analyse.setDureeCalculMs(System.currentTimeMillis() - debut);
+        log.info("📈 Analyse de la résolution {} calculée en {} ms ({} slots, {} vides)",
+                 problemId, analyse.getDureeCalculMs(), analyse.getNbSlots(), nbSlotsVides);
+        return analyse;
+    }
+    
+    private static void cumuler(Map<Long, RemplissageDTO> remplissages, Long id, String libelle, int places, int occupees) {
+        RemplissageDTO remplissage = remplissages.computeIfAbsent(id, cle -> new RemplissageDTO(id, libelle, 0, 0, 0));
+        remplissage.setPlaces(remplissage.getPlaces() + places);
+        remplissage.setOccupees(remplissage.getOccupees() + occupees);
+    }
+    
+    // Pourcentage arrondi au dixième
+    private static double pourcentage(int valeur, int total) {
+        return total > 0 ? Math.round(valeur * 1000.0 / total) / 10.0 : 0;
+    }
+    
+    private static long cle(int eleveIndex, int activiteIndex) {
+        return ((long) eleveIndex << 32) | (activiteIndex & 0xFFFFFFFFL);
+    }
+}
@@ -1,20 +1,33 @@
 package com.fesup.service;
 
+import com.fesup.dto.TicketARegenererDTO;
 import com.fesup.entity.*;
 import com.fesup.enums.StatutTicket;
 import com.fesup.repository.*;
+import com.fesup.repository.TicketJdbcRepository.TicketGenere;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
@@ -26,54 +39,177 @@ public class BatchPdfService {
     private final TicketRepository ticketRepository;
     private final PdfGenerationService pdfGenerationService;
     private final TicketStorageService storageService;
+    private final TicketJdbcRepository ticketJdbcRepository;
+    
+    @Autowired
+    @Qualifier("pdfExecutor")
+    private Executor pdfExecutor;
+    
+    // Tickets enregistrés par transaction
+    @Value("${application.tickets.generation.batch-size:200}")
+    private int tailleLot;
     
     /**
-     * Génère tous les tickets en lot (asynchrone)
+     * Génère les tickets en lot, en pipeline (voir GenerationTicketsService pour le suivi) :
+     * 1. affectations et sessions chargées en une requête, groupées par élève ;
+     * 2. PDF rendus et écrits sur disque en parallèle par pdfExecutor ;
+     * 3. tickets enregistrés par lots JDBC pendant que les workers continuent.
+     * Aucune transaction ne reste ouverte pendant le rendu. Les tickets dont l'empreinte
+     * n'a pas changé depuis leur génération, et dont le fichier existe, ne sont pas rendus.
+     *
+     * @param eleveIds élèves à traiter, null pour tous
+     * @param forcer régénère aussi les tickets à jour
+     * @param annulation vérifiée avant chaque élève : les tickets déjà soumis sont terminés et enregistrés
+     * @param progression appelé après chaque lot enregistré
      */
-    @Async("taskExecutor")
-    @Transactional
-    public CompletableFuture<BatchResult> genererTousLesTickets() {
+    public BatchResult generer(Set<Long> eleveIds, boolean forcer, BooleanSupplier annulation,
+                              Consumer<BatchResult> progression) {
         log.info("🚀 Début de la génération batch des tickets...");
         
         long startTime = System.currentTimeMillis();
         BatchResult result = new BatchResult();
         
-        // Récupérer tous les élèves ayant des affectations
-        List<Eleve> eleves = eleveRepository.findAll();
-        result.setTotalEleves(eleves.size());
+        // 1. Affectations des élèves, avec lycée, ticket, activité, salle et créneau
+        Map<Long, List<Affectation>> affectationsParEleve = chargerAffectationsParEleve(eleveIds);
+        result.setTotalEleves(eleveIds == null ? (int) eleveRepository.count() : eleveIds.size());
+        result.setSansAffectation(result.getTotalEleves() - affectationsParEleve.size());
+        log.info("📋 {} élèves avec affectations chargés en {} ms",
+                 affectationsParEleve.size(), System.currentTimeMillis() - startTime);
         
-        for (Eleve eleve : eleves) {
-            try {
-                genererTicketPourEleve(eleve);
-                result.incrementSucces();
-                
-                if (result.getSucces() % 50 == 0) {
-                    log.info("📊 Progression : {}/{} tickets générés", result.getSucces(), result.getTotalEleves());
-                }
-                
-            } catch (Exception e) {
-                log.error("❌ Erreur génération ticket pour élève {}: {}", eleve.getId(), e.getMessage(), e);
-                result.incrementErreurs();
-                result.addErreur(eleve.getId(), e.getMessage());
+        // 2. Rendu et écriture en parallèle ; les tickets rendus s'accumulent dans la file
+        BlockingQueue<Rendu> rendus = new LinkedBlockingQueue<>();
+        List<CompletableFuture<Void>> taches = new ArrayList<>(affectationsParEleve.size());
+        for (List<Affectation> affectations : affectationsParEleve.values()) {
+            if (annulation.getAsBoolean()) {
+                log.info("⛔ Génération annulée après {} élèves soumis", taches.size());
+                break;
+            }
+            Eleve eleve = affectations.get(0).getEleve();
+            String empreinte = pdfGenerationService.calculerEmpreinte(eleve, affectations);
+            if (!forcer && raisonRegeneration(eleve, empreinte) == null) {
+                result.incrementInchanges();
+                continue;
             }
+            taches.add(CompletableFuture.runAsync(() -> rendus.add(rendre(affectations, empreinte)), pdfExecutor));
+            // 3. Enregistrement d'un lot dès qu'il est complet
+            enregistrer(rendus, result, false, progression);
         }
+        CompletableFuture.allOf(taches.toArray(CompletableFuture[]::new)).join();
+        enregistrer(rendus, result, true, progression);
         
         long duration = System.currentTimeMillis() - startTime;
         result.setDureeMs(duration);
+        result.setTicketsParSeconde(result.getSucces() * 1000.0 / Math.max(1, duration));
         
-        log.info("✅ Génération batch terminée : {} succès, {} erreurs en {} ms",
-                 result.getSucces(), result.getErreurs(), duration);
+        log.info("✅ Génération batch terminée : {} succès, {} inchangés, {} erreurs, {} élèves sans affectation en {} ms ({} tickets/s)",
+                 result.getSucces(), result.getInchanges(), result.getErreurs(), result.getSansAffectation(), duration,
+                 String.format("%.1f", result.getTicketsParSeconde()));
         
-        return CompletableFuture.completedFuture(result);
+        return result;
+    }
+    
+    /**
+     * Élèves dont le ticket est absent ou ne correspond plus à leur planning
+     */
+    public List<TicketARegenererDTO> ticketsARegenerer() {
+        List<TicketARegenererDTO> aRegenerer = new ArrayList<>();
+        for (List<Affectation> affectations : chargerAffectationsParEleve(null).values()) {
+            Eleve eleve = affectations.get(0).getEleve();
+            String raison = raisonRegeneration(eleve, pdfGenerationService.calculerEmpreinte(eleve, affectations));
+            if (raison != null) {
+                aRegenerer.add(new TicketARegenererDTO(eleve.getId(), eleve.getNom(), eleve.getPrenom(),
+                                                       eleve.getLycee().getNom(), raison));
+            }
+        }
+        return aRegenerer;
+    }
+    
+    private Map<Long, List<Affectation>> chargerAffectationsParEleve(Set<Long> eleveIds) {
+        List<Affectation> toutes = eleveIds == null
+            ? affectationRepository.findAllWithSession()
+            : affectationRepository.findAllWithSessionByEleveIdIn(eleveIds);
+        Map<Long, List<Affectation>> affectationsParEleve = new LinkedHashMap<>();
+        for (Affectation affectation : toutes) {
+            affectationsParEleve.computeIfAbsent(affectation.getEleve().getId(), id -> new ArrayList<>()).add(affectation);
+        }
+        return affectationsParEleve;
+    }
+    
+    /**
+     * Raison de régénérer le ticket de l'élève, null s'il est à jour
+     */
+    private String raisonRegeneration(Eleve eleve, String empreinte) {
+        Ticket ticket = eleve.getTicket();
+        if (ticket == null) {
+            return "Ticket absent";
+        }
+        if (ticket.getStatut() != StatutTicket.GENERE) {
+            return "Ticket au statut " + ticket.getStatut();
+        }
+        if (!empreinte.equals(ticket.getEmpreinte())) {
+            return "Planning modifié";
+        }
+        if (!storageService.existe(ticket.getCheminFichier())) {
+            return "Fichier PDF absent";
+        }
+        return null;
     }
     
     /**
-     * Génère le ticket pour un élève spécifique
+     * Rend et écrit le ticket d'un élève ; le PDF ne reste en mémoire que le temps de l'écriture
+     */
+    private Rendu rendre(List<Affectation> affectations, String empreinte) {
+        Eleve eleve = affectations.get(0).getEleve();
+        try {
+            byte[] pdfData = pdfGenerationService.genererTicketEleve(eleve, affectations);
+            String cheminFichier = storageService.sauvegarderPdf(eleve.getId(), pdfData);
+            return new Rendu(eleve.getId(), new TicketGenere(eleve.getId(), cheminFichier, pdfData.length,
+                                                         LocalDateTime.now(), empreinte), null);
+        } catch (Exception e) {
+            log.error("❌ Erreur génération ticket pour élève {}: {}", eleve.getId(), e.getMessage(), e);
+            return new Rendu(eleve.getId(), null, e.getMessage());
+        }
+    }
+    
+    /**
+     * Enregistre les tickets rendus par lots de tailleLot (tous les restants si tout est vrai)
+     */
+    private void enregistrer(BlockingQueue<Rendu> rendus, BatchResult result, boolean tout, Consumer<BatchResult> progression) {
+        while (rendus.size() >= tailleLot || (tout && !rendus.isEmpty())) {
+            List<Rendu> lot = new ArrayList<>(tailleLot);
+            rendus.drainTo(lot, tailleLot);
+            
+            List<TicketGenere> tickets = new ArrayList<>(lot.size());
+            for (Rendu rendu : lot) {
+                if (rendu.ticket() != null) {
+                    tickets.add(rendu.ticket());
+                } else {
+                    result.incrementErreurs();
+                    result.addErreur(rendu.eleveId(), rendu.erreur());
+                }
+            }
+            try {
+                ticketJdbcRepository.enregistrer(tickets);
+                result.setSucces(result.getSucces() + tickets.size());
+            } catch (DataAccessException e) {
+                log.error("❌ Erreur enregistrement de {} tickets : {}", tickets.size(), e.getMessage());
+                for (TicketGenere ticket : tickets) {
+                    result.incrementErreurs();
+                    result.addErreur(ticket.eleveId(), e.getMessage());
+                }
+            }
+            log.info("📊 Progression : {}/{} tickets générés", result.getSucces(), result.getTotalEleves());
+            progression.accept(result);
+        }
+    }
+    
+    /**
+     * Génère le ticket pour un élève spécifique (affectations, lycée et ticket existant en une requête)
      */
     @Transactional
     public Ticket genererTicketPourEleve(Eleve eleve) throws Exception {
         // 1. Récupérer les affectations
-        List<Affectation> affectations = affectationRepository.findByEleveAndAssignedSessionIsNotNull(eleve);
+        List<Affectation> affectations = affectationRepository.findAllWithSessionByEleveIdIn(List.of(eleve.getId()));
         
         if (affectations.isEmpty()) {
             throw new IllegalStateException("Aucune affectation pour cet élève");
@@ -86,23 +222,31 @@ public class BatchPdfService {
         String cheminFichier = storageService.sauvegarderPdf(eleve.getId(), pdfData);
         
         // 4. Enregistrer ou mettre à jour en BDD
-        Ticket ticket = ticketRepository.findByEleve(eleve).orElse(new Ticket());
+        Ticket existant = affectations.get(0).getEleve().getTicket();
+        Ticket ticket = existant != null ? existant : new Ticket();
         
         ticket.setEleve(eleve);
         ticket.setCheminFichier(cheminFichier);
         ticket.setDateGeneration(LocalDateTime.now());
         ticket.setTailleFichier((long) pdfData.length);
         ticket.setStatut(StatutTicket.GENERE);
+        ticket.setEmpreinte(pdfGenerationService.calculerEmpreinte(eleve, affectations));
         
         return ticketRepository.save(ticket);
     }
     
+    private record Rendu(Long eleveId, TicketGenere ticket, String erreur) {
+    }
+    
     @Data
     public static class BatchResult {
         private int totalEleves;
         private int succes;
         private int erreurs;
+        private int inchanges;
+        private int sansAffectation;
         private long dureeMs;
+        private double ticketsParSeconde;
         private Map<Long, String> erreursDetails = new HashMap<>();
         
         public void incrementSucces() { 
@@ -113,6 +257,10 @@ public class BatchPdfService {
             erreurs++; 
         }
         
+        public void incrementInchanges() {
+            inchanges++;
+        }
+        
         public void addErreur(Long eleveId, String message) {
             erreursDetails.put(eleveId, message);
         }
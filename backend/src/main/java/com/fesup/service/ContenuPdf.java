@@ -0,0 +1,150 @@
+package com.fesup.service;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Flux de contenu d'une page PDF, écrit directement en octets dans un tampon dimensionné
+ * à l'avance. Mêmes opérations que PDPageContentStream pour le texte et les tracés simples ;
+ * les polices sont désignées par leur nom de ressource dans le modèle (voir ModeleTicket).
+ *
+ * Le texte est encodé en WinAnsiEncoding, l'encodage des polices standard 14 : un caractère
+ * hors de cet encodage est remplacé par '?' (PDFBox levait une exception).
+ */
+final class ContenuPdf {
+    
+    // Octet WinAnsi de chaque caractère, '?' s'il n'en a pas
+    private static final byte[] WIN_ANSI = new byte[Character.MAX_VALUE + 1];
+    
+    static {
+        Arrays.fill(WIN_ANSI, (byte) '?');
+        for (int c = 0x20; c < 0x7F; c++) {
+            WIN_ANSI[c] = (byte) c;
+        }
+        Charset windows1252 = Charset.forName("windows-1252");
+        for (int b = 0x80; b <= 0xFF; b++) {
+            char c = windows1252.decode(ByteBuffer.wrap(new byte[] {(byte) b})).get();
+            if (c != '\uFFFD') {
+                WIN_ANSI[c] = (byte) b;
+            }
+        }
+        // Caractères de contrôle (retours à la ligne d'un import CSV...) : espace
+        for (int c = 0; c < 0x20; c++) {
+            WIN_ANSI[c] = ' ';
+        }
+    }
+    
+    private byte[] octets;
+    private int taille;
+    
+    ContenuPdf(int capacite) {
+        this.octets = new byte[capacite];
+    }
+    
+    ContenuPdf beginText() {
+        return ascii("BT\n");
+    }
+    
+    ContenuPdf endText() {
+        return ascii("ET\n");
+    }
+    
+    ContenuPdf setFont(String police, float tailleFonte) {
+        return ascii("/").ascii(police).ascii(" ").nombre(tailleFonte).ascii(" Tf\n");
+    }
+    
+    ContenuPdf newLineAtOffset(float x, float y) {
+        return nombre(x).ascii(" ").nombre(y).ascii(" Td\n");
+    }
+    
+    ContenuPdf showText(String texte) {
+        reserver(texte.length() * 2 + 6);
+        octets[taille++] = '(';
+        for (int i = 0; i < texte.length(); i++) {
+            byte b = WIN_ANSI[texte.charAt(i)];
+            if (b == '(' || b == ')' || b == '\\') {
+                octets[taille++] = '\\';
+            }
+            octets[taille++] = b;
+        }
+        return ascii(") Tj\n");
+    }
+    
+    ContenuPdf setNonStrokingColor(float r, float g, float b) {
+        return nombre(r).ascii(" ").nombre(g).ascii(" ").nombre(b).ascii(" rg\n");
+    }
+    
+    ContenuPdf addRect(float x, float y, float largeur, float hauteur) {
+        return nombre(x).ascii(" ").nombre(y).ascii(" ").nombre(largeur).ascii(" ").nombre(hauteur).ascii(" re\n");
+    }
+    
+    ContenuPdf fill() {
+        return ascii("f\n");
+    }
+    
+    ContenuPdf setLineWidth(float largeur) {
+        return nombre(largeur).ascii(" w\n");
+    }
+    
+    ContenuPdf moveTo(float x, float y) {
+        return nombre(x).ascii(" ").nombre(y).ascii(" m\n");
+    }
+    
+    ContenuPdf lineTo(float x, float y) {
+        return nombre(x).ascii(" ").nombre(y).ascii(" l\n");
+    }
+    
+    ContenuPdf stroke() {
+        return ascii("S\n");
+    }
+    
+    /**
+     * Dessine un form XObject du modèle, dans son propre état graphique
+     */
+    ContenuPdf drawForm(String formulaire) {
+        return ascii("q /").ascii(formulaire).ascii(" Do Q\n");
+    }
+    
+    int taille() {
+        return taille;
+    }
+    
+    byte[] octets() {
+        return octets;
+    }
+    
+    /**
+     * Nombre au format PDF : entier si possible, sinon décimal à point
+     */
+    private ContenuPdf nombre(float valeur) {
+        if (valeur == (int) valeur) {
+            return ascii(Integer.toString((int) valeur));
+        }
+        return ascii(Float.toString(valeur));
+    }
+    
+    private ContenuPdf ascii(String texte) {
+        reserver(texte.length());
+        for (int i = 0; i < texte.length(); i++) {
+            octets[taille++] = (byte) texte.charAt(i);
+        }
+        return this;
+    }
+    
+    private void reserver(int n) {
+        if (taille + n > octets.length) {
+            octets = Arrays.copyOf(octets, Math.max(octets.length * 2, taille + n));
+        }
+    }
+    
+    /**
+     * Octets d'une chaîne ASCII (opérateurs, dictionnaires PDF)
+     */
+    static byte[] ascii(CharSequence texte) {
+        ByteBuffer octets = StandardCharsets.US_ASCII.encode(CharBuffer.wrap(texte));
+        return Arrays.copyOf(octets.array(), octets.limit());
+    }
+}
@@ -0,0 +1,220 @@
+package com.fesup.service;
+
+import com.fesup.dto.GenerationTicketsDTO;
+import com.fesup.entity.GenerationTickets;
+import com.fesup.enums.StatutGenerationTickets;
+import com.fesup.exception.BusinessException;
+import com.fesup.exception.ResourceNotFoundException;
+import com.fesup.repository.GenerationTicketsRepository;
+import com.fesup.service.BatchPdfService.BatchResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Suivi des générations de tickets en lot.
+ *
+ * Une seule génération tourne à la fois : deux lancements simultanés écriraient les mêmes
+ * fichiers. L'avancement et les erreurs par élève sont enregistrés en base après chaque lot ;
+ * une génération terminée peut être relancée sur ses seuls élèves en erreur.
+ */
+@Service
+@Slf4j
+public class GenerationTicketsService {
+    
+    private static final int LONGUEUR_MAX_MESSAGE = 1000;
+    
+    private final BatchPdfService batchPdfService;
+    private final GenerationTicketsRepository generationTicketsRepository;
+    private final Executor taskExecutor;
+    
+    // Demandes d'annulation des générations en cours dans cette instance
+    private final Map<Long, AtomicBoolean> annulations = new ConcurrentHashMap<>();
+    
+    public GenerationTicketsService(BatchPdfService batchPdfService,
+                                    GenerationTicketsRepository generationTicketsRepository,
+                                    @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.batchPdfService = batchPdfService;
+        this.generationTicketsRepository = generationTicketsRepository;
+        this.taskExecutor = taskExecutor;
+    }
+    
+    /**
+     * Une génération restée EN_COURS au démarrage a été interrompue par l'arrêt de l'application
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cloreGenerationsInterrompues() {
+        List<GenerationTickets> interrompues = generationTicketsRepository.findByStatut(StatutGenerationTickets.EN_COURS);
+        for (GenerationTickets generation : interrompues) {
+            generation.setStatut(StatutGenerationTickets.ECHEC);
+            generation.setFin(LocalDateTime.now());
+            generation.setMessage("Interrompue par un redémarrage de l'application");
+        }
+        if (!interrompues.isEmpty()) {
+            generationTicketsRepository.saveAll(interrompues);
+            log.warn("⚠️  {} génération(s) de tickets interrompue(s) marquée(s) en échec", interrompues.size());
+        }
+    }
+    
+    /**
+     * Lance la génération des tickets de tous les élèves
+     *
+     * @param forcer régénère aussi les tickets dont le planning n'a pas changé
+     */
+    public synchronized GenerationTicketsDTO lancer(boolean forcer) {
+        return demarrer(null, null, forcer);
+    }
+    
+    /**
+     * Relance la génération pour les seuls élèves en erreur d'une génération terminée
+     */
+    public synchronized GenerationTicketsDTO reprendreErreurs(Long id) {
+        GenerationTickets origine = getGeneration(id);
+        if (origine.getStatut() == StatutGenerationTickets.EN_COURS) {
+            throw new BusinessException("La génération n°" + id + " est encore en cours");
+        }
+        if (origine.getErreursDetails().isEmpty()) {
+            throw new BusinessException("Aucun élève en erreur dans la génération n°" + id);
+        }
+        return demarrer(origine.getId(), new HashSet<>(origine.getErreursDetails().keySet()), true);
+    }
+    
+    /**
+     * Demande l'arrêt d'une génération : les tickets déjà soumis sont terminés et enregistrés
+     */
+    public GenerationTicketsDTO annuler(Long id) {
+        GenerationTickets generation = getGeneration(id);
+        AtomicBoolean annulation = annulations.get(id);
+        if (generation.getStatut() != StatutGenerationTickets.EN_COURS || annulation == null) {
+            throw new BusinessException("La génération n°" + id + " n'est pas en cours (statut : " + generation.getStatut() + ")");
+        }
+        annulation.set(true);
+        log.info("⛔ Annulation demandée pour la génération de tickets n°{}", id);
+        return toDTO(generation);
+    }
+    
+    public GenerationTicketsDTO get(Long id) {
+        return toDTO(getGeneration(id));
+    }
+    
+    /**
+     * Générations de la plus récente à la plus ancienne
+     */
+    public List<GenerationTicketsDTO> lister() {
+        return generationTicketsRepository.findAllByOrderByDebutDesc().stream().map(this::toDTO).toList();
+    }
+    
+    private GenerationTicketsDTO demarrer(Long origineId, Set<Long> eleveIds, boolean forcer) {
+        if (generationTicketsRepository.existsByStatut(StatutGenerationTickets.EN_COURS)) {
+            throw new BusinessException("Une génération de tickets est déjà en cours");
+        }
+        GenerationTickets generation = new GenerationTickets();
+        generation.setStatut(StatutGenerationTickets.EN_COURS);
+        generation.setOrigineId(origineId);
+        generation.setDebut(LocalDateTime.now());
+        generation.setTotalEleves(eleveIds != null ? eleveIds.size() : 0);
+        generationTicketsRepository.save(generation);
+        
+        AtomicBoolean annulation = new AtomicBoolean();
+        annulations.put(generation.getId(), annulation);
+        try {
+            CompletableFuture.runAsync(() -> executer(generation, eleveIds, forcer, annulation), taskExecutor);
+        } catch (RejectedExecutionException e) {
+            annulations.remove(generation.getId());
+            generation.setMessage("File d'attente pleine, réessayez plus tard");
+            clore(generation, StatutGenerationTickets.ECHEC);
+        }
+        log.info("🎯 Génération de tickets n°{} lancée ({})", generation.getId(),
+                 eleveIds == null ? "tous les élèves" : eleveIds.size() + " élèves en erreur de la n°" + origineId);
+        return toDTO(generation);
+    }
+    
+    private void executer(GenerationTickets generation, Set<Long> eleveIds, boolean forcer, AtomicBoolean annulation) {
+        try {
+            BatchResult result = batchPdfService.generer(eleveIds, forcer, annulation::get, progression -> {
+                copier(progression, generation);
+                generationTicketsRepository.save(generation);
+            });
+            copier(result, generation);
+            clore(generation, annulation.get() ? StatutGenerationTickets.ANNULE : StatutGenerationTickets.TERMINE);
+        } catch (Exception e) {
+            log.error("❌ Génération de tickets n°{} en échec : {}", generation.getId(), e.getMessage(), e);
+            generation.setMessage(tronquer(e.getMessage()));
+            clore(generation, StatutGenerationTickets.ECHEC);
+        } finally {
+            annulations.remove(generation.getId());
+        }
+    }
+    
+    private void copier(BatchResult result, GenerationTickets generation) {
+        generation.setTotalEleves(result.getTotalEleves());
+        generation.setSansAffectation(result.getSansAffectation());
+        generation.setSucces(result.getSucces());
+        generation.setErreurs(result.getErreurs());
+        generation.setInchanges(result.getInchanges());
+        // Débit final calculé par BatchPdfService, sinon débit depuis le lancement
+        generation.setTicketsParSeconde(result.getDureeMs() > 0 ? result.getTicketsParSeconde()
+            : result.getSucces() * 1000.0 / Math.max(1, Duration.between(generation.getDebut(), LocalDateTime.now()).toMillis()));
+        Map<Long, String> erreurs = new HashMap<>();
+        result.getErreursDetails().forEach((eleveId, message) -> erreurs.put(eleveId, tronquer(message)));
+        generation.setErreursDetails(erreurs);
+    }
+    
+    private void clore(GenerationTickets generation, StatutGenerationTickets statut) {
+        generation.setStatut(statut);
+        generation.setFin(LocalDateTime.now());
+        generationTicketsRepository.save(generation);
+        log.info("✅ Génération de tickets n°{} {} : {} succès, {} erreurs", generation.getId(), statut,
+                 generation.getSucces(), generation.getErreurs());
+    }
+    
+    private GenerationTickets getGeneration(Long id) {
+        return generationTicketsRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Génération de tickets introuvable : " + id));
+    }
+    
+    private static String tronquer(String message) {
+        if (message == null) {
+            return "Erreur inconnue";
+        }
+        return message.length() > LONGUEUR_MAX_MESSAGE ? message.substring(0, LONGUEUR_MAX_MESSAGE) : message;
+    }
+    
+    private GenerationTicketsDTO toDTO(GenerationTickets generation) {
+        int aGenerer = generation.getTotalEleves() - generation.getSansAffectation();
+        int traites = generation.getSucces() + generation.getErreurs() + generation.getInchanges();
+        double pourcentage = generation.getStatut() == StatutGenerationTickets.TERMINE ? 100.0
+            : aGenerer > 0 ? Math.min(100.0, traites * 100.0 / aGenerer) : 0.0;
+        return new GenerationTicketsDTO(
+            generation.getId(),
+            generation.getStatut().name(),
+            generation.getOrigineId(),
+            generation.getDebut(),
+            generation.getFin(),
+            generation.getTotalEleves(),
+            generation.getSansAffectation(),
+            generation.getSucces(),
+            generation.getErreurs(),
+            generation.getInchanges(),
+            Math.round(pourcentage * 10) / 10.0,
+            generation.getTicketsParSeconde(),
+            generation.getMessage(),
+            generation.getErreursDetails()
+        );
+    }
+}
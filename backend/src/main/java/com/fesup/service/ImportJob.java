@@ -0,0 +1,123 @@
+package com.fesup.service;
+
+import com.fesup.dto.ImportReportDTO;
+import com.fesup.enums.StatutImport;
+import com.fesup.enums.TypeImport;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+/**
+ * Un import CSV exécuté en tâche de fond.
+ *
+ * Le rapport est figé à chaque point de contrôle (fin d'un lot écrit) : c'est lui qui est
+ * exposé pendant l'import et d'où repart une reprise après échec. Le fichier reçu est
+ * conservé jusqu'à la fin de l'import pour permettre cette reprise, ou jusqu'à l'expiration
+ * d'un import en échec.
+ */
+@Getter
+public class ImportJob {
+    
+    private final String id;
+    private final TypeImport type;
+    private final String nomFichier;
+    private final Path fichier;
+    private final int lignesEstimees;
+    private final LocalDateTime creation = LocalDateTime.now();
+    
+    private volatile StatutImport statut = StatutImport.EN_ATTENTE;
+    private volatile LocalDateTime debut;
+    private volatile LocalDateTime fin;
+    private volatile String erreur;
+    private volatile int tentatives;
+    private volatile ImportReportDTO pointDeControle = new ImportReportDTO();
+    // Lignes déjà traitées au démarrage de la tentative en cours (débit propre à la tentative)
+    private volatile int lignesAuDemarrage;
+    private boolean expire;
+    
+    public ImportJob(String id, TypeImport type, String nomFichier, Path fichier, int lignesEstimees) {
+        this.id = id;
+        this.type = type;
+        this.nomFichier = nomFichier;
+        this.fichier = fichier;
+        this.lignesEstimees = lignesEstimees;
+    }
+    
+    /**
+     * Début d'une tentative : renvoie une copie du dernier point de contrôle, d'où repart l'import
+     */
+    public synchronized ImportReportDTO demarrer() {
+        this.statut = StatutImport.EN_COURS;
+        this.debut = LocalDateTime.now();
+        this.fin = null;
+        this.erreur = null;
+        this.tentatives++;
+        this.lignesAuDemarrage = pointDeControle.getTotalLines();
+        return copier(pointDeControle);
+    }
+    
+    /**
+     * Passe un import en échec en attente de reprise ; false s'il n'est pas en échec
+     */
+    public synchronized boolean planifierReprise() {
+        if (statut != StatutImport.ECHEC || expire) {
+            return false;
+        }
+        this.statut = StatutImport.EN_ATTENTE;
+        return true;
+    }
+    
+    /**
+     * Marque comme expiré un import terminé ou en échec avant la limite ; il ne peut plus être repris
+     */
+    public synchronized boolean expirer(LocalDateTime limite) {
+        if (isActif() || fin == null || fin.isAfter(limite)) {
+            return false;
+        }
+        this.expire = true;
+        return true;
+    }
+    
+    public void enregistrerPointDeControle(ImportReportDTO report) {
+        this.pointDeControle = copier(report);
+    }
+    
+    public void terminer(ImportReportDTO report) {
+        this.pointDeControle = copier(report);
+        this.fin = LocalDateTime.now();
+        this.statut = StatutImport.TERMINE;
+    }
+    
+    public void echouer(Throwable throwable) {
+        this.erreur = throwable.getMessage();
+        this.fin = LocalDateTime.now();
+        this.statut = StatutImport.ECHEC;
+    }
+    
+    public boolean isActif() {
+        return statut == StatutImport.EN_ATTENTE || statut == StatutImport.EN_COURS;
+    }
+    
+    public double getPourcentage() {
+        if (statut == StatutImport.TERMINE) {
+            return 100;
+        }
+        return lignesEstimees > 0 ? Math.min(100, Math.round(pointDeControle.getTotalLines() * 1000.0 / lignesEstimees) / 10.0) : 0;
+    }
+    
+    public double getLignesParSeconde() {
+        if (debut == null) {
+            return 0;
+        }
+        long ms = Duration.between(debut, fin != null ? fin : LocalDateTime.now()).toMillis();
+        return ms > 0 ? Math.round((pointDeControle.getTotalLines() - lignesAuDemarrage) * 10000.0 / ms) / 10.0 : 0;
+    }
+    
+    private static ImportReportDTO copier(ImportReportDTO report) {
+        return new ImportReportDTO(report.getTotalLines(), report.getSuccessCount(), report.getErrorCount(),
+                                   new ArrayList<>(report.getErrors()));
+    }
+}
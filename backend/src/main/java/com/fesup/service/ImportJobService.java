@@ -0,0 +1,223 @@
+package com.fesup.service;
+
+import com.fesup.dto.ImportJobDTO;
+import com.fesup.dto.ImportReportDTO;
+import com.fesup.enums.TypeImport;
+import com.fesup.exception.BusinessException;
+import com.fesup.exception.ResourceNotFoundException;
+import com.fesup.exception.ValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * Imports CSV en tâche de fond sur l'executor dédié aux imports.
+ *
+ * Le fichier reçu est copié dans le dossier de travail avant que la requête HTTP ne se
+ * termine, puis importé par lots (voir AdminImportService). Un import en échec garde ses
+ * lots écrits et son fichier : il peut être repris au dernier point de contrôle.
+ *
+ * Les imports terminés ou en échec sont oubliés après la durée de conservation, avec le
+ * fichier d'un import en échec. Les fichiers laissés par une exécution précédente de
+ * l'application, dont les imports ne peuvent plus être repris, sont supprimés au démarrage.
+ */
+@Service
+@Slf4j
+public class ImportJobService {
+    
+    private final AdminImportService adminImportService;
+    private final Executor importExecutor;
+    private final Path dossierTravail;
+    private final Duration conservation;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    
+    public ImportJobService(AdminImportService adminImportService,
+                            @Qualifier("importExecutor") Executor importExecutor,
+                            @Value("${application.import.working-dir:${java.io.tmpdir}/fesup-imports}") String dossierTravail,
+                            @Value("${application.import.jobs-retention:24h}") Duration conservation) {
+        this.adminImportService = adminImportService;
+        this.importExecutor = importExecutor;
+        this.dossierTravail = Path.of(dossierTravail);
+        this.conservation = conservation;
+        supprimerFichiersOrphelins();
+    }
+    
+    /**
+     * Enregistre le fichier reçu et lance son import en tâche de fond
+     */
+    public ImportJobDTO lancer(TypeImport type, MultipartFile file) {
+        if (file.isEmpty()) {
+            throw new ValidationException("Le fichier CSV est vide");
+        }
+        String id = UUID.randomUUID().toString();
+        Path fichier = dossierTravail.resolve(id + ".csv");
+        ImportJob job;
+        try {
+            Files.createDirectories(dossierTravail);
+            file.transferTo(fichier);
+            job = new ImportJob(id, type, file.getOriginalFilename(), fichier, compterLignes(fichier));
+        } catch (IOException e) {
+            throw new BusinessException("Impossible d'enregistrer le fichier reçu : " + e.getMessage());
+        }
+        oublierAnciensJobs();
+        jobs.put(id, job);
+        log.info("📥 Import {} {} enregistré ({}, ~{} lignes)", type, id, job.getNomFichier(), job.getLignesEstimees());
+        soumettre(job);
+        return toDTO(job);
+    }
+    
+    /**
+     * Relance un import en échec à partir de son dernier point de contrôle
+     */
+    public ImportJobDTO reprendre(String id) {
+        ImportJob job = getJob(id);
+        if (!job.planifierReprise()) {
+            throw new BusinessException("Seul un import en échec peut être repris (statut : " + job.getStatut() + ")");
+        }
+        log.info("🔁 Reprise de l'import {} à la ligne {}", id, job.getPointDeControle().getTotalLines() + 2);
+        soumettre(job);
+        return toDTO(job);
+    }
+    
+    public ImportJobDTO get(String id) {
+        return toDTO(getJob(id));
+    }
+    
+    /**
+     * Imports du plus récent au plus ancien
+     */
+    public List<ImportJobDTO> lister() {
+        oublierAnciensJobs();
+        return jobs.values().stream()
+            .sorted(Comparator.comparing(ImportJob::getCreation).reversed())
+            .map(this::toDTO)
+            .toList();
+    }
+    
+    private ImportJob getJob(String id) {
+        ImportJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResourceNotFoundException("Import introuvable : " + id);
+        }
+        return job;
+    }
+    
+    /**
+     * Retire les imports terminés ou en échec depuis plus que la durée de conservation
+     */
+    private void oublierAnciensJobs() {
+        LocalDateTime limite = LocalDateTime.now().minus(conservation);
+        for (ImportJob job : jobs.values()) {
+            if (job.expirer(limite)) {
+                jobs.remove(job.getId());
+                supprimerFichier(job);
+                log.debug("🧹 Import {} ({}) terminé le {} retiré", job.getId(), job.getStatut(), job.getFin());
+            }
+        }
+    }
+    
+    /**
+     * Fichiers d'imports d'une exécution précédente : leurs jobs n'existent plus
+     */
+    private void supprimerFichiersOrphelins() {
+        if (!Files.isDirectory(dossierTravail)) {
+            return;
+        }
+        try (Stream<Path> fichiers = Files.list(dossierTravail)) {
+            List<Path> orphelins = fichiers.filter(fichier -> fichier.toString().endsWith(".csv")).toList();
+            for (Path fichier : orphelins) {
+                Files.deleteIfExists(fichier);
+            }
+            if (!orphelins.isEmpty()) {
+                log.info("🧹 {} fichiers d'imports abandonnés supprimés de {}", orphelins.size(), dossierTravail);
+            }
+        } catch (IOException e) {
+            log.warn("⚠️  Dossier d'imports {} non nettoyé : {}", dossierTravail, e.getMessage());
+        }
+    }
+    
+    private void supprimerFichier(ImportJob job) {
+        try {
+            Files.deleteIfExists(job.getFichier());
+        } catch (IOException e) {
+            log.warn("⚠️  Fichier d'import {} non supprimé : {}", job.getFichier(), e.getMessage());
+        }
+    }
+    
+    private void soumettre(ImportJob job) {
+        try {
+            importExecutor.execute(() -> executer(job));
+        } catch (RejectedExecutionException e) {
+            job.echouer(new IllegalStateException("File d'attente des imports pleine, réessayez plus tard"));
+        }
+    }
+    
+    private void executer(ImportJob job) {
+        ImportReportDTO report = job.demarrer();
+        try (InputStream inputStream = Files.newInputStream(job.getFichier())) {
+            adminImportService.importer(job.getType(), inputStream, report, job::enregistrerPointDeControle);
+        } catch (Exception e) {
+            log.error("❌ Import {} interrompu après {} lignes : {}", job.getId(), job.getPointDeControle().getTotalLines(), e.getMessage());
+            job.echouer(e);
+            return;
+        }
+        job.terminer(report);
+        supprimerFichier(job);
+    }
+    
+    /**
+     * Nombre de lignes de données (hors en-tête), pour le pourcentage d'avancement
+     */
+    private static int compterLignes(Path fichier) throws IOException {
+        int lignes = 0;
+        boolean finDeLigne = true;
+        byte[] tampon = new byte[64 * 1024];
+        try (InputStream inputStream = Files.newInputStream(fichier)) {
+            int lus;
+            while ((lus = inputStream.read(tampon)) > 0) {
+                for (int i = 0; i < lus; i++) {
+                    if (tampon[i] == '\n') {
+                        lignes++;
+                    }
+                }
+                finDeLigne = tampon[lus - 1] == '\n';
+            }
+        }
+        return Math.max(0, (finDeLigne ? lignes : lignes + 1) - 1);
+    }
+    
+    private ImportJobDTO toDTO(ImportJob job) {
+        ImportJobDTO dto = new ImportJobDTO();
+        dto.setJobId(job.getId());
+        dto.setType(job.getType().name());
+        dto.setNomFichier(job.getNomFichier());
+        dto.setStatut(job.getStatut().name());
+        dto.setDebut(job.getDebut());
+        dto.setFin(job.getFin());
+        dto.setLignesEstimees(job.getLignesEstimees());
+        dto.setLignesTraitees(job.getPointDeControle().getTotalLines());
+        dto.setPourcentage(job.getPourcentage());
+        dto.setLignesParSeconde(job.getLignesParSeconde());
+        dto.setTentatives(job.getTentatives());
+        dto.setErreur(job.getErreur());
+        dto.setRapport(job.getPointDeControle());
+        return dto;
+    }
+}
@@ -0,0 +1,105 @@
+package com.fesup.service;
+
+import java.util.Map;
+
+/**
+ * Modèle de document PDF d'une page, sérialisé une seule fois.
+ *
+ * Les objets communs à tous les tickets (catalogue, page, polices standard 14 non embarquées,
+ * form XObject de la mise en page fixe) et le début de la table xref sont écrits au
+ * démarrage avec leurs positions. Pour chaque ticket, seul le flux de contenu variable est
+ * ajouté, suivi de son entrée xref et du trailer, dans un tableau de la taille exacte du PDF.
+ *
+ * Objets : 1 catalogue, 2 pages, 3 page, 4 form XObject, 5.. polices, puis le contenu.
+ */
+final class ModeleTicket {
+    
+    private final byte[] objetsCommuns;
+    private final byte[] debutXref;
+    private final int objetContenu;
+    
+    /**
+     * @param polices nom de ressource → police standard 14 (ex. "F1" → "Helvetica")
+     * @param fond contenu du form XObject, dessiné par ContenuPdf.drawForm(nomFond)
+     */
+    ModeleTicket(float largeur, float hauteur, Map<String, String> polices, String nomFond, ContenuPdf fond) {
+        this.objetContenu = 5 + polices.size();
+        String boite = "[0 0 " + largeur + " " + hauteur + "]";
+        
+        StringBuilder ressourcesPolices = new StringBuilder("/Font <<");
+        int numero = 5;
+        for (String ressource : polices.keySet()) {
+            ressourcesPolices.append(" /").append(ressource).append(' ').append(numero++).append(" 0 R");
+        }
+        ressourcesPolices.append(" >>");
+        
+        int[] positions = new int[objetContenu];
+        StringBuilder pdf = new StringBuilder(1024 + fond.taille());
+        // Commentaire binaire : signale un fichier binaire aux outils de transfert
+        pdf.append("%PDF-1.4\n%âãÏÓ\n");
+        positions[1] = pdf.length();
+        pdf.append("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+        positions[2] = pdf.length();
+        pdf.append("2 0 obj\n<< /Type /Pages /Kids [3 0 R] /Count 1 >>\nendobj\n");
+        positions[3] = pdf.length();
+        pdf.append("3 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox ").append(boite)
+           .append(" /Resources << ").append(ressourcesPolices).append(" /XObject << /").append(nomFond)
+           .append(" 4 0 R >> >> /Contents ").append(objetContenu).append(" 0 R >>\nendobj\n");
+        positions[4] = pdf.length();
+        pdf.append("4 0 obj\n<< /Type /XObject /Subtype /Form /BBox ").append(boite)
+           .append(" /Resources << ").append(ressourcesPolices).append(" >> /Length ").append(fond.taille())
+           .append(" >>\nstream\n");
+        for (int i = 0; i < fond.taille(); i++) {
+            pdf.append((char) (fond.octets()[i] & 0xFF));
+        }
+        pdf.append("\nendstream\nendobj\n");
+        numero = 5;
+        for (String police : polices.values()) {
+            positions[numero] = pdf.length();
+            pdf.append(numero++).append(" 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /").append(police)
+               .append(" /Encoding /WinAnsiEncoding >>\nendobj\n");
+        }
+        this.objetsCommuns = latin1(pdf);
+        
+        // Entrées xref de 20 octets ; celle du contenu est ajoutée à chaque ticket
+        StringBuilder xref = new StringBuilder("xref\n0 ").append(objetContenu + 1).append("\n0000000000 65535 f \n");
+        for (int i = 1; i < objetContenu; i++) {
+            xref.append(String.format("%010d 00000 n \n", positions[i]));
+        }
+        this.debutXref = ContenuPdf.ascii(xref);
+    }
+    
+    /**
+     * Assemble le PDF d'un ticket autour de son contenu variable
+     */
+    byte[] generer(ContenuPdf contenu) {
+        int positionContenu = objetsCommuns.length;
+        byte[] enteteContenu = ContenuPdf.ascii(objetContenu + " 0 obj\n<< /Length " + contenu.taille() + " >>\nstream\n");
+        byte[] finContenu = ContenuPdf.ascii("\nendstream\nendobj\n");
+        int positionXref = positionContenu + enteteContenu.length + contenu.taille() + finContenu.length;
+        byte[] finXref = ContenuPdf.ascii(String.format("%010d 00000 n \ntrailer\n<< /Size %d /Root 1 0 R >>\nstartxref\n%d\n%%%%EOF\n",
+                                                        positionContenu, objetContenu + 1, positionXref));
+        
+        byte[] pdf = new byte[positionXref + debutXref.length + finXref.length];
+        int position = copier(objetsCommuns, objetsCommuns.length, pdf, 0);
+        position = copier(enteteContenu, enteteContenu.length, pdf, position);
+        position = copier(contenu.octets(), contenu.taille(), pdf, position);
+        position = copier(finContenu, finContenu.length, pdf, position);
+        position = copier(debutXref, debutXref.length, pdf, position);
+        copier(finXref, finXref.length, pdf, position);
+        return pdf;
+    }
+    
+    private static int copier(byte[] source, int longueur, byte[] destination, int position) {
+        System.arraycopy(source, 0, destination, position, longueur);
+        return position + longueur;
+    }
+    
+    private static byte[] latin1(StringBuilder texte) {
+        byte[] octets = new byte[texte.length()];
+        for (int i = 0; i < octets.length; i++) {
+            octets[i] = (byte) texte.charAt(i);
+        }
+        return octets;
+    }
+}
@@ -1,18 +1,29 @@
 package com.fesup.service;
 
 import com.fesup.entity.*;
-import com.fesup.enums.DemiJournee;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.pdmodel.*;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.font.*;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
 import org.springframework.stereotype.Service;
 
-import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Tickets PDF des élèves. La mise en page commune (titre, en-tête du tableau, mention de
+ * pied de page) est pré-rendue dans le modèle au démarrage ; chaque ticket n'écrit que
+ * le texte de l'élève, ses lignes de planning et la date (voir ModeleTicket, ContenuPdf).
+ */
 @Service
 @Slf4j
 public class PdfGenerationService {
@@ -21,60 +32,152 @@ public class PdfGenerationService {
     private static final float FONT_SIZE_TITLE = 18;
     private static final float FONT_SIZE_HEADER = 12;
     private static final float FONT_SIZE_BODY = 10;
+    private static final float PAGE_WIDTH = PDRectangle.A4.getWidth();
+    private static final float PAGE_HEIGHT = PDRectangle.A4.getHeight();
+    private static final float TABLE_TOP = PAGE_HEIGHT - MARGIN - 90;
+    private static final float TABLE_WIDTH = 495;
+    private static final float[] COLUMN_WIDTHS = {120, 250, 125}; // Créneau | Activité | Salle
+    private static final float ROW_HEIGHT = 25;
+    private static final float FOOTER_Y = 50;
+    
+    // Polices standard 14, par nom de ressource dans le modèle
+    private static final String FONT_REGULAR = "F1";
+    private static final String FONT_BOLD = "F2";
+    private static final String FONT_ITALIC = "F3";
+    private static final String FOND = "Fond";
+    
+    // Tampon du contenu variable : ~250 octets pour l'élève et le pied de page, ~240 par ligne du tableau
+    private static final int TAILLE_CONTENU_FIXE = 384;
+    private static final int TAILLE_CONTENU_LIGNE = 320;
+    
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH'h'mm");
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy à HH:mm");
+    private static final Comparator<Affectation> ORDRE_CRENEAUX = Comparator
+        .comparing((Affectation a) -> a.getAssignedSession().getCreneau().getDemiJournee())
+        .thenComparing(a -> a.getAssignedSession().getCreneau().getHeureDebut());
+    
+    private final ModeleTicket modele = new ModeleTicket(PAGE_WIDTH, PAGE_HEIGHT, polices(), FOND, drawFond());
+    
+    // À incrémenter à chaque changement de mise en page : tous les tickets deviennent à régénérer
+    private static final int VERSION_MODELE = 1;
+    
+    private static Map<String, String> polices() {
+        Map<String, String> polices = new LinkedHashMap<>();
+        polices.put(FONT_REGULAR, Standard14Fonts.FontName.HELVETICA.getName());
+        polices.put(FONT_BOLD, Standard14Fonts.FontName.HELVETICA_BOLD.getName());
+        polices.put(FONT_ITALIC, Standard14Fonts.FontName.HELVETICA_OBLIQUE.getName());
+        return polices;
+    }
     
     /**
-     * Génère le PDF pour un élève donné
-     * @return byte[] contenant le PDF
+     * Empreinte du contenu du ticket : identité de l'élève et lignes (créneau, activité, salle)
+     * triées. Deux plannings identiques donnent la même empreinte, quel que soit l'ordre des affectations.
      */
-    public byte[] genererTicketEleve(Eleve eleve, List<Affectation> affectations) throws IOException {
+    public String calculerEmpreinte(Eleve eleve, List<Affectation> affectations) {
+        List<String> lignes = new ArrayList<>(affectations.size());
+        for (Affectation affectation : affectations) {
+            Session session = affectation.getAssignedSession();
+            Creneau creneau = session.getCreneau();
+            lignes.add(String.join("|", creneau.getDemiJournee().name(), String.valueOf(creneau.getHeureDebut()),
+                String.valueOf(creneau.getHeureFin()), session.getActivite().getTitre(), session.getSalle().getNom()));
+        }
+        Collections.sort(lignes);
         
-        try (PDDocument document = new PDDocument()) {
-            PDPage page = new PDPage(PDRectangle.A4);
-            document.addPage(page);
-            
-            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
-                float yPosition = page.getMediaBox().getHeight() - MARGIN;
-                
-                // En-tête
-                yPosition = drawHeader(content, eleve, yPosition);
-                
-                // Tableau des affectations
-                yPosition = drawAffectationsTable(content, affectations, yPosition);
-                
-                // Pied de page
-                drawFooter(content, page);
-            }
-            
-            // Conversion en byte array
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            document.save(baos);
-            return baos.toByteArray();
+        StringBuilder contenu = new StringBuilder(64 + lignes.size() * 64)
+            .append(VERSION_MODELE).append('\n')
+            .append(eleve.getNom()).append('|').append(eleve.getPrenom()).append('|').append(eleve.getLycee().getNom());
+        for (String ligne : lignes) {
+            contenu.append('\n').append(ligne);
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(contenu.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
         }
     }
     
-    private float drawHeader(PDPageContentStream content, Eleve eleve, float yPosition) throws IOException {
+    /**
+     * Génère le PDF pour un élève donné : seul le texte propre à l'élève est écrit,
+     * dans le modèle préparé une fois pour toutes
+     * @return byte[] contenant le PDF
+     */
+    public byte[] genererTicketEleve(Eleve eleve, List<Affectation> affectations) {
+        ContenuPdf content = new ContenuPdf(TAILLE_CONTENU_FIXE + affectations.size() * TAILLE_CONTENU_LIGNE);
+        content.drawForm(FOND);
+        
+        // En-tête (titre dans le fond)
+        float yPosition = drawHeader(content, eleve, PAGE_HEIGHT - MARGIN);
+        
+        // Tableau des affectations (ligne d'en-tête dans le fond)
+        drawAffectationsTable(content, affectations, yPosition);
         
-        PDFont fontBold = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
-        PDFont fontRegular = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        // Pied de page (mention FESUP dans le fond)
+        drawFooter(content);
+        
+        return modele.generer(content);
+    }
+    
+    /**
+     * Parties communes à tous les tickets, dessinées une fois dans le form XObject du modèle
+     */
+    private static ContenuPdf drawFond() {
+        ContenuPdf content = new ContenuPdf(1024);
         
         // Titre
         content.beginText();
-        content.setFont(fontBold, FONT_SIZE_TITLE);
-        content.newLineAtOffset(MARGIN, yPosition);
+        content.setFont(FONT_BOLD, FONT_SIZE_TITLE);
+        content.newLineAtOffset(MARGIN, PAGE_HEIGHT - MARGIN);
         content.showText("Planning des Conferences FESUP 2025");
         content.endText();
+        
+        // Ligne d'en-tête du tableau
+        content.setNonStrokingColor(0.9f, 0.9f, 0.9f); // Gris clair
+        content.addRect(MARGIN, TABLE_TOP - ROW_HEIGHT, TABLE_WIDTH, ROW_HEIGHT);
+        content.fill();
+        
+        content.setNonStrokingColor(0f, 0f, 0f); // Noir
+        content.beginText();
+        content.setFont(FONT_BOLD, FONT_SIZE_BODY);
+        content.newLineAtOffset(MARGIN + 5, TABLE_TOP - 17);
+        content.showText("Creneau");
+        content.endText();
+        
+        content.beginText();
+        content.setFont(FONT_BOLD, FONT_SIZE_BODY);
+        content.newLineAtOffset(MARGIN + COLUMN_WIDTHS[0] + 5, TABLE_TOP - 17);
+        content.showText("Activite");
+        content.endText();
+        
+        content.beginText();
+        content.setFont(FONT_BOLD, FONT_SIZE_BODY);
+        content.newLineAtOffset(MARGIN + COLUMN_WIDTHS[0] + COLUMN_WIDTHS[1] + 5, TABLE_TOP - 17);
+        content.showText("Salle");
+        content.endText();
+        
+        // Pied de page
+        content.beginText();
+        content.setFont(FONT_ITALIC, 8);
+        content.newLineAtOffset(PAGE_WIDTH - MARGIN - 150, FOOTER_Y);
+        content.showText("FESUP - Forum des Etudes Superieures");
+        content.endText();
+        
+        return content;
+    }
+    
+    private float drawHeader(ContenuPdf content, Eleve eleve, float yPosition) {
         yPosition -= 30;
         
         // Infos élève
         content.beginText();
-        content.setFont(fontRegular, FONT_SIZE_HEADER);
+        content.setFont(FONT_REGULAR, FONT_SIZE_HEADER);
         content.newLineAtOffset(MARGIN, yPosition);
         content.showText(String.format("Eleve : %s %s", eleve.getPrenom(), eleve.getNom()));
         content.endText();
         yPosition -= 20;
         
         content.beginText();
-        content.setFont(fontRegular, FONT_SIZE_HEADER);
+        content.setFont(FONT_REGULAR, FONT_SIZE_HEADER);
         content.newLineAtOffset(MARGIN, yPosition);
         content.showText(String.format("Lycee : %s", eleve.getLycee().getNom()));
         content.endText();
@@ -83,57 +186,17 @@ public class PdfGenerationService {
         return yPosition;
     }
     
-    private float drawAffectationsTable(PDPageContentStream content, List<Affectation> affectations, float yPosition) throws IOException {
-        
-        PDFont fontBold = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
-        PDFont fontRegular = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+    private float drawAffectationsTable(ContenuPdf content, List<Affectation> affectations, float yPosition) {
         
         // Trier par créneau
         List<Affectation> sorted = affectations.stream()
-            .sorted((a1, a2) -> {
-                Session s1 = a1.getAssignedSession();
-                Session s2 = a2.getAssignedSession();
-                int demiJourneeComp = s1.getCreneau().getDemiJournee().compareTo(s2.getCreneau().getDemiJournee());
-                if (demiJourneeComp != 0) return demiJourneeComp;
-                return s1.getCreneau().getHeureDebut().compareTo(s2.getCreneau().getHeureDebut());
-            })
+            .sorted(ORDRE_CRENEAUX)
             .toList();
         
-        // En-têtes du tableau
         float tableTop = yPosition;
-        float tableWidth = 495;
-        float[] columnWidths = {120, 250, 125}; // Créneau | Activité | Salle
-        float rowHeight = 25;
-        
-        // Ligne d'en-tête
-        content.setNonStrokingColor(0.9f, 0.9f, 0.9f); // Gris clair
-        content.addRect(MARGIN, yPosition - rowHeight, tableWidth, rowHeight);
-        content.fill();
-        
-        content.setNonStrokingColor(0f, 0f, 0f); // Noir
-        content.beginText();
-        content.setFont(fontBold, FONT_SIZE_BODY);
-        content.newLineAtOffset(MARGIN + 5, yPosition - 17);
-        content.showText("Creneau");
-        content.endText();
-        
-        content.beginText();
-        content.setFont(fontBold, FONT_SIZE_BODY);
-        content.newLineAtOffset(MARGIN + columnWidths[0] + 5, yPosition - 17);
-        content.showText("Activite");
-        content.endText();
-        
-        content.beginText();
-        content.setFont(fontBold, FONT_SIZE_BODY);
-        content.newLineAtOffset(MARGIN + columnWidths[0] + columnWidths[1] + 5, yPosition - 17);
-        content.showText("Salle");
-        content.endText();
-        
-        yPosition -= rowHeight;
+        yPosition -= ROW_HEIGHT;
         
         // Lignes de données
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH'h'mm");
-        
         for (int i = 0; i < sorted.size(); i++) {
             Affectation aff = sorted.get(i);
             Session session = aff.getAssignedSession();
@@ -142,26 +205,23 @@ public class PdfGenerationService {
             // Ligne alternée
             if (i % 2 == 0) {
                 content.setNonStrokingColor(0.97f, 0.97f, 0.97f);
-                content.addRect(MARGIN, yPosition - rowHeight, tableWidth, rowHeight);
+                content.addRect(MARGIN, yPosition - ROW_HEIGHT, TABLE_WIDTH, ROW_HEIGHT);
                 content.fill();
                 content.setNonStrokingColor(0f, 0f, 0f);
             }
             
             // Créneau
-            String creneauText = String.format("%s - %s",
-                creneau.getHeureDebut().format(timeFormatter),
-                creneau.getHeureFin().format(timeFormatter)
-            );
+            String creneauText = creneau.getHeureDebut().format(TIME_FORMATTER) + " - " + creneau.getHeureFin().format(TIME_FORMATTER);
             String demiJourneeText = creneau.getDemiJournee().getLabel();
             
             content.beginText();
-            content.setFont(fontRegular, FONT_SIZE_BODY);
+            content.setFont(FONT_REGULAR, FONT_SIZE_BODY);
             content.newLineAtOffset(MARGIN + 5, yPosition - 12);
             content.showText(creneauText);
             content.endText();
             
             content.beginText();
-            content.setFont(fontRegular, 8);
+            content.setFont(FONT_REGULAR, 8);
             content.newLineAtOffset(MARGIN + 5, yPosition - 20);
             content.showText("(" + demiJourneeText + ")");
             content.endText();
@@ -173,48 +233,37 @@ public class PdfGenerationService {
             }
             
             content.beginText();
-            content.setFont(fontRegular, FONT_SIZE_BODY);
-            content.newLineAtOffset(MARGIN + columnWidths[0] + 5, yPosition - 15);
+            content.setFont(FONT_REGULAR, FONT_SIZE_BODY);
+            content.newLineAtOffset(MARGIN + COLUMN_WIDTHS[0] + 5, yPosition - 15);
             content.showText(activite);
             content.endText();
             
             // Salle
             content.beginText();
-            content.setFont(fontRegular, FONT_SIZE_BODY);
-            content.newLineAtOffset(MARGIN + columnWidths[0] + columnWidths[1] + 5, yPosition - 15);
+            content.setFont(FONT_REGULAR, FONT_SIZE_BODY);
+            content.newLineAtOffset(MARGIN + COLUMN_WIDTHS[0] + COLUMN_WIDTHS[1] + 5, yPosition - 15);
             content.showText(session.getSalle().getNom());
             content.endText();
             
-            yPosition -= rowHeight;
+            yPosition -= ROW_HEIGHT;
         }
         
         // Bordures du tableau
         content.setLineWidth(1f);
         content.moveTo(MARGIN, tableTop);
-        content.lineTo(MARGIN, yPosition + rowHeight);
-        content.moveTo(MARGIN + tableWidth, tableTop);
-        content.lineTo(MARGIN + tableWidth, yPosition + rowHeight);
+        content.lineTo(MARGIN, yPosition + ROW_HEIGHT);
+        content.moveTo(MARGIN + TABLE_WIDTH, tableTop);
+        content.lineTo(MARGIN + TABLE_WIDTH, yPosition + ROW_HEIGHT);
         content.stroke();
         
         return yPosition - 20;
     }
     
-    private void drawFooter(PDPageContentStream content, PDPage page) throws IOException {
-        
-        PDFont fontItalic = new PDType1Font(Standard14Fonts.FontName.HELVETICA_OBLIQUE);
-        float footerY = 50;
-        
+    private void drawFooter(ContenuPdf content) {
         content.beginText();
-        content.setFont(fontItalic, 8);
-        content.newLineAtOffset(MARGIN, footerY);
-        content.showText("Document genere le " + 
-            LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy à HH:mm")));
-        content.endText();
-        
-        content.beginText();
-        content.setFont(fontItalic, 8);
-        content.newLineAtOffset(page.getMediaBox().getWidth() - MARGIN - 150, footerY);
-        content.showText("FESUP - Forum des Etudes Superieures");
+        content.setFont(FONT_ITALIC, 8);
+        content.newLineAtOffset(MARGIN, FOOTER_Y);
+        content.showText("Document genere le " + LocalDateTime.now().format(DATE_FORMATTER));
         content.endText();
     }
 }
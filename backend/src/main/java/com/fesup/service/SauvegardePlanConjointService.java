@@ -0,0 +1,58 @@
+package com.fesup.service;
+
+import com.fesup.entity.Session;
+import com.fesup.repository.AffectationJdbcRepository;
+import com.fesup.repository.AffectationRepository;
+import com.fesup.repository.TicketRepository;
+import com.fesup.solver.AffectationSolution;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Enregistrement d'un plan du mode conjoint : les sessions et les affectations sont
+ * remplacées dans une seule transaction, appelée depuis le thread du job (hors proxy
+ * d'AffectationService). En cas d'échec, anciennes sessions, affectations et tickets
+ * restent en place ; les PDFs ne sont supprimés qu'après le commit.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SauvegardePlanConjointService {
+    
+    private final AffectationRepository affectationRepository;
+    private final AffectationJdbcRepository affectationJdbcRepository;
+    private final TicketRepository ticketRepository;
+    private final SessionGenerationService sessionGenerationService;
+    private final TicketStorageService ticketStorageService;
+    
+    @Transactional
+    public void enregistrer(List<Session> sessions, AffectationSolution plan) {
+        long debut = System.currentTimeMillis();
+        
+        // Les tickets et affectations référencent les anciennes sessions
+        ticketRepository.deleteAllInBatch();
+        affectationRepository.deleteAllInBatch();
+        sessionGenerationService.remplacerSessions(sessions);
+        int[] lignes = affectationJdbcRepository.remplacerTout(plan.versAffectations());
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    ticketStorageService.supprimerTousPdfs();
+                } catch (IOException e) {
+                    log.warn("⚠️ PDFs des anciens tickets non supprimés : {}", e.getMessage());
+                }
+            }
+        });
+        log.info("💾 Plan conjoint enregistré : {} sessions, {} affectations en {} ms",
+                 sessions.size(), lignes[1], System.currentTimeMillis() - debut);
+    }
+}
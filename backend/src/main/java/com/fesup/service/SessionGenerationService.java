@@ -1,9 +1,10 @@
 package com.fesup.service;
 
+import com.fesup.dto.DemandeActiviteDTO;
 import com.fesup.entity.*;
 import com.fesup.enums.DemiJournee;
-import com.fesup.enums.TypeActivite;
 import com.fesup.repository.*;
+import com.fesup.solver.PlanificateurSessions;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -24,206 +25,107 @@ public class SessionGenerationService {
     private final SessionRepository sessionRepository;
     private final SalleRepository salleRepository;
     private final CreneauRepository creneauRepository;
+    private final ActiviteRepository activiteRepository;
+    private final EleveRepository eleveRepository;
     
     /**
      * Génère automatiquement les sessions en fonction des vœux des élèves
      * 
-     * Logique :
-     * 1. Analyse tous les vœux pour chaque activité
-     * 2. Calcule le nombre de sessions nécessaires (demande / capacité activité)
-     * 3. Crée les sessions en utilisant les salles et créneaux disponibles
-     * 4. Priorise les activités les plus demandées
+     * Logique (voir PlanificateurSessions) :
+     * 1. Pondère la demande de chaque activité par la priorité de ses vœux
+     * 2. Garantit une session minimale selon le type d'activité
+     * 3. Ouvre les sessions de plus fort gain dans les cellules (créneau × salle) libres,
+     *    en dimensionnant la salle sur la demande restante (5 sessions max par activité)
+     * 4. Complète les créneaux jusqu'à une place par élève de la demi-journée
+     * 5. Enregistre toutes les sessions en un lot et rapporte la demande non couverte
      */
     @Transactional
     public Map<String, Object> genererSessionsAutomatiquement() {
         log.info("🎯 Début de la génération automatique des sessions");
+        long debut = System.currentTimeMillis();
         
         // 1. Supprimer les anciennes sessions
         long oldCount = sessionRepository.count();
-        sessionRepository.deleteAll();
+        sessionRepository.deleteAllInBatch();
         log.info("🗑️  {} anciennes sessions supprimées", oldCount);
         
         // 2. Récupérer tous les vœux
         List<Voeu> voeux = voeuRepository.findAllWithDetails();
         log.info("📊 {} vœux trouvés", voeux.size());
         
-        // 3. Grouper les vœux par activité et demi-journée
-        Map<DemiJournee, Map<Activite, List<Voeu>>> voeuxParDemiJourneeEtActivite = voeux.stream()
+        // 3. Priorités des vœux par activité et demi-journée
+        Map<DemiJournee, Map<Activite, List<Integer>>> prioritesParDemiJournee = voeux.stream()
+            .filter(voeu -> voeu.getEleve().getDemiJournee() != null)
             .collect(Collectors.groupingBy(
                 voeu -> voeu.getEleve().getDemiJournee(),
-                Collectors.groupingBy(Voeu::getActivite)
+                Collectors.groupingBy(Voeu::getActivite, LinkedHashMap::new,
+                    Collectors.mapping(Voeu::getPriorite, Collectors.toList()))
             ));
+        List<Salle> salles = salleRepository.findAll();
         
         // 4. Statistiques de génération
-        int totalSessionsCreees = 0;
+        List<Session> sessions = new ArrayList<>();
         Map<String, Integer> statsParDemiJournee = new HashMap<>();
+        List<DemandeActiviteDTO> demandeNonSatisfaite = new ArrayList<>();
+        Map<String, Map<String, Integer>> creneauxSousDimensionnes = new HashMap<>();
         
-        // 5. Traiter chaque demi-journée séparément
-        for (Map.Entry<DemiJournee, Map<Activite, List<Voeu>>> entryDJ : voeuxParDemiJourneeEtActivite.entrySet()) {
+        // 5. Planifier chaque demi-journée séparément
+        for (Map.Entry<DemiJournee, Map<Activite, List<Integer>>> entryDJ : prioritesParDemiJournee.entrySet()) {
             DemiJournee demiJournee = entryDJ.getKey();
-            Map<Activite, List<Voeu>> voeuxParActivite = entryDJ.getValue();
-            
-            log.info("🕐 Traitement de la demi-journée : {}", demiJournee);
-            
-            // Récupérer les salles et créneaux pour cette demi-journée
-            List<Salle> salles = salleRepository.findAll();
             List<Creneau> creneaux = creneauRepository.findByDemiJournee(demiJournee);
+            List<Activite> activites = activiteRepository.findByDemiJournee(demiJournee);
+            int nbEleves = (int) eleveRepository.countByDemiJournee(demiJournee);
             
-            log.info("   📍 {} salles disponibles, {} créneaux disponibles", salles.size(), creneaux.size());
-            
-            // Trier les activités par nombre de vœux (décroissant)
-            List<Map.Entry<Activite, List<Voeu>>> activitesTriees = voeuxParActivite.entrySet().stream()
-                .sorted((e1, e2) -> Integer.compare(e2.getValue().size(), e1.getValue().size()))
-                .collect(Collectors.toList());
+            log.info("🕐 Demi-journée {} : {} élèves, {} salles, {} créneaux, {} activités demandées",
+                demiJournee, nbEleves, salles.size(), creneaux.size(), entryDJ.getValue().size());
             
-            // Tracking des créneaux/salles utilisés pour éviter les conflits
-            Map<String, Boolean> creneauSalleUtilises = new HashMap<>();
-            int compteurCreneau = 0;
-            int compteurSalle = 0;
-            int sessionsCreesPourCetteDemiJournee = 0;
+            PlanificateurSessions planificateur = new PlanificateurSessions(
+                demiJournee, nbEleves, creneaux, salles, activites, entryDJ.getValue());
+            List<Session> sessionsDemiJournee = planificateur.planifier();
+            sessions.addAll(sessionsDemiJournee);
+            statsParDemiJournee.put(demiJournee.name(), sessionsDemiJournee.size());
             
-            // Créer les sessions
-            for (Map.Entry<Activite, List<Voeu>> entry : activitesTriees) {
-                Activite activite = entry.getKey();
-                int nbVoeux = entry.getValue().size();
-                
-                // Pondération selon la priorité des vœux
-                long nbVoeux1_2 = entry.getValue().stream()
-                    .filter(v -> v.getPriorite() <= 2)
-                    .count();
-                
-                // Calculer le nombre de sessions nécessaires
-                int capacite = activite.getCapaciteMax();
-                int nbSessionsNecessaires = (int) Math.ceil((double) nbVoeux1_2 / capacite);
-                
-                // Ajouter des sessions supplémentaires si beaucoup de vœux 3-4-5
-                if (nbVoeux - nbVoeux1_2 > capacite) {
-                    nbSessionsNecessaires += 1;
-                }
-                
-                // 🎯 GARANTIE MINIMALE PAR TYPE D'ACTIVITÉ
-                // Assurer qu'au moins 1 session est créée pour chaque type si des vœux existent
-                int sessionsMinimales = calculerSessionsMinimales(activite.getType(), nbVoeux, nbVoeux1_2);
-                if (nbSessionsNecessaires < sessionsMinimales) {
-                    nbSessionsNecessaires = sessionsMinimales;
-                    log.info("  ⭐ Garantie minimale appliquée pour {} (type: {}) : {} → {} sessions",
-                        activite.getTitre(), activite.getType(), 
-                        (int) Math.ceil((double) nbVoeux1_2 / capacite), sessionsMinimales);
-                }
-                
-                // Limiter à 5 sessions max par activité (contrainte hard)
-                nbSessionsNecessaires = Math.min(nbSessionsNecessaires, 5);
-                
-                log.info("  📌 {} : {} vœux (dont {} prioritaires) → {} sessions", 
-                    activite.getTitre(), nbVoeux, nbVoeux1_2, nbSessionsNecessaires);
-                
-                // Créer les sessions en répartissant sur différents créneaux
-                for (int i = 0; i < nbSessionsNecessaires; i++) {
-                    // Trouver un créneau/salle disponible
-                    boolean sessionCreee = false;
-                    int tentatives = 0;
-                    int maxTentatives = creneaux.size() * salles.size();
-                    
-                    while (!sessionCreee && tentatives < maxTentatives) {
-                        Creneau creneauChoisi = creneaux.get(compteurCreneau % creneaux.size());
-                        Salle salleChoisie = salles.stream()
-                            .filter(s -> s.getCapacite() >= capacite)
-                            .skip(compteurSalle % salles.size())
-                            .findFirst()
-                            .orElse(salles.get(0));
-                        
-                        String cle = creneauChoisi.getId() + "-" + salleChoisie.getId();
-                        
-                        if (!creneauSalleUtilises.getOrDefault(cle, false)) {
-                            // Créneau/salle disponible, créer la session
-                            Session session = new Session();
-                            session.setActivite(activite);
-                            session.setSalle(salleChoisie);
-                            session.setCreneau(creneauChoisi);
-                            
-                            sessionRepository.save(session);
-                            creneauSalleUtilises.put(cle, true);
-                            
-                            totalSessionsCreees++;
-                            sessionsCreesPourCetteDemiJournee++;
-                            sessionCreee = true;
-                            
-                            log.debug("     ✓ Session créée : {} dans {} à {}", 
-                                activite.getTitre(), salleChoisie.getNom(), creneauChoisi.getLibelle());
-                        }
-                        
-                        // Passer au créneau/salle suivant
-                        compteurCreneau++;
-                        if (compteurCreneau % creneaux.size() == 0) {
-                            compteurSalle++;
-                        }
-                        tentatives++;
-                    }
-                    
-                    if (!sessionCreee) {
-                        log.warn("⚠️  Impossible de créer plus de sessions pour {} (plus de créneaux/salles disponibles)", 
-                            activite.getTitre());
-                        break;
-                    }
-                }
+            List<DemandeActiviteDTO> nonCouverte = planificateur.getDemandeNonSatisfaite();
+            demandeNonSatisfaite.addAll(nonCouverte);
+            Map<String, Integer> manques = planificateur.getCreneauxSousDimensionnes();
+            if (!manques.isEmpty()) {
+                creneauxSousDimensionnes.put(demiJournee.name(), manques);
+                log.warn("⚠️  Places manquantes par créneau pour {} : {}", demiJournee, manques);
             }
-            
-            statsParDemiJournee.put(demiJournee.name(), sessionsCreesPourCetteDemiJournee);
-            log.info("✅ {} sessions créées pour {}", sessionsCreesPourCetteDemiJournee, demiJournee);
+            for (DemandeActiviteDTO demande : nonCouverte) {
+                log.warn("⚠️  {} : {} vœux non couverts sur {} ({})",
+                    demande.getActiviteTitre(), demande.getDemandeNonCouverte(), demande.getDemande(), demande.getRaison());
+            }
+            log.info("✅ {} sessions planifiées pour {}", sessionsDemiJournee.size(), demiJournee);
         }
         
-        // 6. Préparer le résumé
+        // 6. Enregistrer toutes les sessions en un lot (ID par séquence, INSERT batchés)
+        sessionRepository.saveAll(sessions);
+        
+        // 7. Préparer le résumé
+        long dureeMs = System.currentTimeMillis() - debut;
         Map<String, Object> resultat = new HashMap<>();
-        resultat.put("totalSessionsCreees", totalSessionsCreees);
+        resultat.put("totalSessionsCreees", sessions.size());
         resultat.put("statsParDemiJournee", statsParDemiJournee);
         resultat.put("anciennesSessions", oldCount);
+        resultat.put("demandeNonSatisfaite", demandeNonSatisfaite);
+        resultat.put("creneauxSousDimensionnes", creneauxSousDimensionnes);
+        resultat.put("dureeMs", dureeMs);
         
-        log.info("✅ Génération terminée : {} sessions créées", totalSessionsCreees);
+        log.info("✅ Génération terminée : {} sessions créées en {} ms ({} activités avec demande non couverte)",
+            sessions.size(), dureeMs, demandeNonSatisfaite.size());
         
         return resultat;
     }
     
     /**
-     * Calcule le nombre minimal de sessions à garantir selon le type d'activité
-     * 
-     * Logique de garantie minimale :
-     * - CONFERENCE : Au moins 1 session si des vœux existent
-     * - TABLE_RONDE : Au moins 1 session si ≥ 5 vœux (capacité généralement plus grande)
-     * - FLASH_METIER : Au moins 1 session si ≥ 3 vœux (format court, capacité plus petite)
-     * 
-     * @param typeActivite Le type d'activité
-     * @param nbVoeuxTotal Le nombre total de vœux pour cette activité
-     * @param nbVoeuxPrioritaires Le nombre de vœux prioritaires (1 et 2)
-     * @return Le nombre minimal de sessions à créer
+     * Remplace toutes les sessions par celles d'un plan calculé ailleurs (mode conjoint).
+     * Les affectations qui référencent les anciennes sessions doivent avoir été supprimées.
      */
-    private int calculerSessionsMinimales(TypeActivite typeActivite, int nbVoeuxTotal, long nbVoeuxPrioritaires) {
-        if (nbVoeuxTotal == 0) {
-            return 0; // Pas de vœux, pas de session
-        }
-        
-        switch (typeActivite) {
-            case CONFERENCE:
-                // Pour les conférences, toujours au moins 1 session si des vœux existent
-                return nbVoeuxTotal > 0 ? 1 : 0;
-                
-            case TABLE_RONDE:
-                // Pour les tables rondes, au moins 1 session si au moins 5 vœux
-                // (capacité généralement 40 personnes, mais on veut garantir la diversité)
-                if (nbVoeuxTotal >= 5) {
-                    return 1;
-                }
-                return 0;
-                
-            case FLASH_METIER:
-                // Pour les flash métiers, au moins 1 session si au moins 3 vœux
-                // (capacité généralement 15-20 personnes, format court)
-                if (nbVoeuxTotal >= 3) {
-                    return 1;
-                }
-                return 0;
-                
-            default:
-                return 0;
-        }
+    @Transactional
+    public void remplacerSessions(List<Session> sessions) {
+        sessionRepository.deleteAllInBatch();
+        sessionRepository.saveAll(sessions);
+        log.info("💾 {} sessions du plan conjoint enregistrées", sessions.size());
     }
 }
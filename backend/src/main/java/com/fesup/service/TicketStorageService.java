@@ -53,6 +53,13 @@ public class TicketStorageService {
         return Files.readAllBytes(cheminComplet);
     }
     
+    /**
+     * Indique si le PDF existe encore (stockage éphémère, suppression manuelle)
+     */
+    public boolean existe(String cheminRelatif) {
+        return Files.exists(Paths.get(storagePath, cheminRelatif));
+    }
+    
     /**
      * Supprime un PDF
      */
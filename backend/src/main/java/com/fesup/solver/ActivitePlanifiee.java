@@ -0,0 +1,18 @@
+package com.fesup.solver;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Activité vue par le solveur : index dense et capacité totale sur toutes ses sessions.
+ * Égalité par identité : une seule instance par activité dans un problème.
+ */
+@Getter
+@AllArgsConstructor
+public class ActivitePlanifiee {
+    
+    private final int index;
+    
+    // Integer.MAX_VALUE si l'activité n'a pas de capacité max
+    private final int capaciteMax;
+}
@@ -5,11 +5,17 @@ import ai.timefold.solver.core.api.score.stream.Constraint;
 import ai.timefold.solver.core.api.score.stream.ConstraintFactory;
 import ai.timefold.solver.core.api.score.stream.ConstraintProvider;
 import ai.timefold.solver.core.api.score.stream.ConstraintCollectors;
-import com.fesup.entity.Affectation;
-import com.fesup.entity.Voeu;
 
 import static ai.timefold.solver.core.api.score.stream.Joiners.*;
 
+/**
+ * Contraintes d'affectation.
+ *
+ * Les contraintes portent sur le modèle du solveur (AffectationPlanifiee, SessionPlanifiee,
+ * VoeuPlanifie) : jointures sur des index denses, regroupements sur des instances uniques
+ * comparées par identité, capacités en int. forEach() ignore déjà les affectations non
+ * initialisées : aucun test de nullité n'est nécessaire sur la session affectée.
+ */
 public class AffectationConstraintProvider implements ConstraintProvider {
     
     @Override
@@ -32,29 +38,21 @@ public class AffectationConstraintProvider implements ConstraintProvider {
     /**
      * Une salle ne peut pas accueillir plus d'élèves que sa capacité
      */
-    private Constraint capaciteSalle(ConstraintFactory constraintFactory) {
-        return constraintFactory.forEach(Affectation.class)
-            .filter(affectation -> affectation.getAssignedSession() != null)
-            .groupBy(
-                Affectation::getAssignedSession,
-                ConstraintCollectors.count()
-            )
-            .filter((session, count) -> count > session.getSalle().getCapacite())
+    Constraint capaciteSalle(ConstraintFactory constraintFactory) {
+        return constraintFactory.forEach(AffectationPlanifiee.class)
+            .groupBy(AffectationPlanifiee::getSession, ConstraintCollectors.count())
+            .filter((session, count) -> count > session.getCapaciteSalle())
             .penalize(HardSoftScore.ONE_HARD,
-                (session, count) -> count - session.getSalle().getCapacite())
+                (session, count) -> count - session.getCapaciteSalle())
             .asConstraint("Capacité salle dépassée");
     }
     
     /**
      * Une activité ne peut pas avoir plus de participants que sa capacité max
      */
-    private Constraint capaciteActivite(ConstraintFactory constraintFactory) {
-        return constraintFactory.forEach(Affectation.class)
-            .filter(affectation -> affectation.getAssignedSession() != null)
-            .groupBy(
-                affectation -> affectation.getAssignedSession().getActivite(),
-                ConstraintCollectors.count()
-            )
+    Constraint capaciteActivite(ConstraintFactory constraintFactory) {
+        return constraintFactory.forEach(AffectationPlanifiee.class)
+            .groupBy(affectation -> affectation.getSession().getActivite(), ConstraintCollectors.count())
             .filter((activite, count) -> count > activite.getCapaciteMax())
             .penalize(HardSoftScore.ONE_HARD,
                 (activite, count) -> count - activite.getCapaciteMax())
@@ -64,31 +62,35 @@ public class AffectationConstraintProvider implements ConstraintProvider {
     /**
      * Un élève ne peut être affecté qu'à une seule session par créneau horaire
      * (Il peut avoir 4 sessions dans sa demi-journée, une par créneau)
+     *
+     * Chaque slot ne reçoit que des sessions de son créneau : seul le cas de deux créneaux
+     * aux horaires identiques peut encore produire un conflit. Chaque paire est comptée
+     * une seule fois avec un poids de 2, comme l'ancienne jointure qui voyait (a, b) et (b, a).
      */
-    private Constraint eleveUnique(ConstraintFactory constraintFactory) {
-        return constraintFactory.forEach(Affectation.class)
-            .filter(affectation -> affectation.getAssignedSession() != null)
-            .join(Affectation.class,
-                equal(Affectation::getEleve),
-                equal(affectation -> affectation.getAssignedSession().getCreneau().getHeureDebut()),
-                equal(affectation -> affectation.getAssignedSession().getCreneau().getHeureFin()),
-                filtering((aff1, aff2) -> aff2.getAssignedSession() != null 
-                    && aff1 != aff2)
+    Constraint eleveUnique(ConstraintFactory constraintFactory) {
+        return constraintFactory.forEach(AffectationPlanifiee.class)
+            .join(AffectationPlanifiee.class,
+                equal(AffectationPlanifiee::getEleveIndex),
+                equal(AffectationPlanifiee::getCreneauOrdinal),
+                lessThan(AffectationPlanifiee::getSlot)
             )
-            .penalize(HardSoftScore.ONE_HARD)
+            .penalize(HardSoftScore.ofHard(2))
             .asConstraint("Élève affecté à 2 sessions au même créneau");
     }
     
     /**
      * Une même activité ne peut pas être répétée plus de 5 fois par demi-journée
+     *
+     * Les sessions utilisées sont d'abord dédoublonnées, puis comptées par
+     * (activité, demi-journée) : deux regroupements incrémentaux simples.
      */
-    private Constraint maxRepetitionActivite(ConstraintFactory constraintFactory) {
-        return constraintFactory.forEach(Affectation.class)
-            .filter(affectation -> affectation.getAssignedSession() != null)
+    Constraint maxRepetitionActivite(ConstraintFactory constraintFactory) {
+        return constraintFactory.forEach(AffectationPlanifiee.class)
+            .groupBy(AffectationPlanifiee::getSession)
             .groupBy(
-                affectation -> affectation.getAssignedSession().getActivite(),
-                affectation -> affectation.getAssignedSession().getCreneau().getDemiJournee(),
-                ConstraintCollectors.countDistinct(affectation -> affectation.getAssignedSession().getId())
+                SessionPlanifiee::getActivite,
+                SessionPlanifiee::getDemiJournee,
+                ConstraintCollectors.count()
             )
             .filter((activite, demiJournee, nbSessions) -> nbSessions > 5)
             .penalize(HardSoftScore.ONE_HARD,
@@ -101,15 +103,12 @@ public class AffectationConstraintProvider implements ConstraintProvider {
     /**
      * Les vœux de priorité 1 et 2 sont OBLIGATOIRES (forte pénalité si non satisfaits)
      */
-    private Constraint voeux1_2Obligatoire(ConstraintFactory constraintFactory) {
-        return constraintFactory.forEach(Voeu.class)
+    Constraint voeux1_2Obligatoire(ConstraintFactory constraintFactory) {
+        return constraintFactory.forEach(VoeuPlanifie.class)
             .filter(voeu -> voeu.getPriorite() <= 2)
-            .ifNotExists(Affectation.class,
-                equal(Voeu::getEleve, Affectation::getEleve),
-                equal(Voeu::getActivite, 
-                    affectation -> affectation.getAssignedSession() != null 
-                        ? affectation.getAssignedSession().getActivite() 
-                        : null)
+            .ifNotExists(AffectationPlanifiee.class,
+                equal(VoeuPlanifie::getEleveIndex, AffectationPlanifiee::getEleveIndex),
+                equal(VoeuPlanifie::getActiviteIndex, AffectationPlanifiee::getActiviteIndex)
             )
             .penalize(HardSoftScore.ONE_SOFT, voeu -> 1000 * (3 - voeu.getPriorite()))
             .asConstraint("Vœux prioritaires 1-2 non satisfaits");
@@ -118,15 +117,12 @@ public class AffectationConstraintProvider implements ConstraintProvider {
     /**
      * Les vœux de priorité 3, 4 et 5 donnent des BONUS (récompense si satisfaits)
      */
-    private Constraint voeux3_4_5Bonus(ConstraintFactory constraintFactory) {
-        return constraintFactory.forEach(Voeu.class)
+    Constraint voeux3_4_5Bonus(ConstraintFactory constraintFactory) {
+        return constraintFactory.forEach(VoeuPlanifie.class)
             .filter(voeu -> voeu.getPriorite() >= 3 && voeu.getPriorite() <= 5)
-            .ifExists(Affectation.class,
-                equal(Voeu::getEleve, Affectation::getEleve),
-                equal(Voeu::getActivite,
-                    affectation -> affectation.getAssignedSession() != null
-                        ? affectation.getAssignedSession().getActivite()
-                        : null)
+            .ifExists(AffectationPlanifiee.class,
+                equal(VoeuPlanifie::getEleveIndex, AffectationPlanifiee::getEleveIndex),
+                equal(VoeuPlanifie::getActiviteIndex, AffectationPlanifiee::getActiviteIndex)
             )
             .reward(HardSoftScore.ONE_SOFT, voeu -> 100 * (6 - voeu.getPriorite()))
             .asConstraint("Bonus vœux 3-4-5 satisfaits");
@@ -0,0 +1,190 @@
+package com.fesup.solver;
+
+import com.fesup.enums.DemiJournee;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heuristique gloutonne de démarrage à chaud.
+ *
+ * En une seule passe et en respectant les capacités (salle, activité, 5 sessions
+ * par activité et demi-journée), elle place d'abord les vœux de priorité 1 et 2,
+ * puis les vœux 3, 4 et 5, et complète enfin les créneaux restants avec les sessions
+ * les moins remplies. Les affectations laissées vides sont complétées par
+ * l'heuristique de construction de Timefold avant la recherche locale.
+ */
+@Slf4j
+public class AffectationInitialiseur {
+    
+    private static final int MAX_SESSIONS_PAR_ACTIVITE = 5;
+    
+    private int[] occupationSession;
+    private int[] occupationActivite;
+    private int[] capaciteActivite;
+    // Sessions ouvertes (au moins un élève) et leur nombre par activité et demi-journée
+    private boolean[] sessionOuverte;
+    private int[] sessionsOuvertes;
+    
+    /**
+     * Initialise les affectations du problème et retourne le nombre d'affectations placées
+     */
+    public int initialiser(AffectationSolution problem) {
+        int nbActivites = 0;
+        for (SessionPlanifiee session : problem.getSessions()) {
+            nbActivites = Math.max(nbActivites, session.getActivite().getIndex() + 1);
+        }
+        occupationSession = new int[problem.getSessions().size()];
+        occupationActivite = new int[nbActivites];
+        capaciteActivite = new int[nbActivites];
+        sessionOuverte = new boolean[problem.getSessions().size()];
+        sessionsOuvertes = new int[nbActivites * DemiJournee.values().length];
+        for (SessionPlanifiee session : problem.getSessions()) {
+            capaciteActivite[session.getActivite().getIndex()] = session.getActivite().getCapaciteMax();
+        }
+        
+        // Slots de chaque élève, dans l'ordre des créneaux
+        Map<Integer, List<AffectationPlanifiee>> slotsParEleve = new HashMap<>();
+        for (AffectationPlanifiee affectation : problem.getAffectations()) {
+            slotsParEleve.computeIfAbsent(affectation.getEleveIndex(), i -> new ArrayList<>()).add(affectation);
+            if (affectation.getSession() != null) {
+                reserver(affectation.getSession());
+            }
+        }
+        
+        int placees = 0;
+        
+        // 1. Vœux par priorité croissante : tous les vœux 1, puis 2, ... puis 5
+        List<VoeuPlanifie> voeux = new ArrayList<>(problem.getVoeux());
+        voeux.sort(Comparator.comparingInt(VoeuPlanifie::getPriorite).thenComparingInt(VoeuPlanifie::getEleveIndex));
+        int voeuxSatisfaits = 0;
+        for (VoeuPlanifie voeu : voeux) {
+            List<AffectationPlanifiee> slots = slotsParEleve.get(voeu.getEleveIndex());
+            if (slots == null || dejaInscrit(slots, voeu.getActiviteIndex())) {
+                continue;
+            }
+            if (placerVoeu(slots, voeu.getActiviteIndex())) {
+                voeuxSatisfaits++;
+                placees++;
+            }
+        }
+        
+        // 2. Compléter les créneaux restants avec les sessions les moins remplies
+        for (List<AffectationPlanifiee> slots : slotsParEleve.values()) {
+            for (AffectationPlanifiee affectation : slots) {
+                if (affectation.getSession() == null && completer(slots, affectation)) {
+                    placees++;
+                }
+            }
+        }
+        
+        log.info("🔥 Démarrage à chaud : {}/{} affectations placées dont {}/{} vœux satisfaits",
+                 placees, problem.getAffectations().size(), voeuxSatisfaits, voeux.size());
+        return placees;
+    }
+    
+    private boolean placerVoeu(List<AffectationPlanifiee> slots, int activiteIndex) {
+        AffectationPlanifiee meilleurSlot = null;
+        SessionPlanifiee meilleureSession = null;
+        for (AffectationPlanifiee affectation : slots) {
+            if (affectation.getSession() != null || creneauOccupe(slots, affectation)) {
+                continue;
+            }
+            for (SessionPlanifiee session : affectation.getSessionsPossibles()) {
+                if (session.getActivite().getIndex() == activiteIndex && disponible(session)
+                        && (meilleureSession == null || placesRestantes(session) > placesRestantes(meilleureSession))) {
+                    meilleurSlot = affectation;
+                    meilleureSession = session;
+                }
+            }
+        }
+        if (meilleureSession == null) {
+            return false;
+        }
+        meilleurSlot.setSession(meilleureSession);
+        reserver(meilleureSession);
+        return true;
+    }
+    
+    private boolean completer(List<AffectationPlanifiee> slots, AffectationPlanifiee affectation) {
+        if (creneauOccupe(slots, affectation)) {
+            return false;
+        }
+        SessionPlanifiee meilleureSession = null;
+        boolean meilleureDejaSuivie = true;
+        for (SessionPlanifiee session : affectation.getSessionsPossibles()) {
+            if (!disponible(session)) {
+                continue;
+            }
+            // Éviter de faire suivre deux fois la même activité à un élève
+            boolean dejaSuivie = dejaInscrit(slots, session.getActivite().getIndex());
+            if (meilleureSession == null
+                    || (meilleureDejaSuivie && !dejaSuivie)
+                    || (meilleureDejaSuivie == dejaSuivie && placesRestantes(session) > placesRestantes(meilleureSession))) {
+                meilleureSession = session;
+                meilleureDejaSuivie = dejaSuivie;
+            }
+        }
+        if (meilleureSession == null) {
+            return false;
+        }
+        affectation.setSession(meilleureSession);
+        reserver(meilleureSession);
+        return true;
+    }
+    
+    private boolean dejaInscrit(List<AffectationPlanifiee> slots, int activiteIndex) {
+        for (AffectationPlanifiee affectation : slots) {
+            if (affectation.getActiviteIndex() == activiteIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Un autre slot de l'élève aux mêmes horaires est déjà affecté
+     */
+    private boolean creneauOccupe(List<AffectationPlanifiee> slots, AffectationPlanifiee affectation) {
+        for (AffectationPlanifiee autre : slots) {
+            if (autre != affectation && autre.getSession() != null
+                    && autre.getCreneauOrdinal() == affectation.getCreneauOrdinal()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private boolean disponible(SessionPlanifiee session) {
+        int activite = session.getActivite().getIndex();
+        if (occupationSession[session.getIndex()] >= session.getCapaciteSalle()) {
+            return false;
+        }
+        if (occupationActivite[activite] >= capaciteActivite[activite]) {
+            return false;
+        }
+        // Ouvrir une nouvelle session ne doit pas dépasser 5 sessions par activité et demi-journée
+        return sessionOuverte[session.getIndex()] || sessionsOuvertes[cleOuverture(session)] < MAX_SESSIONS_PAR_ACTIVITE;
+    }
+    
+    private int placesRestantes(SessionPlanifiee session) {
+        return session.getCapaciteSalle() - occupationSession[session.getIndex()];
+    }
+    
+    private void reserver(SessionPlanifiee session) {
+        occupationSession[session.getIndex()]++;
+        occupationActivite[session.getActivite().getIndex()]++;
+        if (!sessionOuverte[session.getIndex()]) {
+            sessionOuverte[session.getIndex()] = true;
+            sessionsOuvertes[cleOuverture(session)]++;
+        }
+    }
+    
+    private static int cleOuverture(SessionPlanifiee session) {
+        return session.getActivite().getIndex() * DemiJournee.values().length + session.getDemiJournee().ordinal();
+    }
+}
@@ -0,0 +1,257 @@
+package com.fesup.solver;
+
+import com.fesup.enums.DemiJournee;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Moteur d'affectation sans Timefold, par flot de coût minimal.
+ *
+ * Les créneaux sont traités dans l'ordre chronologique. Pour chacun, un réseau
+ * source → slot élève → session → activité → puits est résolu exactement : chaque slot
+ * reçoit une session si les capacités le permettent, en maximisant le poids des vœux
+ * (mêmes pondérations que AffectationConstraintProvider). Les places restantes des
+ * activités et les vœux déjà satisfaits sont reportés sur les créneaux suivants, ce qui
+ * garantit qu'un vœu n'est compté qu'une fois et qu'une session par créneau.
+ *
+ * Le plan obtenu est réalisable dès que les capacités le permettent, mais reste
+ * une heuristique : la recherche locale de Timefold peut encore l'améliorer.
+ */
+@Slf4j
+public class AffectationParFlot {
+    
+    private static final int MAX_SESSIONS_PAR_ACTIVITE = 5;
+    
+    // Un slot complété hors vœux coûte un peu plus qu'un slot sur un vœu déjà satisfait ailleurs
+    private static final long COUT_HORS_VOEU = 1;
+    
+    private static final int SOURCE = 0;
+    private static final int PUITS = 1;
+    private static final int HORS_VOEUX = 2;
+    
+    private final Map<SessionPlanifiee, Integer> occupationSession = new HashMap<>();
+    private final Map<ActivitePlanifiee, Integer> occupationActivite = new HashMap<>();
+    private final Map<ActivitePlanifiee, Map<DemiJournee, Set<SessionPlanifiee>>> sessionsOuvertes = new HashMap<>();
+    private final Map<Integer, Set<Integer>> activitesParEleve = new HashMap<>();
+    private final Map<Integer, List<VoeuPlanifie>> voeuxParEleve = new HashMap<>();
+    
+    /**
+     * Affecte les slots libres du problème et retourne le nombre d'affectations placées
+     */
+    public int affecter(AffectationSolution problem) {
+        for (VoeuPlanifie voeu : problem.getVoeux()) {
+            voeuxParEleve.computeIfAbsent(voeu.getEleveIndex(), i -> new ArrayList<>()).add(voeu);
+        }
+        
+        // Slots libres regroupés par créneau ; les slots déjà affectés (épinglés) occupent leurs places
+        Map<Integer, List<AffectationPlanifiee>> slotsParCreneau = new TreeMap<>();
+        for (AffectationPlanifiee affectation : problem.getAffectations()) {
+            if (affectation.getSession() != null) {
+                reserver(affectation.getEleveIndex(), affectation.getSession());
+            } else {
+                slotsParCreneau.computeIfAbsent(affectation.getCreneauIndex(), c -> new ArrayList<>()).add(affectation);
+            }
+        }
+        
+        // Les index de créneaux suivent l'ordre chronologique dans chaque demi-journée
+        List<List<AffectationPlanifiee>> creneaux = new ArrayList<>(slotsParCreneau.values());
+        
+        int placees = 0;
+        for (int k = 0; k < creneaux.size(); k++) {
+            DemiJournee demiJournee = creneaux.get(k).get(0).getDemiJournee();
+            List<List<AffectationPlanifiee>> suivants = new ArrayList<>();
+            for (int j = k + 1; j < creneaux.size() && creneaux.get(j).get(0).getDemiJournee() == demiJournee; j++) {
+                suivants.add(creneaux.get(j));
+            }
+            placees += affecterCreneau(creneaux.get(k), suivants);
+        }
+        
+        log.info("🌊 Flot de coût minimal : {}/{} affectations placées sur {} créneaux",
+                 placees, problem.getAffectations().size(), creneaux.size());
+        return placees;
+    }
+    
+    /**
+     * Résout le réseau d'un créneau et applique ses affectations.
+     *
+     * Les créneaux suivants de la demi-journée sont ajoutés au réseau sous forme agrégée
+     * (un noeud par créneau, de capacité son nombre de slots) : le flot maximal réserve
+     * ainsi les places d'activité dont ils auront besoin, sans engager leurs élèves.
+     */
+    private int affecterCreneau(List<AffectationPlanifiee> slots, List<List<AffectationPlanifiee>> suivants) {
+        List<SessionPlanifiee> sessions = sessionsUtilisables(slots.get(0).getSessionsPossibles());
+        if (sessions.isEmpty()) {
+            return 0;
+        }
+        
+        // 1. Noeuds : source, puits, "hors vœux", sessions du créneau, créneaux suivants et leurs sessions, activités, slots
+        int nbNoeuds = 3;
+        Map<ActivitePlanifiee, Integer> noeudParActivite = new LinkedHashMap<>();
+        Map<SessionPlanifiee, Integer> noeudParSession = new LinkedHashMap<>();
+        Map<Integer, List<SessionPlanifiee>> sessionsParActivite = new HashMap<>();
+        for (SessionPlanifiee session : sessions) {
+            noeudParSession.put(session, nbNoeuds++);
+            sessionsParActivite.computeIfAbsent(session.getActivite().getIndex(), id -> new ArrayList<>()).add(session);
+        }
+        int premierSuivant = nbNoeuds;
+        nbNoeuds += suivants.size();
+        for (List<AffectationPlanifiee> suivant : suivants) {
+            for (SessionPlanifiee session : suivant.get(0).getSessionsPossibles()) {
+                noeudParSession.put(session, nbNoeuds++);
+            }
+        }
+        for (SessionPlanifiee session : noeudParSession.keySet()) {
+            if (!noeudParActivite.containsKey(session.getActivite())) {
+                noeudParActivite.put(session.getActivite(), nbNoeuds++);
+            }
+        }
+        int premierSlot = nbNoeuds;
+        
+        FlotCoutMinimal flot = new FlotCoutMinimal(premierSlot + slots.size(), noeudParSession.size() * 2
+            + noeudParActivite.size() + suivants.size() + slots.size() * 8);
+        
+        // 2. Capacités des salles et des activités
+        Map<SessionPlanifiee, Integer> arcsHorsVoeuxParSession = new HashMap<>();
+        for (Map.Entry<SessionPlanifiee, Integer> entry : noeudParSession.entrySet()) {
+            SessionPlanifiee session = entry.getKey();
+            int placesSalle = Math.max(0, session.getCapaciteSalle() - occupationSession.getOrDefault(session, 0));
+            flot.ajouterArc(entry.getValue(), noeudParActivite.get(session.getActivite()), placesSalle, 0);
+            if (entry.getValue() < premierSuivant) {
+                arcsHorsVoeuxParSession.put(session, flot.ajouterArc(HORS_VOEUX, entry.getValue(), placesSalle, 0));
+            }
+        }
+        for (int j = 0; j < suivants.size(); j++) {
+            flot.ajouterArc(SOURCE, premierSuivant + j, suivants.get(j).size(), 0);
+            for (SessionPlanifiee session : suivants.get(j).get(0).getSessionsPossibles()) {
+                flot.ajouterArc(premierSuivant + j, noeudParSession.get(session), Integer.MAX_VALUE / 2, 0);
+            }
+        }
+        for (Map.Entry<ActivitePlanifiee, Integer> entry : noeudParActivite.entrySet()) {
+            ActivitePlanifiee activite = entry.getKey();
+            int places = Math.max(0, activite.getCapaciteMax() - occupationActivite.getOrDefault(activite, 0));
+            flot.ajouterArc(entry.getValue(), PUITS, places, 0);
+        }
+        
+        // 3. Arcs des slots : vers chaque session d'un vœu non encore satisfait, ou vers le noeud "hors vœux"
+        int[] arcsHorsVoeux = new int[slots.size()];
+        List<Map<SessionPlanifiee, Integer>> arcsVoeux = new ArrayList<>();
+        for (int s = 0; s < slots.size(); s++) {
+            AffectationPlanifiee slot = slots.get(s);
+            int noeud = premierSlot + s;
+            flot.ajouterArc(SOURCE, noeud, 1, 0);
+            arcsHorsVoeux[s] = flot.ajouterArc(noeud, HORS_VOEUX, 1, COUT_HORS_VOEU);
+            
+            Set<Integer> suivies = activitesParEleve.getOrDefault(slot.getEleveIndex(), Set.of());
+            Map<SessionPlanifiee, Integer> arcs = new HashMap<>();
+            for (VoeuPlanifie voeu : voeuxParEleve.getOrDefault(slot.getEleveIndex(), List.of())) {
+                if (suivies.contains(voeu.getActiviteIndex())) {
+                    continue;
+                }
+                for (SessionPlanifiee session : sessionsParActivite.getOrDefault(voeu.getActiviteIndex(), List.of())) {
+                    arcs.put(session, flot.ajouterArc(noeud, noeudParSession.get(session), 1, -poids(voeu)));
+                }
+            }
+            arcsVoeux.add(arcs);
+        }
+        
+        flot.resoudre(SOURCE, PUITS);
+        
+        // 4. Slots placés sur un vœu
+        int placees = 0;
+        List<AffectationPlanifiee> horsVoeux = new ArrayList<>();
+        for (int s = 0; s < slots.size(); s++) {
+            for (Map.Entry<SessionPlanifiee, Integer> arc : arcsVoeux.get(s).entrySet()) {
+                if (flot.flot(arc.getValue()) > 0) {
+                    affecter(slots.get(s), arc.getKey());
+                    placees++;
+                }
+            }
+            if (flot.flot(arcsHorsVoeux[s]) > 0) {
+                horsVoeux.add(slots.get(s));
+            }
+        }
+        
+        // 5. Le flot ne dit que combien de slots "hors vœux" vont dans chaque session :
+        // chaque élève prend de préférence une activité qu'il ne suit pas encore
+        int[] restantes = new int[sessions.size()];
+        for (int i = 0; i < sessions.size(); i++) {
+            restantes[i] = flot.flot(arcsHorsVoeuxParSession.get(sessions.get(i)));
+        }
+        for (AffectationPlanifiee slot : horsVoeux) {
+            Set<Integer> suivies = activitesParEleve.getOrDefault(slot.getEleveIndex(), Set.of());
+            int choisie = -1;
+            for (int i = 0; i < sessions.size(); i++) {
+                if (restantes[i] > 0 && (choisie < 0 || !suivies.contains(sessions.get(i).getActivite().getIndex()))) {
+                    choisie = i;
+                    if (!suivies.contains(sessions.get(i).getActivite().getIndex())) {
+                        break;
+                    }
+                }
+            }
+            if (choisie >= 0) {
+                restantes[choisie]--;
+                affecter(slot, sessions.get(choisie));
+                placees++;
+            }
+        }
+        return placees;
+    }
+    
+    /**
+     * Sessions du créneau que l'on peut encore ouvrir sans dépasser 5 sessions par activité et demi-journée
+     */
+    private List<SessionPlanifiee> sessionsUtilisables(List<SessionPlanifiee> sessionsDuCreneau) {
+        Map<ActivitePlanifiee, Integer> nouvelles = new HashMap<>();
+        List<SessionPlanifiee> utilisables = new ArrayList<>();
+        List<SessionPlanifiee> parCapacite = new ArrayList<>(sessionsDuCreneau);
+        parCapacite.sort(Comparator.comparingInt(SessionPlanifiee::getCapaciteSalle).reversed());
+        for (SessionPlanifiee session : parCapacite) {
+            Set<SessionPlanifiee> ouvertes = sessionsOuvertes(session);
+            if (ouvertes.contains(session)) {
+                utilisables.add(session);
+                continue;
+            }
+            int ouvrables = MAX_SESSIONS_PAR_ACTIVITE - ouvertes.size();
+            if (nouvelles.getOrDefault(session.getActivite(), 0) < ouvrables) {
+                nouvelles.merge(session.getActivite(), 1, Integer::sum);
+                utilisables.add(session);
+            }
+        }
+        return utilisables;
+    }
+    
+    /**
+     * Même pondération que les contraintes soft : les vœux 1 et 2 sont pénalisés
+     * s'ils ne sont pas satisfaits, les vœux 3 à 5 récompensés s'ils le sont
+     */
+    private static long poids(VoeuPlanifie voeu) {
+        return voeu.getPriorite() <= 2 ? 1000L * (3 - voeu.getPriorite()) : 100L * (6 - voeu.getPriorite());
+    }
+    
+    private void affecter(AffectationPlanifiee affectation, SessionPlanifiee session) {
+        affectation.setSession(session);
+        reserver(affectation.getEleveIndex(), session);
+    }
+    
+    private void reserver(int eleveIndex, SessionPlanifiee session) {
+        occupationSession.merge(session, 1, Integer::sum);
+        occupationActivite.merge(session.getActivite(), 1, Integer::sum);
+        sessionsOuvertes(session).add(session);
+        activitesParEleve.computeIfAbsent(eleveIndex, i -> new HashSet<>()).add(session.getActivite().getIndex());
+    }
+    
+    private Set<SessionPlanifiee> sessionsOuvertes(SessionPlanifiee session) {
+        return sessionsOuvertes
+            .computeIfAbsent(session.getActivite(), a -> new HashMap<>())
+            .computeIfAbsent(session.getDemiJournee(), dj -> new HashSet<>());
+    }
+}
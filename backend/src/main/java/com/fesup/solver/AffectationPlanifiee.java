@@ -0,0 +1,97 @@
+package com.fesup.solver;
+
+import ai.timefold.solver.core.api.domain.entity.PlanningEntity;
+import ai.timefold.solver.core.api.domain.entity.PlanningPin;
+import ai.timefold.solver.core.api.domain.lookup.PlanningId;
+import ai.timefold.solver.core.api.domain.valuerange.ValueRangeProvider;
+import ai.timefold.solver.core.api.domain.variable.PlanningVariable;
+import com.fesup.enums.DemiJournee;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Entité de planification : un slot d'un élève sur un créneau de sa demi-journée.
+ *
+ * Elle ne référence aucune entité JPA : les clés de jointure des contraintes sont des
+ * index denses, et CorrespondanceEntites fait le lien avec Affectation à l'écriture.
+ * Égalité par identité ; l'identifiant de planification (élève, slot) sert aux
+ * recherches de Timefold entre copies de la solution.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@PlanningEntity
+public class AffectationPlanifiee {
+    
+    /**
+     * Identifiant stable du slot : index de l'élève sur les 32 bits de poids fort, rang du slot ensuite
+     */
+    @PlanningId
+    private Long id;
+    
+    // Position dans AffectationSolution.affectations
+    private int index;
+    
+    private int eleveIndex;
+    
+    // Rang du slot chez l'élève
+    private int slot;
+    
+    private int creneauIndex;
+    
+    // Deux créneaux aux mêmes horaires partagent le même ordinal
+    private int creneauOrdinal;
+    
+    private DemiJournee demiJournee;
+    
+    /**
+     * Sessions proposées au solveur pour ce slot : uniquement celles du créneau du slot
+     */
+    @ValueRangeProvider(id = "sessionsDuCreneau")
+    private List<SessionPlanifiee> sessionsPossibles;
+    
+    @PlanningVariable(valueRangeProviderRefs = "sessionsDuCreneau")
+    private SessionPlanifiee session;
+    
+    /**
+     * Réaffectation incrémentale : l'élève n'est pas concerné par les changements,
+     * sa session est conservée telle quelle par le solveur
+     */
+    @PlanningPin
+    private boolean epingle;
+    
+    /**
+     * Index de la session persistée au chargement (-1 si aucune), pour ne réécrire que les lignes modifiées
+     */
+    private int sessionInitiale = -1;
+    
+    public AffectationPlanifiee(int index, int eleveIndex, int slot, int creneauIndex, int creneauOrdinal,
+                                DemiJournee demiJournee, List<SessionPlanifiee> sessionsPossibles) {
+        this.id = identifiant(eleveIndex, slot);
+        this.index = index;
+        this.eleveIndex = eleveIndex;
+        this.slot = slot;
+        this.creneauIndex = creneauIndex;
+        this.creneauOrdinal = creneauOrdinal;
+        this.demiJournee = demiJournee;
+        this.sessionsPossibles = sessionsPossibles;
+    }
+    
+    public static long identifiant(int eleveIndex, int slot) {
+        return ((long) eleveIndex << 32) | slot;
+    }
+    
+    /**
+     * Index de l'activité affectée, -1 si le slot est vide
+     */
+    public int getActiviteIndex() {
+        return session != null ? session.getActivite().getIndex() : -1;
+    }
+    
+    public int getSessionIndex() {
+        return session != null ? session.getIndex() : -1;
+    }
+}
@@ -4,17 +4,25 @@ import ai.timefold.solver.core.api.domain.solution.PlanningEntityCollectionPrope
 import ai.timefold.solver.core.api.domain.solution.PlanningScore;
 import ai.timefold.solver.core.api.domain.solution.PlanningSolution;
 import ai.timefold.solver.core.api.domain.solution.ProblemFactCollectionProperty;
-import ai.timefold.solver.core.api.domain.valuerange.ValueRangeProvider;
 import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
 import com.fesup.entity.Affectation;
-import com.fesup.entity.Session;
-import com.fesup.entity.Voeu;
+import com.fesup.enums.DemiJournee;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Problème du solveur, sur le modèle à index denses (voir ConstructeurProbleme).
+ * La correspondance n'est pas lue par Timefold : elle est partagée par tous les clones.
+ */
 @PlanningSolution
 @Data
 @NoArgsConstructor
@@ -22,22 +30,89 @@ import java.util.List;
 public class AffectationSolution {
     
     @ProblemFactCollectionProperty
-    private List<Voeu> voeux;
+    private List<VoeuPlanifie> voeux;
     
+    // Les sessions possibles sont fournies par chaque affectation (value range par créneau)
     @ProblemFactCollectionProperty
-    @ValueRangeProvider
-    private List<Session> sessions;
+    private List<SessionPlanifiee> sessions;
     
     @PlanningEntityCollectionProperty
-    private List<Affectation> affectations;
+    private List<AffectationPlanifiee> affectations;
     
     @PlanningScore
     private HardSoftScore score;
     
+    private CorrespondanceEntites correspondance;
+    
     // Constructeur sans le score (calculé par Timefold)
-    public AffectationSolution(List<Voeu> voeux, List<Session> sessions, List<Affectation> affectations) {
+    public AffectationSolution(List<VoeuPlanifie> voeux, List<SessionPlanifiee> sessions,
+                               List<AffectationPlanifiee> affectations, CorrespondanceEntites correspondance) {
         this.voeux = voeux;
         this.sessions = sessions;
         this.affectations = affectations;
+        this.correspondance = correspondance;
+    }
+    
+    /**
+     * Nombre de vœux de priorité 1 ou 2 dont l'activité n'est pas affectée à l'élève.
+     * Les index d'élèves sont uniques même dans une solution partitionnée fusionnée.
+     */
+    public long compterVoeuxPrioritairesNonSatisfaits() {
+        Set<Long> activitesSuivies = new HashSet<>();
+        for (AffectationPlanifiee affectation : affectations) {
+            if (affectation.getSession() != null) {
+                activitesSuivies.add(cle(affectation.getEleveIndex(), affectation.getActiviteIndex()));
+            }
+        }
+        
+        long nonSatisfaits = 0;
+        for (VoeuPlanifie voeu : voeux) {
+            if (voeu.getPriorite() <= 2 && !activitesSuivies.contains(cle(voeu.getEleveIndex(), voeu.getActiviteIndex()))) {
+                nonSatisfaits++;
+            }
+        }
+        return nonSatisfaits;
+    }
+    
+    private static long cle(int eleveIndex, int activiteIndex) {
+        return ((long) eleveIndex << 32) | (activiteIndex & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Un sous-problème indépendant par demi-journée : un élève ne peut suivre que des
+     * sessions de sa demi-journée. Les index et la correspondance restent ceux du problème complet.
+     */
+    public Map<DemiJournee, AffectationSolution> partitionnerParDemiJournee() {
+        Map<DemiJournee, List<AffectationPlanifiee>> affectationsParDemiJournee = new EnumMap<>(DemiJournee.class);
+        Map<Integer, DemiJournee> demiJourneeParEleve = new HashMap<>();
+        for (AffectationPlanifiee affectation : affectations) {
+            affectationsParDemiJournee.computeIfAbsent(affectation.getDemiJournee(), dj -> new ArrayList<>()).add(affectation);
+            demiJourneeParEleve.put(affectation.getEleveIndex(), affectation.getDemiJournee());
+        }
+        Map<DemiJournee, List<SessionPlanifiee>> sessionsParDemiJournee = new EnumMap<>(DemiJournee.class);
+        for (SessionPlanifiee session : sessions) {
+            sessionsParDemiJournee.computeIfAbsent(session.getDemiJournee(), dj -> new ArrayList<>()).add(session);
+        }
+        Map<DemiJournee, List<VoeuPlanifie>> voeuxParDemiJournee = new EnumMap<>(DemiJournee.class);
+        for (VoeuPlanifie voeu : voeux) {
+            DemiJournee demiJournee = demiJourneeParEleve.get(voeu.getEleveIndex());
+            if (demiJournee != null) {
+                voeuxParDemiJournee.computeIfAbsent(demiJournee, dj -> new ArrayList<>()).add(voeu);
+            }
+        }
+        
+        Map<DemiJournee, AffectationSolution> sousProblemes = new EnumMap<>(DemiJournee.class);
+        affectationsParDemiJournee.forEach((demiJournee, affectationsDemiJournee) -> sousProblemes.put(demiJournee,
+            new AffectationSolution(voeuxParDemiJournee.getOrDefault(demiJournee, List.of()),
+                                    sessionsParDemiJournee.getOrDefault(demiJournee, List.of()),
+                                    affectationsDemiJournee, correspondance)));
+        return sousProblemes;
+    }
+    
+    /**
+     * Affectations JPA du plan (slots vides exclus)
+     */
+    public List<Affectation> versAffectations() {
+        return correspondance.versEntites(affectations);
     }
 }
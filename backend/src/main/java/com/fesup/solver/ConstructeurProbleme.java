@@ -0,0 +1,180 @@
+package com.fesup.solver;
+
+import com.fesup.entity.Activite;
+import com.fesup.entity.Affectation;
+import com.fesup.entity.Creneau;
+import com.fesup.entity.Eleve;
+import com.fesup.entity.Session;
+import com.fesup.entity.Voeu;
+import com.fesup.enums.DemiJournee;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Construit le problème Timefold : une affectation par créneau de la demi-journée de l'élève.
+ * 
+ * Chaque affectation ne peut recevoir que les sessions de son créneau, ce qui exclut
+ * d'office les sessions des autres demi-journées et les doublons de créneau.
+ * Les entités JPA ne sont lues qu'ici : le solveur travaille sur un modèle à index denses
+ * (élève, session, activité, rang du slot, ordinal du créneau) et CorrespondanceEntites
+ * permet de revenir aux entités à l'écriture. Le plan est ensuite pré-rempli par
+ * l'heuristique gloutonne si le démarrage à chaud est activé.
+ */
+@Slf4j
+public class ConstructeurProbleme {
+    
+    private final boolean demarrageAChaud;
+    
+    public ConstructeurProbleme(boolean demarrageAChaud) {
+        this.demarrageAChaud = demarrageAChaud;
+    }
+    
+    public AffectationSolution construire(List<Eleve> eleves, List<Session> sessions, List<Voeu> voeux) {
+        return construire(eleves, sessions, voeux, List.of());
+    }
+    
+    /**
+     * Construit le problème en repartant des affectations existantes : chaque ligne persistée est
+     * replacée sur le slot de son créneau, et les élèves dont tous les slots sont retrouvés sont épinglés.
+     */
+    public AffectationSolution construire(List<Eleve> eleves, List<Session> sessions, List<Voeu> voeux,
+                                          List<Affectation> existantes) {
+        // 1. Créneaux triés par demi-journée puis par heure de début
+        List<Creneau> creneaux = sessions.stream()
+            .map(Session::getCreneau)
+            .distinct()
+            .sorted(Comparator.comparing(Creneau::getDemiJournee).thenComparing(Creneau::getHeureDebut))
+            .collect(Collectors.toList());
+        Map<Creneau, Integer> indexParCreneau = new HashMap<>();
+        Map<DemiJournee, List<Creneau>> creneauxParDemiJournee = new EnumMap<>(DemiJournee.class);
+        // Deux créneaux aux mêmes horaires partagent le même ordinal
+        Map<List<LocalTime>, Integer> ordinauxHoraires = new HashMap<>();
+        Map<Creneau, Integer> ordinalParCreneau = new HashMap<>();
+        for (Creneau creneau : creneaux) {
+            indexParCreneau.put(creneau, indexParCreneau.size());
+            creneauxParDemiJournee.computeIfAbsent(creneau.getDemiJournee(), dj -> new ArrayList<>()).add(creneau);
+            List<LocalTime> horaires = Arrays.asList(creneau.getHeureDebut(), creneau.getHeureFin());
+            ordinalParCreneau.put(creneau, ordinauxHoraires.computeIfAbsent(horaires, h -> ordinauxHoraires.size()));
+        }
+        
+        // 2. Activités et sessions indexées, sessions regroupées par créneau
+        Map<Long, ActivitePlanifiee> activiteParId = new HashMap<>();
+        Map<Session, SessionPlanifiee> sessionPlanifiee = new HashMap<>();
+        List<SessionPlanifiee> sessionsPlanifiees = new ArrayList<>(sessions.size());
+        Map<Creneau, List<SessionPlanifiee>> sessionsParCreneau = new HashMap<>();
+        for (Session session : sessions) {
+            Activite activite = session.getActivite();
+            ActivitePlanifiee activitePlanifiee = activiteParId.computeIfAbsent(activite.getId(), id -> new ActivitePlanifiee(
+                activiteParId.size(), activite.getCapaciteMax() != null ? activite.getCapaciteMax() : Integer.MAX_VALUE));
+            Creneau creneau = session.getCreneau();
+            SessionPlanifiee planifiee = new SessionPlanifiee(sessionsPlanifiees.size(), activitePlanifiee,
+                indexParCreneau.get(creneau), creneau.getDemiJournee(), session.getSalle().getCapacite());
+            sessionsPlanifiees.add(planifiee);
+            sessionPlanifiee.put(session, planifiee);
+            sessionsParCreneau.computeIfAbsent(creneau, c -> new ArrayList<>()).add(planifiee);
+        }
+        
+        // 3. Une affectation par créneau de la demi-journée de chaque élève
+        Map<Long, List<Affectation>> existantesParEleve = existantes.stream()
+            .collect(Collectors.groupingBy(a -> a.getEleve().getId()));
+        int[] occupationSession = new int[sessionsPlanifiees.size()];
+        
+        Map<Long, Integer> indexParEleve = new HashMap<>();
+        List<AffectationPlanifiee> affectations = new ArrayList<>();
+        List<Long> idsPersistes = new ArrayList<>();
+        int elevesSansSession = 0;
+        for (Eleve eleve : eleves) {
+            int eleveIndex = indexParEleve.size();
+            indexParEleve.put(eleve.getId(), eleveIndex);
+            
+            List<Creneau> creneauxEleve = creneauxParDemiJournee.getOrDefault(eleve.getDemiJournee(), List.of());
+            if (creneauxEleve.isEmpty()) {
+                elevesSansSession++;
+                continue;
+            }
+            
+            List<Affectation> existantesEleve = new ArrayList<>(existantesParEleve.getOrDefault(eleve.getId(), List.of()));
+            boolean inchange = !existantesEleve.isEmpty();
+            
+            // Une affectation par créneau (4 aujourd'hui) pour que l'élève puisse avoir jusqu'à 4 sessions
+            for (int slot = 0; slot < creneauxEleve.size(); slot++) {
+                Creneau creneau = creneauxEleve.get(slot);
+                AffectationPlanifiee affectation = new AffectationPlanifiee(affectations.size(), eleveIndex, slot,
+                    indexParCreneau.get(creneau), ordinalParCreneau.get(creneau), creneau.getDemiJournee(),
+                    sessionsParCreneau.get(creneau));
+                affectations.add(affectation);
+                
+                Affectation existante = retirerExistante(existantesEleve, creneau);
+                if (existante == null) {
+                    idsPersistes.add(null);
+                    inchange = false;
+                    continue;
+                }
+                SessionPlanifiee session = sessionPlanifiee.get(existante.getAssignedSession());
+                idsPersistes.add(existante.getId());
+                affectation.setSession(session);
+                affectation.setSessionInitiale(session.getIndex());
+                occupationSession[session.getIndex()]++;
+            }
+            
+            // Toutes les lignes de l'élève doivent avoir retrouvé leur slot pour qu'il soit épinglé
+            if (inchange && existantesEleve.isEmpty()) {
+                for (int i = affectations.size() - creneauxEleve.size(); i < affectations.size(); i++) {
+                    affectations.get(i).setEpingle(true);
+                }
+            }
+        }
+        
+        // Une salle devenue trop petite libère ses élèves
+        for (AffectationPlanifiee affectation : affectations) {
+            SessionPlanifiee session = affectation.getSession();
+            if (affectation.isEpingle() && occupationSession[session.getIndex()] > session.getCapaciteSalle()) {
+                affectation.setEpingle(false);
+            }
+        }
+        
+        // 4. Vœux (l'ID de l'élève se lit sans initialiser le proxy LAZY)
+        List<VoeuPlanifie> voeuxPlanifies = new ArrayList<>(voeux.size());
+        for (Voeu voeu : voeux) {
+            ActivitePlanifiee activite = activiteParId.get(voeu.getActiviteId());
+            voeuxPlanifies.add(new VoeuPlanifie(indexParEleve.getOrDefault(voeu.getEleve().getId(), -1),
+                activite != null ? activite.getIndex() : -1, voeu.getPriorite()));
+        }
+        
+        if (elevesSansSession > 0) {
+            log.warn("⚠️  {} élèves sans aucune session dans leur demi-journée", elevesSansSession);
+        }
+        
+        CorrespondanceEntites correspondance = new CorrespondanceEntites(eleves, sessions, idsPersistes.toArray(new Long[0]));
+        AffectationSolution problem = new AffectationSolution(voeuxPlanifies, sessionsPlanifiees, affectations, correspondance);
+        
+        // Démarrage à chaud : la recherche locale part d'un plan déjà proche du réalisable
+        if (demarrageAChaud) {
+            new AffectationInitialiseur().initialiser(problem);
+        }
+        
+        return problem;
+    }
+    
+    /**
+     * Retire et retourne l'affectation existante dont la session a lieu sur ce créneau, ou null
+     */
+    private Affectation retirerExistante(List<Affectation> existantesEleve, Creneau creneau) {
+        for (int i = 0; i < existantesEleve.size(); i++) {
+            Session session = existantesEleve.get(i).getAssignedSession();
+            if (session != null && creneau.equals(session.getCreneau())) {
+                return existantesEleve.remove(i);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,57 @@
+package com.fesup.solver;
+
+import com.fesup.entity.Affectation;
+import com.fesup.entity.Eleve;
+import com.fesup.entity.Session;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lien entre les index du modèle du solveur et les entités JPA. Utilisé seulement
+ * à la construction du problème et à l'écriture du résultat, jamais par les contraintes.
+ */
+@Getter
+@AllArgsConstructor
+public class CorrespondanceEntites {
+    
+    // Élèves et sessions rangés par index
+    private final List<Eleve> eleves;
+    private final List<Session> sessions;
+    
+    // ID de la ligne persistée de chaque affectation planifiée (null si nouvelle)
+    private final Long[] idsPersistes;
+    
+    public Long getIdPersiste(AffectationPlanifiee affectation) {
+        return idsPersistes[affectation.getIndex()];
+    }
+    
+    public Eleve getEleve(int eleveIndex) {
+        return eleves.get(eleveIndex);
+    }
+    
+    /**
+     * Entité à écrire en base pour une affectation planifiée
+     */
+    public Affectation versEntite(AffectationPlanifiee affectation) {
+        Affectation entite = new Affectation(eleves.get(affectation.getEleveIndex()),
+            affectation.getSession() != null ? sessions.get(affectation.getSession().getIndex()) : null);
+        entite.setId(getIdPersiste(affectation));
+        return entite;
+    }
+    
+    /**
+     * Entités des affectations ayant reçu une session
+     */
+    public List<Affectation> versEntites(List<AffectationPlanifiee> affectations) {
+        List<Affectation> entites = new ArrayList<>(affectations.size());
+        for (AffectationPlanifiee affectation : affectations) {
+            if (affectation.getSession() != null) {
+                entites.add(versEntite(affectation));
+            }
+        }
+        return entites;
+    }
+}
@@ -0,0 +1,235 @@
+package com.fesup.solver;
+
+import java.util.Arrays;
+
+/**
+ * Flot maximal de coût minimal sur tableaux primitifs.
+ *
+ * Chaque arc est stocké avec son arc inverse (indices a et a ^ 1). Les potentiels sont
+ * initialisés par Bellman-Ford (coûts négatifs autorisés, sans cycle négatif), puis
+ * chaque phase calcule les plus courts chemins par Dijkstra sur les coûts réduits et
+ * pousse autant de chemins que possible sur les arcs de coût réduit nul.
+ */
+public final class FlotCoutMinimal {
+    
+    private static final long INFINI = Long.MAX_VALUE / 4;
+    
+    private final int nbNoeuds;
+    private final int[] tete;
+    private int[] suivant;
+    private int[] cible;
+    private int[] capacite;
+    private long[] cout;
+    private int nbArcs;
+    
+    private final long[] potentiel;
+    private final long[] distance;
+    private final int[] arcCourant;
+    private final boolean[] surChemin;
+    
+    // Tas binaire indexé pour Dijkstra
+    private final int[] tas;
+    private final int[] positionDansTas;
+    private int tailleTas;
+    
+    public FlotCoutMinimal(int nbNoeuds, int nbArcsPrevus) {
+        this.nbNoeuds = nbNoeuds;
+        this.tete = new int[nbNoeuds];
+        Arrays.fill(tete, -1);
+        int taille = Math.max(2, 2 * nbArcsPrevus);
+        this.suivant = new int[taille];
+        this.cible = new int[taille];
+        this.capacite = new int[taille];
+        this.cout = new long[taille];
+        this.potentiel = new long[nbNoeuds];
+        this.distance = new long[nbNoeuds];
+        this.arcCourant = new int[nbNoeuds];
+        this.surChemin = new boolean[nbNoeuds];
+        this.tas = new int[nbNoeuds];
+        this.positionDansTas = new int[nbNoeuds];
+    }
+    
+    /**
+     * Ajoute un arc et retourne son indice (à passer à flot())
+     */
+    public int ajouterArc(int depuis, int vers, int capaciteArc, long coutArc) {
+        if (nbArcs + 2 > cible.length) {
+            int taille = cible.length * 2;
+            suivant = Arrays.copyOf(suivant, taille);
+            cible = Arrays.copyOf(cible, taille);
+            capacite = Arrays.copyOf(capacite, taille);
+            cout = Arrays.copyOf(cout, taille);
+        }
+        int arc = nbArcs;
+        chainer(depuis, vers, capaciteArc, coutArc);
+        chainer(vers, depuis, 0, -coutArc);
+        return arc;
+    }
+    
+    private void chainer(int depuis, int vers, int capaciteArc, long coutArc) {
+        cible[nbArcs] = vers;
+        capacite[nbArcs] = capaciteArc;
+        cout[nbArcs] = coutArc;
+        suivant[nbArcs] = tete[depuis];
+        tete[depuis] = nbArcs;
+        nbArcs++;
+    }
+    
+    /**
+     * Flot passant sur un arc après resoudre()
+     */
+    public int flot(int arc) {
+        return capacite[arc ^ 1];
+    }
+    
+    /**
+     * Envoie le flot maximal de la source au puits au coût minimal.
+     *
+     * @return {flot envoyé, coût total}
+     */
+    public long[] resoudre(int source, int puits) {
+        initialiserPotentiels(source);
+        long flotTotal = 0;
+        long coutTotal = 0;
+        while (dijkstra(source, puits)) {
+            for (int noeud = 0; noeud < nbNoeuds; noeud++) {
+                if (distance[noeud] < INFINI) {
+                    potentiel[noeud] += distance[noeud];
+                }
+            }
+            // Tous les plus courts chemins de la phase ont un coût réduit nul
+            System.arraycopy(tete, 0, arcCourant, 0, nbNoeuds);
+            int pousse;
+            while ((pousse = augmenter(source, puits, Integer.MAX_VALUE)) > 0) {
+                flotTotal += pousse;
+                coutTotal += (long) pousse * (potentiel[puits] - potentiel[source]);
+            }
+        }
+        return new long[] {flotTotal, coutTotal};
+    }
+    
+    private void initialiserPotentiels(int source) {
+        Arrays.fill(potentiel, INFINI);
+        potentiel[source] = 0;
+        boolean modifie = true;
+        for (int iteration = 0; iteration < nbNoeuds && modifie; iteration++) {
+            modifie = false;
+            for (int arc = 0; arc < nbArcs; arc++) {
+                int depuis = cible[arc ^ 1];
+                if (capacite[arc] > 0 && potentiel[depuis] < INFINI && potentiel[depuis] + cout[arc] < potentiel[cible[arc]]) {
+                    potentiel[cible[arc]] = potentiel[depuis] + cout[arc];
+                    modifie = true;
+                }
+            }
+        }
+        // Un noeud inaccessible le reste : son potentiel n'intervient jamais
+        for (int noeud = 0; noeud < nbNoeuds; noeud++) {
+            if (potentiel[noeud] == INFINI) {
+                potentiel[noeud] = 0;
+            }
+        }
+    }
+    
+    private boolean dijkstra(int source, int puits) {
+        Arrays.fill(distance, INFINI);
+        Arrays.fill(positionDansTas, -1);
+        tailleTas = 0;
+        distance[source] = 0;
+        inserer(source);
+        while (tailleTas > 0) {
+            int noeud = extraireMin();
+            for (int arc = tete[noeud]; arc != -1; arc = suivant[arc]) {
+                if (capacite[arc] <= 0) {
+                    continue;
+                }
+                int voisin = cible[arc];
+                long candidat = distance[noeud] + cout[arc] + potentiel[noeud] - potentiel[voisin];
+                if (candidat < distance[voisin]) {
+                    distance[voisin] = candidat;
+                    if (positionDansTas[voisin] >= 0) {
+                        remonter(positionDansTas[voisin]);
+                    } else {
+                        inserer(voisin);
+                    }
+                }
+            }
+        }
+        return distance[puits] < INFINI;
+    }
+    
+    private int augmenter(int noeud, int puits, int limite) {
+        if (noeud == puits) {
+            return limite;
+        }
+        surChemin[noeud] = true;
+        for (; arcCourant[noeud] != -1; arcCourant[noeud] = suivant[arcCourant[noeud]]) {
+            int arc = arcCourant[noeud];
+            int voisin = cible[arc];
+            if (capacite[arc] > 0 && !surChemin[voisin] && cout[arc] + potentiel[noeud] - potentiel[voisin] == 0) {
+                int pousse = augmenter(voisin, puits, Math.min(limite, capacite[arc]));
+                if (pousse > 0) {
+                    capacite[arc] -= pousse;
+                    capacite[arc ^ 1] += pousse;
+                    surChemin[noeud] = false;
+                    return pousse;
+                }
+            }
+        }
+        surChemin[noeud] = false;
+        return 0;
+    }
+    
+    private void inserer(int noeud) {
+        tas[tailleTas] = noeud;
+        positionDansTas[noeud] = tailleTas;
+        remonter(tailleTas++);
+    }
+    
+    private int extraireMin() {
+        int min = tas[0];
+        positionDansTas[min] = -2;
+        tailleTas--;
+        if (tailleTas > 0) {
+            tas[0] = tas[tailleTas];
+            positionDansTas[tas[0]] = 0;
+            descendre(0);
+        }
+        return min;
+    }
+    
+    private void remonter(int position) {
+        int noeud = tas[position];
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (distance[tas[parent]] <= distance[noeud]) {
+                break;
+            }
+            tas[position] = tas[parent];
+            positionDansTas[tas[position]] = position;
+            position = parent;
+        }
+        tas[position] = noeud;
+        positionDansTas[noeud] = position;
+    }
+    
+    private void descendre(int position) {
+        int noeud = tas[position];
+        while (true) {
+            int enfant = 2 * position + 1;
+            if (enfant >= tailleTas) {
+                break;
+            }
+            if (enfant + 1 < tailleTas && distance[tas[enfant + 1]] < distance[tas[enfant]]) {
+                enfant++;
+            }
+            if (distance[tas[enfant]] >= distance[noeud]) {
+                break;
+            }
+            tas[position] = tas[enfant];
+            positionDansTas[tas[position]] = position;
+            position = enfant;
+        }
+        tas[position] = noeud;
+        positionDansTas[noeud] = position;
+    }
+}
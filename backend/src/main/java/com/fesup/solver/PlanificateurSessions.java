@@ -0,0 +1,311 @@
+package com.fesup.solver;
+
+import com.fesup.dto.DemandeActiviteDTO;
+import com.fesup.entity.Activite;
+import com.fesup.entity.Creneau;
+import com.fesup.entity.Salle;
+import com.fesup.entity.Session;
+import com.fesup.enums.DemiJournee;
+import com.fesup.enums.TypeActivite;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Planification des sessions d'une demi-journée : répartit les activités dans les cellules
+ * (créneau × salle) par remplissage glouton sur le gain marginal.
+ *
+ * Chaque vœu vaut le poids de sa priorité (mêmes pondérations que AffectationConstraintProvider).
+ * Une nouvelle session d'une activité sert ses vœux restants les plus lourds, dans la limite
+ * de 5 sessions et de capaciteMax, plafond sur toutes les sessions de l'activité : c'est celui
+ * que le solveur applique (contrainte capaciteActivite, flot, heuristique gloutonne), une place
+ * ouverte au-delà ne pourrait pas être occupée. À chaque étape, la session de plus fort gain est
+ * placée sur le créneau le moins pourvu en places où l'activité n'a pas encore de session,
+ * dans la plus petite salle libre qui couvre le besoin. Une fois la demande servie, les
+ * créneaux qui n'offrent pas une place par élève sont complétés avec les plus grandes salles.
+ */
+public class PlanificateurSessions {
+    
+    public static final int MAX_SESSIONS_PAR_ACTIVITE = 5;
+    
+    private final DemiJournee demiJournee;
+    private final int nbEleves;
+    private final List<Creneau> creneaux;
+    // Salles triées par capacité croissante
+    private final List<Salle> salles;
+    private final boolean[][] salleOccupee;
+    private final int[] placesParCreneau;
+    private final Map<Activite, Demande> demandes = new LinkedHashMap<>();
+    
+    @Getter
+    private final List<Session> sessions = new ArrayList<>();
+    
+    /**
+     * @param prioritesParActivite priorités des vœux portant sur chaque activité de la demi-journée
+     * @param activites toutes les activités de la demi-journée, avec ou sans vœux (complément des créneaux)
+     */
+    public PlanificateurSessions(DemiJournee demiJournee, int nbEleves, List<Creneau> creneaux, List<Salle> salles,
+                                 List<Activite> activites, Map<Activite, List<Integer>> prioritesParActivite) {
+        this.demiJournee = demiJournee;
+        this.nbEleves = nbEleves;
+        this.creneaux = creneaux;
+        this.salles = new ArrayList<>(salles);
+        this.salles.sort(Comparator.comparingInt(Salle::getCapacite));
+        this.salleOccupee = new boolean[creneaux.size()][salles.size()];
+        this.placesParCreneau = new int[creneaux.size()];
+        for (Activite activite : activites) {
+            demandes.put(activite, new Demande(activite, List.of()));
+        }
+        prioritesParActivite.forEach((activite, priorites) -> demandes.put(activite, new Demande(activite, priorites)));
+    }
+    
+    public List<Session> planifier() {
+        if (creneaux.isEmpty() || salles.isEmpty()) {
+            return sessions;
+        }
+        
+        // 1. Garantie minimale par type d'activité, des plus demandées aux moins demandées
+        List<Demande> parPoids = new ArrayList<>(demandes.values());
+        parPoids.sort(Comparator.comparingLong((Demande d) -> d.cumul[d.cumul.length - 1]).reversed());
+        for (Demande demande : parPoids) {
+            if (demande.sessions == 0 && calculerSessionsMinimales(demande.activite.getType(), demande.nbVoeux()) > 0) {
+                placer(demande);
+            }
+        }
+        
+        // 2. Sessions de plus fort gain marginal tant qu'il reste de la demande et des cellules
+        PriorityQueue<Candidat> file = new PriorityQueue<>(Comparator.comparingLong(Candidat::gain).reversed());
+        for (Demande demande : demandes.values()) {
+            long gain = gain(demande);
+            if (gain > 0) {
+                file.add(new Candidat(demande, gain));
+            }
+        }
+        while (!file.isEmpty()) {
+            Candidat candidat = file.poll();
+            Demande demande = candidat.demande();
+            long gain = gain(demande);
+            if (gain <= 0) {
+                continue;
+            }
+            // Le gain ne fait que baisser (salles prises depuis) : réévaluer avant de placer
+            if (gain < candidat.gain()) {
+                file.add(new Candidat(demande, gain));
+                continue;
+            }
+            if (placer(demande) && (gain = gain(demande)) > 0) {
+                file.add(new Candidat(demande, gain));
+            }
+        }
+        
+        // 3. Une place par élève sur chaque créneau (slots complétés hors vœux par le solveur)
+        for (int c = 0; c < creneaux.size(); c++) {
+            while (placesParCreneau[c] < nbEleves) {
+                int creneau = c;
+                Demande complement = demandes.values().stream()
+                    .filter(d -> d.peutOuvrir() && !d.creneauxUtilises[creneau])
+                    .max(Comparator.comparingInt((Demande d) -> d.placesRestantes))
+                    .orElse(null);
+                if (complement == null || placer(complement, c, salles.size() - 1) == null) {
+                    break;
+                }
+            }
+        }
+        return sessions;
+    }
+    
+    /**
+     * Demande non couverte par activité (places offertes inférieures au nombre de vœux)
+     */
+    public List<DemandeActiviteDTO> getDemandeNonSatisfaite() {
+        List<DemandeActiviteDTO> rapport = new ArrayList<>();
+        for (Demande demande : demandes.values()) {
+            int nonCouverte = demande.demandeRestante();
+            if (nonCouverte <= 0) {
+                continue;
+            }
+            String raison;
+            if (demande.sessions >= MAX_SESSIONS_PAR_ACTIVITE) {
+                raison = "Limite de " + MAX_SESSIONS_PAR_ACTIVITE + " sessions atteinte";
+            } else if (demande.placesRestantes <= 0) {
+                raison = "Capacité maximale de l'activité atteinte";
+            } else if (demande.sessions >= creneaux.size()) {
+                raison = "Une session déjà ouverte sur chaque créneau de la demi-journée";
+            } else {
+                raison = "Plus de salle libre sur les créneaux de la demi-journée";
+            }
+            rapport.add(new DemandeActiviteDTO(demande.activite.getId(), demande.activite.getTitre(), demiJournee.name(),
+                                               demande.nbVoeux(), demande.nbPrioritaires, demande.sessions,
+                                               demande.places, nonCouverte, raison));
+        }
+        rapport.sort(Comparator.comparingInt(DemandeActiviteDTO::getDemandeNonCouverte).reversed());
+        return rapport;
+    }
+    
+    /**
+     * Places manquantes par créneau pour accueillir tous les élèves de la demi-journée
+     */
+    public Map<String, Integer> getCreneauxSousDimensionnes() {
+        Map<String, Integer> manques = new LinkedHashMap<>();
+        for (int c = 0; c < creneaux.size(); c++) {
+            if (placesParCreneau[c] < nbEleves) {
+                manques.put(creneaux.get(c).getLibelle(), nbEleves - placesParCreneau[c]);
+            }
+        }
+        return manques;
+    }
+    
+    /**
+     * Poids des vœux servis par une session de plus, avec la plus grande salle encore libre
+     */
+    private long gain(Demande demande) {
+        if (!demande.peutOuvrir() || demande.demandeRestante() <= 0) {
+            return 0;
+        }
+        int meilleureSalle = 0;
+        for (int c = 0; c < creneaux.size(); c++) {
+            if (!demande.creneauxUtilises[c]) {
+                int s = plusGrandeSalleLibre(c);
+                if (s >= 0) {
+                    meilleureSalle = Math.max(meilleureSalle, salles.get(s).getCapacite());
+                }
+            }
+        }
+        int servis = demande.places + Math.min(demande.demandeRestante(), Math.min(meilleureSalle, demande.placesRestantes));
+        return demande.cumul[servis] - demande.cumul[demande.places];
+    }
+    
+    private boolean placer(Demande demande) {
+        // Créneau le moins pourvu en places parmi ceux où l'activité n'a pas de session
+        int creneau = -1;
+        for (int c = 0; c < creneaux.size(); c++) {
+            if (!demande.creneauxUtilises[c] && plusGrandeSalleLibre(c) >= 0
+                    && (creneau < 0 || placesParCreneau[c] < placesParCreneau[creneau])) {
+                creneau = c;
+            }
+        }
+        if (creneau < 0) {
+            return false;
+        }
+        
+        // Plus petite salle libre couvrant le besoin, sinon la plus grande
+        int besoin = Math.min(demande.placesRestantes, demande.demandeRestante());
+        int salle = -1;
+        for (int s = 0; s < salles.size() && salle < 0; s++) {
+            if (!salleOccupee[creneau][s] && salles.get(s).getCapacite() >= besoin) {
+                salle = s;
+            }
+        }
+        return placer(demande, creneau, salle >= 0 ? salle : plusGrandeSalleLibre(creneau)) != null;
+    }
+    
+    /**
+     * Crée la session ; une salle déjà prise est remplacée par la plus grande salle libre du créneau
+     */
+    private Session placer(Demande demande, int creneau, int salle) {
+        if (salle < 0 || salleOccupee[creneau][salle]) {
+            salle = plusGrandeSalleLibre(creneau);
+            if (salle < 0) {
+                return null;
+            }
+        }
+        Salle choisie = salles.get(salle);
+        Session session = new Session();
+        session.setActivite(demande.activite);
+        session.setSalle(choisie);
+        session.setCreneau(creneaux.get(creneau));
+        session.calculerCapacite();
+        sessions.add(session);
+        
+        int places = Math.min(choisie.getCapacite(), demande.placesRestantes);
+        salleOccupee[creneau][salle] = true;
+        placesParCreneau[creneau] += places;
+        demande.creneauxUtilises[creneau] = true;
+        demande.sessions++;
+        demande.placesRestantes -= places;
+        demande.places += places;
+        return session;
+    }
+    
+    private int plusGrandeSalleLibre(int creneau) {
+        for (int s = salles.size() - 1; s >= 0; s--) {
+            if (!salleOccupee[creneau][s]) {
+                return s;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Poids d'un vœu satisfait selon sa priorité (voir AffectationConstraintProvider)
+     */
+    static long poids(int priorite) {
+        return priorite <= 2 ? 1000L * (3 - priorite) : 100L * (6 - priorite);
+    }
+    
+    /**
+     * Nombre minimal de sessions à garantir selon le type d'activité :
+     * - CONFERENCE : au moins 1 session si des vœux existent
+     * - TABLE_RONDE : au moins 1 session si ≥ 5 vœux
+     * - FLASH_METIER : au moins 1 session si ≥ 3 vœux (format court, capacité plus petite)
+     */
+    static int calculerSessionsMinimales(TypeActivite typeActivite, int nbVoeuxTotal) {
+        if (nbVoeuxTotal == 0 || typeActivite == null) {
+            return 0;
+        }
+        return switch (typeActivite) {
+            case CONFERENCE -> 1;
+            case TABLE_RONDE -> nbVoeuxTotal >= 5 ? 1 : 0;
+            case FLASH_METIER -> nbVoeuxTotal >= 3 ? 1 : 0;
+        };
+    }
+    
+    private record Candidat(Demande demande, long gain) {
+    }
+    
+    /**
+     * Demande d'une activité : poids cumulés de ses vœux, du plus lourd au plus léger
+     */
+    private final class Demande {
+        
+        private final Activite activite;
+        private final long[] cumul;
+        private final int nbPrioritaires;
+        private final boolean[] creneauxUtilises = new boolean[creneaux.size()];
+        // Reste de capaciteMax, partagé par toutes les sessions de l'activité
+        private int placesRestantes;
+        private int places;
+        private int sessions;
+        
+        private Demande(Activite activite, List<Integer> priorites) {
+            this.activite = activite;
+            this.placesRestantes = activite.getCapaciteMax() != null ? activite.getCapaciteMax() : Integer.MAX_VALUE;
+            long[] poids = priorites.stream().mapToLong(PlanificateurSessions::poids).sorted().toArray();
+            this.cumul = new long[poids.length + 1];
+            for (int i = 0; i < poids.length; i++) {
+                cumul[i + 1] = cumul[i] + poids[poids.length - 1 - i];
+            }
+            this.nbPrioritaires = (int) priorites.stream().filter(p -> p <= 2).count();
+        }
+        
+        private int nbVoeux() {
+            return cumul.length - 1;
+        }
+        
+        /**
+         * Vœux pas encore couverts par les places des sessions ouvertes
+         */
+        private int demandeRestante() {
+            return nbVoeux() - places;
+        }
+        
+        private boolean peutOuvrir() {
+            return sessions < MAX_SESSIONS_PAR_ACTIVITE && placesRestantes > 0;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.fesup.solver;
+
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import com.fesup.entity.Activite;
+import com.fesup.entity.Creneau;
+import com.fesup.entity.Eleve;
+import com.fesup.entity.Salle;
+import com.fesup.entity.Session;
+import com.fesup.entity.Voeu;
+import com.fesup.enums.DemiJournee;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Optimisation conjointe des sessions et des affectations par boucle externe.
+ *
+ * À chaque itération, les sessions sont replanifiées (PlanificateurSessions) puis les
+ * élèves affectés par flot de coût minimal, en quelques secondes. Les vœux de priorité 1
+ * ou 2 restés non satisfaits (conflits de créneaux entre les vœux d'un même élève, salle
+ * trop petite...) sont ajoutés à la demande de leur activité pour l'itération suivante,
+ * qui lui ouvre davantage de places ou de créneaux tant que sa capacité maximale n'est
+ * pas atteinte. Le meilleur plan rencontré est conservé, puis débarrassé des sessions
+ * restées vides.
+ */
+@Slf4j
+public class PlanificationConjointe {
+    
+    private final List<Eleve> eleves;
+    private final List<Voeu> voeux;
+    private final List<Salle> salles;
+    private final Map<DemiJournee, List<Creneau>> creneauxParDemiJournee = new EnumMap<>(DemiJournee.class);
+    private final Map<DemiJournee, List<Activite>> activitesParDemiJournee = new EnumMap<>(DemiJournee.class);
+    private final Map<DemiJournee, Integer> elevesParDemiJournee = new EnumMap<>(DemiJournee.class);
+    // Score d'une solution du flot (SolutionManager.update)
+    private final Function<AffectationSolution, HardSoftScore> evaluateur;
+    
+    // Vœux prioritaires non satisfaits aux itérations précédentes, ajoutés à la demande
+    private final Map<Activite, List<Integer>> renforts = new HashMap<>();
+    
+    @Getter
+    private final List<String> historique = new ArrayList<>();
+    
+    public PlanificationConjointe(List<Eleve> eleves, List<Voeu> voeux, List<Salle> salles, List<Creneau> creneaux,
+                                  List<Activite> activites, Function<AffectationSolution, HardSoftScore> evaluateur) {
+        this.eleves = eleves;
+        this.voeux = voeux;
+        this.salles = salles;
+        this.evaluateur = evaluateur;
+        for (Creneau creneau : creneaux) {
+            creneauxParDemiJournee.computeIfAbsent(creneau.getDemiJournee(), dj -> new ArrayList<>()).add(creneau);
+        }
+        for (Activite activite : activites) {
+            activitesParDemiJournee.computeIfAbsent(activite.getDemiJournee(), dj -> new ArrayList<>()).add(activite);
+        }
+        for (Eleve eleve : eleves) {
+            if (eleve.getDemiJournee() != null) {
+                elevesParDemiJournee.merge(eleve.getDemiJournee(), 1, Integer::sum);
+            }
+        }
+    }
+    
+    /**
+     * Itère au plus nbIterations fois, et s'arrête dès qu'aucun vœu prioritaire perdu ne peut
+     * plus être renforcé ou après deux itérations sans amélioration du score
+     *
+     * @param arret interrompt la boucle entre deux itérations (annulation du job)
+     * @return meilleur plan affecté par le flot, ses sessions n'étant pas encore persistées
+     */
+    public AffectationSolution optimiser(int nbIterations, BooleanSupplier arret) {
+        AffectationSolution meilleure = null;
+        int sansAmelioration = 0;
+        for (int iteration = 1; iteration <= nbIterations && !arret.getAsBoolean(); iteration++) {
+            long debut = System.currentTimeMillis();
+            AffectationSolution solution = affecter(planifierSessions());
+            int nouveauxRenforts = renforcer(solution);
+            
+            boolean amelioree = meilleure == null || solution.getScore().compareTo(meilleure.getScore()) > 0;
+            if (amelioree) {
+                meilleure = solution;
+                sansAmelioration = 0;
+            } else {
+                sansAmelioration++;
+            }
+            tracer("Itération " + iteration, solution, System.currentTimeMillis() - debut, amelioree);
+            if (nouveauxRenforts == 0 || sansAmelioration >= 2) {
+                break;
+            }
+        }
+        if (meilleure == null) {
+            return null;
+        }
+        
+        // Sessions vides du meilleur plan : leurs cellules ne servent à personne
+        List<Session> occupees = sessionsOccupees(meilleure);
+        if (occupees.size() < meilleure.getCorrespondance().getSessions().size()) {
+            long debut = System.currentTimeMillis();
+            AffectationSolution elaguee = affecter(occupees);
+            boolean conservee = elaguee.getScore().compareTo(meilleure.getScore()) >= 0;
+            if (conservee) {
+                meilleure = elaguee;
+            }
+            tracer("Élagage", elaguee, System.currentTimeMillis() - debut, conservee);
+        }
+        return meilleure;
+    }
+    
+    /**
+     * Sessions de chaque demi-journée planifiées sur la demande des vœux et les renforts
+     */
+    private List<Session> planifierSessions() {
+        Map<DemiJournee, Map<Activite, List<Integer>>> prioritesParDemiJournee = new EnumMap<>(DemiJournee.class);
+        for (Voeu voeu : voeux) {
+            DemiJournee demiJournee = voeu.getEleve().getDemiJournee();
+            if (demiJournee != null) {
+                prioritesParDemiJournee.computeIfAbsent(demiJournee, dj -> new LinkedHashMap<>())
+                    .computeIfAbsent(voeu.getActivite(), a -> new ArrayList<>()).add(voeu.getPriorite());
+            }
+        }
+        renforts.forEach((activite, priorites) -> prioritesParDemiJournee
+            .computeIfAbsent(activite.getDemiJournee(), dj -> new LinkedHashMap<>())
+            .computeIfAbsent(activite, a -> new ArrayList<>()).addAll(priorites));
+        
+        List<Session> sessions = new ArrayList<>();
+        prioritesParDemiJournee.forEach((demiJournee, priorites) -> sessions.addAll(new PlanificateurSessions(
+            demiJournee, elevesParDemiJournee.getOrDefault(demiJournee, 0),
+            creneauxParDemiJournee.getOrDefault(demiJournee, List.of()), salles,
+            activitesParDemiJournee.getOrDefault(demiJournee, List.of()), priorites).planifier()));
+        return sessions;
+    }
+    
+    private AffectationSolution affecter(List<Session> sessions) {
+        AffectationSolution solution = new ConstructeurProbleme(false).construire(eleves, sessions, voeux);
+        new AffectationParFlot().affecter(solution);
+        solution.setScore(evaluateur.apply(solution));
+        return solution;
+    }
+    
+    /**
+     * Ajoute aux renforts les vœux prioritaires non satisfaits par la solution, tant que leur
+     * activité a encore des places sous capaciteMax (plafond de toutes ses sessions, appliqué
+     * par le flot) : au-delà, une session de plus resterait vide.
+     *
+     * @return nombre de vœux ajoutés aux renforts
+     */
+    private int renforcer(AffectationSolution solution) {
+        Set<Long> activitesSuivies = new HashSet<>();
+        Map<Integer, Integer> occupation = new HashMap<>();
+        for (AffectationPlanifiee affectation : solution.getAffectations()) {
+            if (affectation.getSession() != null) {
+                activitesSuivies.add(cle(affectation.getEleveIndex(), affectation.getActiviteIndex()));
+                occupation.merge(affectation.getActiviteIndex(), 1, Integer::sum);
+            }
+        }
+        // Les vœux planifiés sont dans l'ordre des vœux JPA (voir ConstructeurProbleme)
+        Map<Activite, Integer> placesRestantes = new HashMap<>();
+        int ajoutes = 0;
+        for (int i = 0; i < voeux.size(); i++) {
+            VoeuPlanifie voeu = solution.getVoeux().get(i);
+            if (voeu.getEleveIndex() < 0 || voeu.getPriorite() > 2
+                    || activitesSuivies.contains(cle(voeu.getEleveIndex(), voeu.getActiviteIndex()))) {
+                continue;
+            }
+            Activite activite = voeux.get(i).getActivite();
+            int places = placesRestantes.computeIfAbsent(activite, a -> a.getCapaciteMax() == null ? Integer.MAX_VALUE
+                : a.getCapaciteMax() - occupation.getOrDefault(voeu.getActiviteIndex(), 0));
+            if (places > 0) {
+                renforts.computeIfAbsent(activite, a -> new ArrayList<>()).add(voeu.getPriorite());
+                placesRestantes.put(activite, places - 1);
+                ajoutes++;
+            }
+        }
+        return ajoutes;
+    }
+    
+    private static List<Session> sessionsOccupees(AffectationSolution solution) {
+        boolean[] occupee = new boolean[solution.getSessions().size()];
+        for (AffectationPlanifiee affectation : solution.getAffectations()) {
+            if (affectation.getSession() != null) {
+                occupee[affectation.getSession().getIndex()] = true;
+            }
+        }
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < occupee.length; i++) {
+            if (occupee[i]) {
+                sessions.add(solution.getCorrespondance().getSessions().get(i));
+            }
+        }
+        return sessions;
+    }
+    
+    private void tracer(String etape, AffectationSolution solution, long dureeMs, boolean retenue) {
+        int places = 0;
+        for (SessionPlanifiee session : solution.getSessions()) {
+            places += session.getCapaciteSalle();
+        }
+        long occupees = solution.getAffectations().stream().filter(a -> a.getSession() != null).count();
+        String ligne = String.format("%s : %d sessions, %d places vides, %d vœux prioritaires non satisfaits, score %s (%d ms)%s",
+            etape, solution.getSessions().size(), places - occupees, solution.compterVoeuxPrioritairesNonSatisfaits(),
+            solution.getScore(), dureeMs, retenue ? " ✓" : "");
+        historique.add(ligne);
+        log.info("🔁 {}", ligne);
+    }
+    
+    private static long cle(int eleveIndex, int activiteIndex) {
+        return ((long) eleveIndex << 32) | (activiteIndex & 0xFFFFFFFFL);
+    }
+}
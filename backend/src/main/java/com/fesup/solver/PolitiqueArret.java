@@ -0,0 +1,142 @@
+package com.fesup.solver;
+
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.core.config.constructionheuristic.ConstructionHeuristicPhaseConfig;
+import ai.timefold.solver.core.config.localsearch.LocalSearchPhaseConfig;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Politique d'arrêt d'une résolution : le solveur s'arrête dès que l'une des limites
+ * renseignées est atteinte. Une limite nulle est désactivée.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PolitiqueArret {
+    
+    // Marge de mesure pour déduire la limite de temps qui a déclenché l'arrêt
+    private static final Duration TOLERANCE = Duration.ofSeconds(1);
+    
+    // Ex : "0hard/*soft" (le joker ignore le niveau soft) ou "0hard/-5000soft"
+    private static final Pattern FORMAT_SCORE = Pattern.compile("(-?\\d+)hard/(-?\\d+|\\*)soft");
+    
+    private Duration tempsMax;
+    private Duration tempsSansAmelioration;
+    private String scoreCible;
+    private Integer nbEtapesMax;
+    private String moveThreadCount;
+    
+    /**
+     * Politique résultant des paramètres de la requête, les valeurs absentes étant reprises de celle-ci
+     */
+    public PolitiqueArret surcharger(PolitiqueArret surcharge) {
+        return new PolitiqueArret(
+            surcharge.tempsMax != null ? surcharge.tempsMax : tempsMax,
+            surcharge.tempsSansAmelioration != null ? surcharge.tempsSansAmelioration : tempsSansAmelioration,
+            surcharge.scoreCible != null ? surcharge.scoreCible : scoreCible,
+            surcharge.nbEtapesMax != null ? surcharge.nbEtapesMax : nbEtapesMax,
+            surcharge.moveThreadCount != null ? surcharge.moveThreadCount : moveThreadCount
+        );
+    }
+    
+    /**
+     * Copie de la configuration de base avec cette politique d'arrêt
+     */
+    public SolverConfig appliquer(SolverConfig base) {
+        TerminationConfig terminationConfig = new TerminationConfig();
+        if (tempsMax != null) {
+            terminationConfig.setSpentLimit(tempsMax);
+        }
+        if (tempsSansAmelioration != null) {
+            terminationConfig.setUnimprovedSpentLimit(tempsSansAmelioration);
+        }
+        if (scoreCible != null) {
+            if (!FORMAT_SCORE.matcher(scoreCible).matches()) {
+                throw new IllegalArgumentException("Score cible invalide : " + scoreCible + " (format attendu : 0hard/*soft)");
+            }
+            terminationConfig.setBestScoreLimit(scoreCible);
+        }
+        if (tempsMax == null && tempsSansAmelioration == null && scoreCible == null && nbEtapesMax == null) {
+            throw new IllegalArgumentException("Politique d'arrêt invalide : au moins une limite est nécessaire");
+        }
+        
+        SolverConfig config = new SolverConfig(base)
+            .withTerminationConfig(terminationConfig)
+            .withMoveThreadCount(moveThreadCount);
+        if (nbEtapesMax != null) {
+            // Timefold ne limite le nombre d'étapes qu'au niveau d'une phase : celle de recherche locale
+            if (nbEtapesMax <= 0) {
+                throw new IllegalArgumentException("Nombre d'étapes invalide : " + nbEtapesMax);
+            }
+            config.setPhaseConfigList(List.of(
+                new ConstructionHeuristicPhaseConfig(),
+                new LocalSearchPhaseConfig().withTerminationConfig(new TerminationConfig().withStepCountLimit(nbEtapesMax))));
+        }
+        return config;
+    }
+    
+    /**
+     * Raison d'arrêt déduite du score final et des durées mesurées (Timefold ne l'expose pas)
+     */
+    public String raisonArret(HardSoftScore score, Duration duree, Duration depuisDerniereAmelioration) {
+        if (scoreCibleAtteint(score)) {
+            return "Score cible atteint (" + scoreCible + ")";
+        }
+        if (tempsMax != null && duree.plus(TOLERANCE).compareTo(tempsMax) >= 0) {
+            return "Temps maximal atteint (" + tempsMax.toSeconds() + "s)";
+        }
+        if (tempsSansAmelioration != null && depuisDerniereAmelioration.plus(TOLERANCE).compareTo(tempsSansAmelioration) >= 0) {
+            return "Aucune amélioration depuis " + tempsSansAmelioration.toSeconds() + "s";
+        }
+        if (nbEtapesMax != null) {
+            return "Nombre d'étapes atteint (" + nbEtapesMax + ")";
+        }
+        return "Fin de la résolution";
+    }
+    
+    private boolean scoreCibleAtteint(HardSoftScore score) {
+        if (scoreCible == null || score == null || !score.isSolutionInitialized()) {
+            return false;
+        }
+        Matcher matcher = FORMAT_SCORE.matcher(scoreCible);
+        if (!matcher.matches()) {
+            return false;
+        }
+        int hardCible = Integer.parseInt(matcher.group(1));
+        if (score.hardScore() != hardCible) {
+            return score.hardScore() > hardCible;
+        }
+        return "*".equals(matcher.group(2)) || score.softScore() >= Integer.parseInt(matcher.group(2));
+    }
+    
+    /**
+     * Description lisible, reprise dans les résultats
+     */
+    public String decrire() {
+        List<String> limites = new ArrayList<>();
+        if (tempsMax != null) {
+            limites.add("temps max " + tempsMax.toSeconds() + "s");
+        }
+        if (tempsSansAmelioration != null) {
+            limites.add("sans amélioration " + tempsSansAmelioration.toSeconds() + "s");
+        }
+        if (scoreCible != null) {
+            limites.add("score cible " + scoreCible);
+        }
+        if (nbEtapesMax != null) {
+            limites.add(nbEtapesMax + " étapes max");
+        }
+        limites.add("move threads " + (moveThreadCount != null ? moveThreadCount : "NONE"));
+        return String.join(", ", limites);
+    }
+}
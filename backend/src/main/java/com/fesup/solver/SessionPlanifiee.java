@@ -0,0 +1,22 @@
+package com.fesup.solver;
+
+import com.fesup.enums.DemiJournee;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Session vue par le solveur : index dense, activité, créneau et capacité de la salle.
+ * Égalité par identité : une seule instance par session dans un problème.
+ */
+@Getter
+@AllArgsConstructor
+public class SessionPlanifiee {
+    
+    private final int index;
+    private final ActivitePlanifiee activite;
+    
+    // Rang du créneau, les créneaux étant triés par demi-journée puis par heure de début
+    private final int creneauIndex;
+    private final DemiJournee demiJournee;
+    private final int capaciteSalle;
+}
@@ -0,0 +1,16 @@
+package com.fesup.solver;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Vœu vu par le solveur : index de l'élève, index de l'activité et priorité (1 à 5)
+ */
+@Getter
+@AllArgsConstructor
+public class VoeuPlanifie {
+    
+    private final int eleveIndex;
+    private final int activiteIndex;
+    private final int priorite;
+}
@@ -0,0 +1,161 @@
+package com.fesup.service;
+
+import com.fesup.entity.Activite;
+import com.fesup.entity.Affectation;
+import com.fesup.entity.Creneau;
+import com.fesup.entity.Eleve;
+import com.fesup.entity.Lycee;
+import com.fesup.entity.Salle;
+import com.fesup.entity.Session;
+import com.fesup.enums.DemiJournee;
+import com.fesup.enums.TypeActivite;
+import com.fesup.repository.ActiviteRepository;
+import com.fesup.repository.AffectationRepository;
+import com.fesup.repository.CreneauRepository;
+import com.fesup.repository.EleveRepository;
+import com.fesup.repository.LyceeRepository;
+import com.fesup.repository.SalleRepository;
+import com.fesup.repository.SessionRepository;
+import com.fesup.repository.TicketJdbcRepository;
+import com.fesup.repository.TicketRepository;
+import com.fesup.service.BatchPdfService.BatchResult;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Nombre de requêtes de la génération en lot, compté par les statistiques Hibernate.
+ *
+ * Hors transaction, comme en production : une association non chargée par les JOIN FETCH
+ * lèverait une LazyInitializationException au rendu et le ticket serait compté en erreur.
+ * L'enregistrement JDBC des tickets (ON CONFLICT, propre à PostgreSQL) et le stockage des
+ * PDF sont simulés.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.sql.init.mode=never"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BatchPdfServiceTest {
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private LyceeRepository lyceeRepository;
+    @Autowired
+    private EleveRepository eleveRepository;
+    @Autowired
+    private ActiviteRepository activiteRepository;
+    @Autowired
+    private SalleRepository salleRepository;
+    @Autowired
+    private CreneauRepository creneauRepository;
+    @Autowired
+    private SessionRepository sessionRepository;
+    @Autowired
+    private AffectationRepository affectationRepository;
+    @Autowired
+    private TicketRepository ticketRepository;
+    
+    private BatchPdfService batchPdfService;
+    private Statistics statistiques;
+    private Lycee lycee;
+    private List<Session> sessions;
+    private int elevesCrees;
+    
+    @BeforeEach
+    void preparer() throws Exception {
+        TicketStorageService storageService = mock(TicketStorageService.class);
+        when(storageService.sauvegarderPdf(anyLong(), any())).thenAnswer(invocation -> invocation.getArgument(0) + ".pdf");
+        batchPdfService = new BatchPdfService(eleveRepository, affectationRepository, ticketRepository,
+                                              new PdfGenerationService(), storageService, mock(TicketJdbcRepository.class));
+        // Rendu dans le thread appelant, lots de 10 tickets
+        ReflectionTestUtils.setField(batchPdfService, "pdfExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(batchPdfService, "tailleLot", 10);
+        
+        statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        lycee = lyceeRepository.save(new Lycee(null, "Lycée de test", "Paris", "75000", new ArrayList<>()));
+        Activite activite = activiteRepository.save(new Activite(null, "Conférence", null, TypeActivite.CONFERENCE,
+                                                                 DemiJournee.JOUR1_MATIN, 30));
+        Salle salle = salleRepository.save(new Salle(null, "A101", 30, "A", null));
+        sessions = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Creneau creneau = creneauRepository.save(new Creneau(null, "Matin Slot " + (i + 1), LocalTime.of(9 + i, 0),
+                                                                 LocalTime.of(10 + i, 0), DemiJournee.JOUR1_MATIN));
+            Session session = new Session();
+            session.setActivite(activite);
+            session.setSalle(salle);
+            session.setCreneau(creneau);
+            session.calculerCapacite();
+            sessions.add(sessionRepository.save(session));
+        }
+    }
+    
+    @AfterEach
+    void nettoyer() {
+        affectationRepository.deleteAllInBatch();
+        sessionRepository.deleteAllInBatch();
+        creneauRepository.deleteAllInBatch();
+        salleRepository.deleteAllInBatch();
+        activiteRepository.deleteAllInBatch();
+        eleveRepository.deleteAllInBatch();
+        lyceeRepository.deleteAllInBatch();
+    }
+    
+    @Test
+    void generer_nombreDeRequetesIndependantDuNombreDEleves() {
+        ajouterEleves(5);
+        long requetesPourCinq = compterRequetes(5);
+        
+        ajouterEleves(45);
+        long requetesPourCinquante = compterRequetes(50);
+        
+        // Un COUNT des élèves et une requête pour les affectations, quel que soit le nombre d'élèves
+        assertThat(requetesPourCinquante).isEqualTo(requetesPourCinq).isEqualTo(2);
+    }
+    
+    private long compterRequetes(int nbEleves) {
+        statistiques.clear();
+        BatchResult resultat = batchPdfService.generer(null, false, () -> false, r -> { });
+        
+        assertThat(resultat.getErreursDetails()).isEmpty();
+        assertThat(resultat.getSucces()).isEqualTo(nbEleves);
+        return statistiques.getPrepareStatementCount();
+    }
+    
+    private void ajouterEleves(int nombre) {
+        List<Affectation> affectations = new ArrayList<>();
+        for (int i = 0; i < nombre; i++) {
+            Eleve eleve = new Eleve();
+            eleve.setIdNational("INE" + elevesCrees++);
+            eleve.setNom("Nom" + elevesCrees);
+            eleve.setPrenom("Prénom" + elevesCrees);
+            eleve.setLycee(lycee);
+            eleve.setDemiJournee(DemiJournee.JOUR1_MATIN);
+            eleve = eleveRepository.save(eleve);
+            for (Session session : sessions) {
+                affectations.add(new Affectation(eleve, session));
+            }
+        }
+        affectationRepository.saveAll(affectations);
+    }
+}
@@ -0,0 +1,154 @@
+package com.fesup.solver;
+
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.test.api.score.stream.ConstraintVerifier;
+import com.fesup.enums.DemiJournee;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contraintes du modèle à index denses, contrôlées contre les pénalités de l'ancien
+ * modèle sur entités JPA (mêmes poids, mêmes cas limites).
+ */
+class AffectationConstraintProviderTest {
+    
+    private static final DemiJournee MATIN = DemiJournee.JOUR1_MATIN;
+    
+    private final ConstraintVerifier<AffectationConstraintProvider, AffectationSolution> constraintVerifier =
+        ConstraintVerifier.build(new AffectationConstraintProvider(), AffectationSolution.class, AffectationPlanifiee.class);
+    
+    private final ActivitePlanifiee conference = new ActivitePlanifiee(0, 3);
+    private final ActivitePlanifiee atelier = new ActivitePlanifiee(1, Integer.MAX_VALUE);
+    
+    // === CONTRAINTES DURES ===
+    
+    @Test
+    void capaciteSalle_penaliseLesPlacesEnTrop() {
+        SessionPlanifiee session = session(0, atelier, 0, 2);
+        
+        constraintVerifier.verifyThat(AffectationConstraintProvider::capaciteSalle)
+            .given(affectation(0, 0, 0, session), affectation(1, 1, 0, session), affectation(2, 2, 0, session))
+            .penalizesBy(1);
+        constraintVerifier.verifyThat(AffectationConstraintProvider::capaciteSalle)
+            .given(affectation(0, 0, 0, session), affectation(1, 1, 0, session))
+            .penalizesBy(0);
+    }
+    
+    @Test
+    void capaciteActivite_cumuleToutesLesSessions() {
+        SessionPlanifiee premiere = session(0, conference, 0, 30);
+        SessionPlanifiee seconde = session(1, conference, 1, 30);
+        
+        constraintVerifier.verifyThat(AffectationConstraintProvider::capaciteActivite)
+            .given(affectation(0, 0, 0, premiere), affectation(1, 1, 0, premiere),
+                   affectation(2, 2, 1, seconde), affectation(3, 3, 1, seconde), affectation(4, 4, 1, seconde))
+            .penalizesBy(2);
+    }
+    
+    @Test
+    void eleveUnique_penaliseChaquePaireDeuxFois() {
+        // Deux créneaux aux mêmes horaires : même ordinal, slots différents
+        SessionPlanifiee session = session(0, atelier, 0, 30);
+        SessionPlanifiee autre = session(1, atelier, 1, 30);
+        AffectationPlanifiee premier = affectation(0, 0, 0, 0, session);
+        AffectationPlanifiee deuxieme = affectation(1, 0, 1, 0, autre);
+        AffectationPlanifiee troisieme = affectation(2, 0, 2, 0, autre);
+        
+        // Une correspondance par paire, pesant 2 : l'ancienne jointure voyait (a, b) et (b, a)
+        constraintVerifier.verifyThat(AffectationConstraintProvider::eleveUnique)
+            .given(premier, deuxieme, troisieme)
+            .penalizesBy(3);
+        constraintVerifier.verifyThat()
+            .given(premier, deuxieme, troisieme)
+            .scores(HardSoftScore.ofHard(-6));
+    }
+    
+    @Test
+    void eleveUnique_ignoreLesAutresCreneauxEtElevesEtLesSlotsVides() {
+        SessionPlanifiee session = session(0, atelier, 0, 30);
+        AffectationPlanifiee autreCreneau = affectation(1, 0, 1, 1, session);
+        AffectationPlanifiee autreEleve = affectation(2, 1, 0, 0, session);
+        AffectationPlanifiee vide = affectation(3, 0, 2, 0, null);
+        
+        constraintVerifier.verifyThat(AffectationConstraintProvider::eleveUnique)
+            .given(affectation(0, 0, 0, 0, session), autreCreneau, autreEleve, vide)
+            .penalizesBy(0);
+    }
+    
+    @Test
+    void maxRepetitionActivite_compteLesSessionsDistinctesParDemiJournee() {
+        List<AffectationPlanifiee> affectations = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            SessionPlanifiee session = session(i, atelier, i, 30);
+            // Deux élèves par session : seules les sessions distinctes comptent
+            affectations.add(affectation(2 * i, 2 * i, 0, session));
+            affectations.add(affectation(2 * i + 1, 2 * i + 1, 0, session));
+        }
+        SessionPlanifiee apresMidi = new SessionPlanifiee(7, atelier, 7, DemiJournee.JOUR1_APRES_MIDI, 30);
+        affectations.add(affectation(14, 14, 0, apresMidi));
+        
+        constraintVerifier.verifyThat(AffectationConstraintProvider::maxRepetitionActivite)
+            .given(affectations.toArray())
+            .penalizesBy(2);
+    }
+    
+    // === CONTRAINTES DOUCES ===
+    
+    @Test
+    void voeux1_2Obligatoire_penaliseLesVoeuxNonAffectes() {
+        SessionPlanifiee session = session(0, conference, 0, 30);
+        
+        constraintVerifier.verifyThat(AffectationConstraintProvider::voeux1_2Obligatoire)
+            .given(new VoeuPlanifie(0, 0, 1), new VoeuPlanifie(0, 1, 2), new VoeuPlanifie(0, 1, 3),
+                   affectation(0, 0, 0, session))
+            .penalizesBy(1000);
+    }
+    
+    @Test
+    void voeux1_2Obligatoire_slotVideNeSatisfaitAucunVoeu() {
+        // Le slot vide a l'index d'activité -1 : il ne correspond à aucun vœu
+        constraintVerifier.verifyThat(AffectationConstraintProvider::voeux1_2Obligatoire)
+            .given(new VoeuPlanifie(0, 0, 1), affectation(0, 0, 0, null))
+            .penalizesBy(2000);
+    }
+    
+    @Test
+    void voeux3_4_5Bonus_recompenseLesVoeuxAffectes() {
+        SessionPlanifiee conferenceMatin = session(0, conference, 0, 30);
+        SessionPlanifiee atelierMatin = session(1, atelier, 1, 30);
+        
+        constraintVerifier.verifyThat(AffectationConstraintProvider::voeux3_4_5Bonus)
+            .given(new VoeuPlanifie(0, 0, 3), new VoeuPlanifie(0, 1, 5), new VoeuPlanifie(1, 0, 4),
+                   new VoeuPlanifie(0, 1, 1),
+                   affectation(0, 0, 0, conferenceMatin), affectation(1, 0, 1, atelierMatin))
+            .rewardsWith(400);
+    }
+    
+    @Test
+    void voeux3_4_5Bonus_slotVideNeRapporteRien() {
+        constraintVerifier.verifyThat(AffectationConstraintProvider::voeux3_4_5Bonus)
+            .given(new VoeuPlanifie(0, 0, 3), affectation(0, 0, 0, null))
+            .rewardsWith(0);
+    }
+    
+    private static SessionPlanifiee session(int index, ActivitePlanifiee activite, int creneauIndex, int capaciteSalle) {
+        return new SessionPlanifiee(index, activite, creneauIndex, MATIN, capaciteSalle);
+    }
+    
+    /**
+     * Slot dont l'ordinal de créneau est celui de la session (créneaux aux horaires distincts)
+     */
+    private static AffectationPlanifiee affectation(int index, int eleveIndex, int slot, SessionPlanifiee session) {
+        return affectation(index, eleveIndex, slot, session != null ? session.getCreneauIndex() : slot, session);
+    }
+    
+    private static AffectationPlanifiee affectation(int index, int eleveIndex, int slot, int creneauOrdinal,
+                                                    SessionPlanifiee session) {
+        AffectationPlanifiee affectation = new AffectationPlanifiee(index, eleveIndex, slot, creneauOrdinal,
+                                                                    creneauOrdinal, MATIN, session != null ? List.of(session) : List.of());
+        affectation.setSession(session);
+        return affectation;
+    }
+}
@@ -0,0 +1,187 @@
+package com.fesup.solver;
+
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.test.api.score.stream.ConstraintVerifier;
+import com.fesup.entity.Activite;
+import com.fesup.entity.Affectation;
+import com.fesup.entity.Creneau;
+import com.fesup.entity.Eleve;
+import com.fesup.entity.Salle;
+import com.fesup.entity.Session;
+import com.fesup.entity.Voeu;
+import com.fesup.enums.DemiJournee;
+import com.fesup.enums.TypeActivite;
+import com.fesup.enums.TypeVoeu;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.RepetitionInfo;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Le modèle à index denses doit scorer comme l'ancien modèle sur entités JPA.
+ *
+ * Des problèmes aléatoires (créneaux aux horaires identiques, activité répétée plus de
+ * 5 fois, activité sans session, slots non initialisés, élèves sans créneau) sont construits par
+ * ConstructeurProbleme et affectés au hasard. Le score des nouvelles contraintes est
+ * comparé à celui de l'ancien barème, recalculé sur les entités écrites par la solution.
+ */
+class EquivalenceAncienModeleTest {
+    
+    private final ConstraintVerifier<AffectationConstraintProvider, AffectationSolution> constraintVerifier =
+        ConstraintVerifier.build(new AffectationConstraintProvider(), AffectationSolution.class, AffectationPlanifiee.class);
+    
+    @RepeatedTest(30)
+    void memeScoreQueLAncienModele(RepetitionInfo repetition) {
+        Random aleatoire = new Random(repetition.getCurrentRepetition());
+        Probleme probleme = generer(aleatoire);
+        AffectationSolution solution = new ConstructeurProbleme(false)
+            .construire(probleme.eleves(), probleme.sessions(), probleme.voeux());
+        int slotsVides = 0;
+        for (AffectationPlanifiee affectation : solution.getAffectations()) {
+            List<SessionPlanifiee> possibles = affectation.getSessionsPossibles();
+            if (aleatoire.nextInt(5) == 0) {
+                slotsVides++;
+            } else {
+                affectation.setSession(possibles.get(aleatoire.nextInt(possibles.size())));
+            }
+        }
+        
+        // Un slot vide n'est pas initialisé : ignoré par les contraintes, compté dans le score d'initialisation
+        HardSoftScore ancien = scoreAncienModele(solution.versAffectations(), probleme.voeux());
+        constraintVerifier.verifyThat()
+            .givenSolution(solution)
+            .scores(HardSoftScore.ofUninitialized(-slotsVides, ancien.hardScore(), ancien.softScore()));
+    }
+    
+    /**
+     * Ancien AffectationConstraintProvider, contrainte par contrainte, sur les entités
+     * (les affectations sans session sont ignorées par toutes les contraintes)
+     */
+    private static HardSoftScore scoreAncienModele(List<Affectation> affectations, List<Voeu> voeux) {
+        int dur = 0;
+        int doux = 0;
+        
+        // Capacité salle dépassée
+        Map<Session, Integer> parSession = new HashMap<>();
+        affectations.forEach(a -> parSession.merge(a.getAssignedSession(), 1, Integer::sum));
+        for (Map.Entry<Session, Integer> entree : parSession.entrySet()) {
+            dur -= Math.max(0, entree.getValue() - entree.getKey().getSalle().getCapacite());
+        }
+        
+        // Capacité activité dépassée
+        Map<Activite, Integer> parActivite = new HashMap<>();
+        affectations.forEach(a -> parActivite.merge(a.getAssignedSession().getActivite(), 1, Integer::sum));
+        for (Map.Entry<Activite, Integer> entree : parActivite.entrySet()) {
+            dur -= Math.max(0, entree.getValue() - entree.getKey().getCapaciteMax());
+        }
+        
+        // Élève affecté à 2 sessions au même créneau : chaque paire ordonnée (a, b), a != b
+        for (Affectation a : affectations) {
+            for (Affectation b : affectations) {
+                Creneau ca = a.getAssignedSession().getCreneau();
+                Creneau cb = b.getAssignedSession().getCreneau();
+                if (a != b && a.getEleve().equals(b.getEleve())
+                        && ca.getHeureDebut().equals(cb.getHeureDebut()) && ca.getHeureFin().equals(cb.getHeureFin())) {
+                    dur--;
+                }
+            }
+        }
+        
+        // Activité répétée plus de 5 fois : sessions distinctes par (activité, demi-journée)
+        Map<List<Object>, Set<Long>> sessionsParActivite = new HashMap<>();
+        for (Affectation a : affectations) {
+            Session session = a.getAssignedSession();
+            sessionsParActivite.computeIfAbsent(List.of(session.getActivite(), session.getCreneau().getDemiJournee()),
+                                                cle -> new HashSet<>()).add(session.getId());
+        }
+        for (Set<Long> sessions : sessionsParActivite.values()) {
+            dur -= Math.max(0, sessions.size() - 5);
+        }
+        
+        // Vœux 1-2 non satisfaits, vœux 3-4-5 satisfaits
+        for (Voeu voeu : voeux) {
+            boolean satisfait = affectations.stream().anyMatch(a -> a.getEleve().equals(voeu.getEleve())
+                && Objects.equals(voeu.getActivite(), a.getAssignedSession().getActivite()));
+            if (voeu.getPriorite() <= 2 && !satisfait) {
+                doux -= 1000 * (3 - voeu.getPriorite());
+            } else if (voeu.getPriorite() >= 3 && voeu.getPriorite() <= 5 && satisfait) {
+                doux += 100 * (6 - voeu.getPriorite());
+            }
+        }
+        return HardSoftScore.of(dur, doux);
+    }
+    
+    private static Probleme generer(Random aleatoire) {
+        List<Activite> activites = new ArrayList<>();
+        for (long i = 1; i <= 6; i++) {
+            // La dernière activité n'a aucune session
+            activites.add(new Activite(i, "Activité " + i, null, TypeActivite.CONFERENCE, DemiJournee.JOUR1_MATIN,
+                                       3 + aleatoire.nextInt(10)));
+        }
+        List<Salle> salles = new ArrayList<>();
+        for (long i = 1; i <= 4; i++) {
+            salles.add(new Salle(i, "S" + i, 2 + aleatoire.nextInt(6), null, null));
+        }
+        
+        List<Creneau> creneaux = new ArrayList<>();
+        for (DemiJournee demiJournee : List.of(DemiJournee.JOUR1_MATIN, DemiJournee.JOUR1_APRES_MIDI)) {
+            int debut = demiJournee == DemiJournee.JOUR1_MATIN ? 8 : 14;
+            for (int h = 0; h < 4; h++) {
+                creneaux.add(new Creneau((long) creneaux.size() + 1, demiJournee + " " + h,
+                                         LocalTime.of(debut + h, 0), LocalTime.of(debut + h + 1, 0), demiJournee));
+            }
+        }
+        // Deux créneaux du matin aux mêmes horaires
+        creneaux.add(new Creneau((long) creneaux.size() + 1, "Matin bis", LocalTime.of(8, 0), LocalTime.of(9, 0),
+                                 DemiJournee.JOUR1_MATIN));
+        
+        List<Session> sessions = new ArrayList<>();
+        for (Creneau creneau : creneaux) {
+            // L'activité 1 a une session sur chaque créneau du matin : 5 créneaux, 6 sessions
+            if (creneau.getDemiJournee() == DemiJournee.JOUR1_MATIN) {
+                sessions.add(session(sessions.size(), activites.get(0), salles.get(aleatoire.nextInt(4)), creneau));
+            }
+            for (int s = aleatoire.nextInt(4); s >= 0; s--) {
+                sessions.add(session(sessions.size(), activites.get(aleatoire.nextInt(5)), salles.get(aleatoire.nextInt(4)), creneau));
+            }
+        }
+        sessions.add(session(sessions.size(), activites.get(0), salles.get(0), creneaux.get(1)));
+        
+        List<Eleve> eleves = new ArrayList<>();
+        List<Voeu> voeux = new ArrayList<>();
+        List<DemiJournee> demiJournees = List.of(DemiJournee.JOUR1_MATIN, DemiJournee.JOUR1_APRES_MIDI, DemiJournee.JOUR2_MATIN);
+        for (long i = 1; i <= 25; i++) {
+            Eleve eleve = new Eleve();
+            eleve.setId(i);
+            // JOUR2_MATIN n'a aucun créneau : élève sans slot
+            eleve.setDemiJournee(demiJournees.get(aleatoire.nextInt(demiJournees.size())));
+            eleves.add(eleve);
+            for (int priorite = 1; priorite <= 5; priorite++) {
+                voeux.add(new Voeu(null, eleve, activites.get(aleatoire.nextInt(activites.size())), priorite,
+                                   priorite <= 2 ? TypeVoeu.VOEU_1_2 : TypeVoeu.VOEU_3_4_5));
+            }
+        }
+        return new Probleme(eleves, sessions, voeux);
+    }
+    
+    private static Session session(int index, Activite activite, Salle salle, Creneau creneau) {
+        Session session = new Session();
+        session.setId((long) index + 1);
+        session.setActivite(activite);
+        session.setSalle(salle);
+        session.setCreneau(creneau);
+        session.calculerCapacite();
+        return session;
+    }
+    
+    private record Probleme(List<Eleve> eleves, List<Session> sessions, List<Voeu> voeux) {
+    }
+}
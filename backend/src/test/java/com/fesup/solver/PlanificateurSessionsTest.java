@@ -0,0 +1,99 @@
+package com.fesup.solver;
+
+import ai.timefold.solver.test.api.score.stream.ConstraintVerifier;
+import com.fesup.dto.DemandeActiviteDTO;
+import com.fesup.entity.Activite;
+import com.fesup.entity.Creneau;
+import com.fesup.entity.Salle;
+import com.fesup.entity.Session;
+import com.fesup.enums.DemiJournee;
+import com.fesup.enums.TypeActivite;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Les places ouvertes par le planificateur doivent pouvoir être occupées sans pénalité
+ * de capacité : même lecture de capaciteMax (plafond de l'activité) que le solveur.
+ */
+class PlanificateurSessionsTest {
+    
+    private static final DemiJournee MATIN = DemiJournee.JOUR1_MATIN;
+    
+    private final ConstraintVerifier<AffectationConstraintProvider, AffectationSolution> constraintVerifier =
+        ConstraintVerifier.build(new AffectationConstraintProvider(), AffectationSolution.class, AffectationPlanifiee.class);
+    
+    @Test
+    void capaciteMaxAtteinte_nOuvrePasDePlacesInutilisables() {
+        Activite activite = activite(30);
+        PlanificateurSessions planificateur = planificateur(activite, 90, 50);
+        List<Session> sessions = planificateur.planifier();
+        
+        assertThat(sessions).hasSize(1);
+        DemandeActiviteDTO rapport = planificateur.getDemandeNonSatisfaite().get(0);
+        assertThat(rapport.getPlaces()).isEqualTo(30);
+        assertThat(rapport.getDemandeNonCouverte()).isEqualTo(60);
+        assertThat(rapport.getRaison()).isEqualTo("Capacité maximale de l'activité atteinte");
+        verifierPlacesOccupables(activite, sessions, rapport.getPlaces());
+    }
+    
+    @Test
+    void demandeCouverte_toutesLesPlacesSontOccupables() {
+        Activite activite = activite(100);
+        PlanificateurSessions planificateur = planificateur(activite, 90, 30);
+        List<Session> sessions = planificateur.planifier();
+        
+        assertThat(sessions).hasSize(3);
+        assertThat(planificateur.getDemandeNonSatisfaite()).isEmpty();
+        verifierPlacesOccupables(activite, sessions, 90);
+    }
+    
+    /**
+     * Remplit les sessions planifiées (dans la limite de leur salle) avec un élève par place
+     * annoncée, puis vérifie les contraintes de capacité du solveur sur ce plan
+     */
+    private void verifierPlacesOccupables(Activite activite, List<Session> sessions, int places) {
+        ActivitePlanifiee activitePlanifiee = new ActivitePlanifiee(0, activite.getCapaciteMax());
+        List<AffectationPlanifiee> affectations = new ArrayList<>();
+        for (int i = 0; i < sessions.size(); i++) {
+            SessionPlanifiee session = new SessionPlanifiee(i, activitePlanifiee, i, MATIN,
+                                                            sessions.get(i).getSalle().getCapacite());
+            for (int place = 0; place < session.getCapaciteSalle() && affectations.size() < places; place++) {
+                AffectationPlanifiee affectation = new AffectationPlanifiee(affectations.size(), affectations.size(), 0,
+                                                                            i, i, MATIN, List.of(session));
+                affectation.setSession(session);
+                affectations.add(affectation);
+            }
+        }
+        
+        assertThat(affectations).hasSize(places);
+        constraintVerifier.verifyThat(AffectationConstraintProvider::capaciteActivite)
+            .given(affectations.toArray())
+            .penalizesBy(0);
+        constraintVerifier.verifyThat(AffectationConstraintProvider::capaciteSalle)
+            .given(affectations.toArray())
+            .penalizesBy(0);
+    }
+    
+    private static PlanificateurSessions planificateur(Activite activite, int nbVoeux, int capaciteSalles) {
+        List<Creneau> creneaux = new ArrayList<>();
+        List<Salle> salles = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            creneaux.add(new Creneau((long) i + 1, "Matin Slot " + (i + 1), LocalTime.of(9 + i, 0),
+                                     LocalTime.of(10 + i, 0), MATIN));
+            salles.add(new Salle((long) i + 1, "S" + (i + 1), capaciteSalles, null, null));
+        }
+        return new PlanificateurSessions(MATIN, 0, creneaux, salles, List.of(activite),
+                                         Map.of(activite, Collections.nCopies(nbVoeux, 1)));
+    }
+    
+    private static Activite activite(int capaciteMax) {
+        return new Activite(1L, "Conférence", null, TypeActivite.CONFERENCE, MATIN, capaciteMax);
+    }
+}
@@ -2,7 +2,7 @@ import { Component, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
 import { RouterModule } from '@angular/router';
-import { AffectationService, AffectationDTO, AffectationResultat } from '../../services/affectation.service';
+import { AffectationService, AffectationDTO, AffectationResultat, ProgressionSolveur } from '../../services/affectation.service';
 import { SessionAdminService, SessionDTO } from '../../services/session-admin.service';
 import { interval, Subscription } from 'rxjs';
 import { DemiJourneeLabelPipe } from '../../pipes/demi-journee-label.pipe';
@@ -26,7 +26,11 @@ export class ResultatsAffectationComponent implements OnInit {
   hardScore = 0;
   softScore = 0;
   
+  // Dernier événement du flux de progression pendant le calcul
+  progression?: ProgressionSolveur;
+  
   private pollingSubscription?: Subscription;
+  private progressionSubscription?: Subscription;
   
   constructor(
     private affectationService: AffectationService,
@@ -41,6 +45,7 @@ export class ResultatsAffectationComponent implements OnInit {
   
   ngOnDestroy(): void {
     this.pollingSubscription?.unsubscribe();
+    this.progressionSubscription?.unsubscribe();
   }
   
   loadSessions(): void {
@@ -109,6 +114,7 @@ export class ResultatsAffectationComponent implements OnInit {
   
   private startPolling(): void {
     this.pollingSubscription?.unsubscribe();
+    this.suivreProgression();
     
     // Vérifier toutes les 5 secondes
     this.pollingSubscription = interval(5000).subscribe(() => {
@@ -121,18 +127,40 @@ export class ResultatsAffectationComponent implements OnInit {
             this.hardScore = response.hardScore || 0;
             this.softScore = response.softScore || 0;
             this.affectations = response.affectations || [];
-            this.pollingSubscription?.unsubscribe();
+            this.arreterSuivi();
           }
         },
         error: (err) => {
           console.error('Erreur polling:', err);
           this.isRunning = false;
-          this.pollingSubscription?.unsubscribe();
+          this.arreterSuivi();
         }
       });
     });
   }
   
+  // Le polling reste la source des résultats ; le flux ne sert qu'à l'affichage de la progression
+  private suivreProgression(): void {
+    this.progressionSubscription?.unsubscribe();
+    this.progression = undefined;
+    
+    this.progressionSubscription = this.affectationService.suivreProgression().subscribe({
+      next: (evenement) => this.progression = evenement,
+      error: (err) => console.error('Erreur flux de progression:', err)
+    });
+  }
+  
+  private arreterSuivi(): void {
+    this.pollingSubscription?.unsubscribe();
+    this.progressionSubscription?.unsubscribe();
+    this.progression = undefined;
+  }
+  
+  formaterDuree(ms: number | undefined): string {
+    const secondes = Math.floor((ms || 0) / 1000);
+    return `${Math.floor(secondes / 60)} min ${(secondes % 60).toString().padStart(2, '0')} s`;
+  }
+  
   onSessionChange(affectation: AffectationDTO, event: Event): void {
     const select = event.target as HTMLSelectElement;
     const sessionId = parseInt(select.value);
@@ -1,6 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable } from 'rxjs';
+import { AuthService } from './auth.service';
 
 export interface AffectationDTO {
   id?: number;
@@ -27,6 +28,23 @@ export interface AffectationDTO {
   };
 }
 
+/**
+ * Événement du flux de progression du solveur (démarrage, progression, termine, erreur)
+ */
+export interface ProgressionSolveur {
+  type: string;
+  problemId: string;
+  libelle?: string;
+  mode?: string;
+  score?: string;
+  hardScore?: number;
+  softScore?: number;
+  tempsEcouleMs?: number;
+  mouvementsParSeconde?: number;
+  voeuxPrioritairesNonSatisfaits?: number;
+  message?: string;
+}
+
 export interface AffectationResultat {
   status: string;
   score?: string;
@@ -44,7 +62,7 @@ export class AffectationService {
   private apiUrl = '/api/admin/affectations';
   private ticketApiUrl = '/api/admin/tickets';
 
-  constructor(private http: HttpClient) {}
+  constructor(private http: HttpClient, private authService: AuthService) {}
 
   lancerAffectation(): Observable<AffectationResultat> {
     return this.http.post<AffectationResultat>(`${this.apiUrl}/lancer`, {});
@@ -54,6 +72,57 @@ export class AffectationService {
     return this.http.get<{ running: boolean; hasExistingResults: boolean }>(`${this.apiUrl}/status`);
   }
 
+  /**
+   * Flux SSE de progression du solveur. EventSource ne peut pas envoyer l'en-tête
+   * Authorization : le flux est lu avec fetch. Se désabonner ferme la connexion.
+   */
+  suivreProgression(): Observable<ProgressionSolveur> {
+    return new Observable<ProgressionSolveur>(subscriber => {
+      const controller = new AbortController();
+      const token = this.authService.getToken();
+      const headers: Record<string, string> = { Accept: 'text/event-stream' };
+      if (token) {
+        headers['Authorization'] = `Bearer ${token}`;
+      }
+
+      fetch(`${this.apiUrl}/progression`, { headers, signal: controller.signal })
+        .then(async response => {
+          if (!response.ok || !response.body) {
+            throw new Error(`Flux de progression indisponible (HTTP ${response.status})`);
+          }
+          const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+          let tampon = '';
+          while (true) {
+            const { value, done } = await reader.read();
+            if (done) {
+              break;
+            }
+            tampon += value.replace(/\r\n/g, '\n');
+            // Un événement se termine par une ligne vide ; ses lignes "data:" portent le JSON
+            let fin: number;
+            while ((fin = tampon.indexOf('\n\n')) >= 0) {
+              const donnees = tampon.slice(0, fin).split('\n')
+                .filter(ligne => ligne.startsWith('data:'))
+                .map(ligne => ligne.slice(5))
+                .join('\n');
+              tampon = tampon.slice(fin + 2);
+              if (donnees) {
+                subscriber.next(JSON.parse(donnees));
+              }
+            }
+          }
+          subscriber.complete();
+        })
+        .catch(err => {
+          if (!controller.signal.aborted) {
+            subscriber.error(err);
+          }
+        });
+
+      return () => controller.abort();
+    });
+  }
+
   getResultats(): Observable<AffectationResultat> {
     return this.http.get<AffectationResultat>(`${this.apiUrl}/resultats`);
   }